@@ -0,0 +1,117 @@
+/*
+ * Copyright © 2021 camunda services GmbH (info@camunda.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.camunda.zeebe.process.test.api;
+
+import io.camunda.zeebe.protocol.record.Record;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongFunction;
+
+/**
+ * Subscription for record stream sources which can't push their records. It polls the records of
+ * the source periodically and passes the new ones to the listener. Every subscription polls on a
+ * thread of its own, so that a slow listener doesn't delay other subscriptions.
+ *
+ * <p>The records are passed to the listener while holding the lock of the subscription, which
+ * {@link #close()} acquires as well, so that no record is passed after it returned.
+ *
+ * <p>If polling the records or the listener fails, the subscription is closed and the failure is
+ * passed to {@link RecordListener#onFailure(Throwable)}.
+ */
+public final class PollingRecordSubscription implements RecordSubscription {
+
+  private static final long POLL_INTERVAL_MS = 10;
+
+  private final LongFunction<Iterable<Record<?>>> recordsFromPosition;
+  private final RecordListener listener;
+  private final ScheduledExecutorService poller;
+  private long nextPosition;
+  private volatile boolean isClosed;
+
+  /**
+   * @param source the source to poll all records from
+   * @param fromPosition the position of the first record to pass to the listener
+   * @param listener the listener to pass the records to
+   */
+  PollingRecordSubscription(
+      final RecordStreamSource source, final long fromPosition, final RecordListener listener) {
+    this(position -> source.getRecords(), fromPosition, listener);
+  }
+
+  /**
+   * @param recordsFromPosition returns the records from the given position on, in order; it may
+   *     return records before that position as well, they are skipped
+   * @param fromPosition the position of the first record to pass to the listener
+   * @param listener the listener to pass the records to
+   */
+  public PollingRecordSubscription(
+      final LongFunction<Iterable<Record<?>>> recordsFromPosition,
+      final long fromPosition,
+      final RecordListener listener) {
+    this.recordsFromPosition = recordsFromPosition;
+    this.listener = listener;
+    nextPosition = fromPosition;
+    poller =
+        Executors.newSingleThreadScheduledExecutor(
+            runnable -> {
+              final Thread thread = new Thread(runnable, "record-subscription-poller");
+              thread.setDaemon(true);
+              return thread;
+            });
+    poller.scheduleWithFixedDelay(this::poll, 0, POLL_INTERVAL_MS, TimeUnit.MILLISECONDS);
+  }
+
+  @Override
+  public synchronized void close() {
+    isClosed = true;
+    poller.shutdown();
+  }
+
+  private void poll() {
+    // an exception would silently end the scheduled polling, the subscription is closed instead
+    try {
+      pollRecords();
+    } catch (final RuntimeException e) {
+      synchronized (this) {
+        if (isClosed) {
+          return;
+        }
+        close();
+      }
+      listener.onFailure(e);
+    }
+  }
+
+  private void pollRecords() {
+    if (isClosed) {
+      return;
+    }
+    // only the poller changes the next position, so the records are fetched without the lock
+    final Iterable<Record<?>> records = recordsFromPosition.apply(nextPosition);
+    synchronized (this) {
+      for (final Record<?> record : records) {
+        if (isClosed) {
+          return;
+        }
+        if (record.getPosition() >= nextPosition) {
+          nextPosition = record.getPosition() + 1;
+          listener.onRecord(record);
+        }
+      }
+    }
+  }
+}
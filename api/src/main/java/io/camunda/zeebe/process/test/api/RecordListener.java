@@ -0,0 +1,40 @@
+/*
+ * Copyright © 2021 camunda services GmbH (info@camunda.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.camunda.zeebe.process.test.api;
+
+import io.camunda.zeebe.protocol.record.Record;
+
+/** Listener which is notified about the records published by the test engine. */
+@FunctionalInterface
+public interface RecordListener {
+
+  /**
+   * Called for every record of a subscription, in the order of the records. The record may only be
+   * valid during the call; use {@link Record#copyOf()} to keep it.
+   *
+   * @param record the published record
+   */
+  void onRecord(Record<?> record);
+
+  /**
+   * Called once if the subscription ended because it failed, e.g. because the records couldn't be
+   * read or {@link #onRecord(Record)} threw an exception. The listener is not called anymore
+   * afterwards. The default implementation ignores the failure.
+   *
+   * @param failure the cause of the failure
+   */
+  default void onFailure(final Throwable failure) {}
+}
@@ -26,4 +26,22 @@ public interface RecordStreamSource {
    * @return an iterable {@link Record}
    */
   Iterable<Record<?>> getRecords();
+
+  /**
+   * Subscribes to the records published by the test engine. The listener is called for every
+   * record from the given position on, in order, including records which were published before
+   * subscribing. It is always called on a thread of the source, also for the records which were
+   * published before subscribing, and should return quickly.
+   *
+   * <p>The default implementation polls {@link #getRecords()} periodically. Sources which are
+   * notified about new records, like the in memory engine, push the records instead.
+   *
+   * @param fromPosition the position of the first record to pass to the listener; use {@code -1}
+   *     for all records
+   * @param listener the listener to pass the records to
+   * @return the subscription, which must be closed to stop listening
+   */
+  default RecordSubscription subscribe(final long fromPosition, final RecordListener listener) {
+    return new PollingRecordSubscription(this, fromPosition, listener);
+  }
 }
@@ -0,0 +1,27 @@
+/*
+ * Copyright © 2021 camunda services GmbH (info@camunda.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.camunda.zeebe.process.test.api;
+
+/** A subscription to the records of a {@link RecordStreamSource}. */
+public interface RecordSubscription extends AutoCloseable {
+
+  /**
+   * Cancels the subscription. The listener is not called anymore after this method returned,
+   * unless it is called from within the listener.
+   */
+  @Override
+  void close();
+}
@@ -45,6 +45,7 @@ public final class EngineControlImpl extends EngineControlImplBase {
       final StartEngineRequest request,
       final StreamObserver<StartEngineResponse> responseObserver) {
     engine.start();
+    recordStreamSource.close();
     recordStreamSource = new RecordStreamSourceWrapper(engine.getRecordStreamSource());
 
     final StartEngineResponse response = StartEngineResponse.newBuilder().build();
@@ -67,7 +68,9 @@ public final class EngineControlImpl extends EngineControlImplBase {
       final ResetEngineRequest request,
       final StreamObserver<ResetEngineResponse> responseObserver) {
     engine.stop();
+    recordStreamSource.close();
     engine = EngineFactory.create(AgentProperties.getGatewayPort());
+    recordStreamSource = new RecordStreamSourceWrapper(engine.getRecordStreamSource());
 
     final ResetEngineResponse response = ResetEngineResponse.newBuilder().build();
     responseObserver.onNext(response);
@@ -133,7 +136,8 @@ public final class EngineControlImpl extends EngineControlImplBase {
   @Override
   public void getRecords(
       final GetRecordsRequest request, final StreamObserver<RecordResponse> responseObserver) {
-    final List<String> mappedRecords = recordStreamSource.getMappedRecords();
+    final List<String> mappedRecords =
+        recordStreamSource.getMappedRecords(request.getFromPosition());
 
     mappedRecords.forEach(
         record ->
@@ -8,32 +8,51 @@
 package io.camunda.zeebe.process.test.engine.agent;
 
 import io.camunda.zeebe.process.test.api.RecordStreamSource;
+import io.camunda.zeebe.process.test.api.RecordSubscription;
+import io.camunda.zeebe.protocol.record.Record;
 import java.util.ArrayList;
-import java.util.Collections;
 import java.util.List;
-import java.util.stream.StreamSupport;
 
-public class RecordStreamSourceWrapper {
+/**
+ * Keeps the records of a {@link RecordStreamSource} as JSON. The source pushes its records through
+ * a subscription, so that every record is mapped only once, when it is published.
+ */
+public class RecordStreamSourceWrapper implements AutoCloseable {
 
-  private final List<String> mappedRecords = new ArrayList<>();
-  private final RecordStreamSource recordStreamSource;
-  private volatile long lastEventPosition = -1L;
+  private final List<MappedRecord> mappedRecords = new ArrayList<>();
+  private final RecordSubscription subscription;
 
   public RecordStreamSourceWrapper(final RecordStreamSource recordStreamSource) {
-    this.recordStreamSource = recordStreamSource;
+    subscription = recordStreamSource.subscribe(-1, this::onRecord);
   }
 
-  public List<String> getMappedRecords() {
+  /**
+   * @param fromPosition the position of the first record to return
+   * @return the JSON of the records from the given position on, in order
+   */
+  public List<String> getMappedRecords(final long fromPosition) {
     synchronized (mappedRecords) {
-      StreamSupport.stream(recordStreamSource.getRecords().spliterator(), false)
-          .filter(record -> record.getPosition() > lastEventPosition)
-          .forEach(
-              record -> {
-                mappedRecords.add(record.toJson());
-                lastEventPosition = record.getPosition();
-              });
+      int fromIndex = mappedRecords.size();
+      while (fromIndex > 0 && mappedRecords.get(fromIndex - 1).position() >= fromPosition) {
+        fromIndex--;
+      }
+      return mappedRecords.subList(fromIndex, mappedRecords.size()).stream()
+          .map(MappedRecord::json)
+          .toList();
     }
+  }
 
-    return Collections.unmodifiableList(mappedRecords);
+  @Override
+  public void close() {
+    subscription.close();
   }
+
+  private void onRecord(final Record<?> record) {
+    final MappedRecord mappedRecord = new MappedRecord(record.getPosition(), record.toJson());
+    synchronized (mappedRecords) {
+      mappedRecords.add(mappedRecord);
+    }
+  }
+
+  private record MappedRecord(long position, String json) {}
 }
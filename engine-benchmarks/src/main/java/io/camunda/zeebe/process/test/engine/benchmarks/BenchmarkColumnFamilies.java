@@ -0,0 +1,27 @@
+/*
+ * Copyright Camunda Services GmbH and/or licensed to Camunda Services GmbH under
+ * one or more contributor license agreements. See the NOTICE file distributed
+ * with this work for additional information regarding copyright ownership.
+ * Licensed under the Zeebe Community License 1.1. You may not use this file
+ * except in compliance with the Zeebe Community License 1.1.
+ */
+package io.camunda.zeebe.process.test.engine.benchmarks;
+
+import io.camunda.zeebe.protocol.EnumValue;
+
+enum BenchmarkColumnFamilies implements EnumValue {
+  DEFAULT(0), // rocksDB needs a default column family
+  KEYS(1),
+  COMPOSITE_KEYS(2);
+
+  private final int value;
+
+  BenchmarkColumnFamilies(final int value) {
+    this.value = value;
+  }
+
+  @Override
+  public int getValue() {
+    return value;
+  }
+}
@@ -0,0 +1,176 @@
+/*
+ * Copyright Camunda Services GmbH and/or licensed to Camunda Services GmbH under
+ * one or more contributor license agreements. See the NOTICE file distributed
+ * with this work for additional information regarding copyright ownership.
+ * Licensed under the Zeebe Community License 1.1. You may not use this file
+ * except in compliance with the Zeebe Community License 1.1.
+ */
+package io.camunda.zeebe.process.test.engine.benchmarks;
+
+import io.camunda.zeebe.db.ColumnFamily;
+import io.camunda.zeebe.db.TransactionContext;
+import io.camunda.zeebe.db.ZeebeDb;
+import io.camunda.zeebe.db.ZeebeDbTransaction;
+import io.camunda.zeebe.db.impl.DbCompositeKey;
+import io.camunda.zeebe.db.impl.DbLong;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Measures the operations of a single column family, for every {@link DatabaseType} and state
+ * size. Before each trial, the column families are filled with {@link #keyCount} keys.
+ *
+ * <p>Run a subset with e.g. {@code java -jar benchmarks.jar ColumnFamilyBenchmark.get -p
+ * keyCount=1000}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ColumnFamilyBenchmark {
+
+  private static final int ENTRIES_PER_PREFIX = 10;
+  private static final int KEYS_PER_TRANSACTION = 10;
+  private static final int KEYS_PER_SETUP_TRANSACTION = 10_000;
+
+  @Param({"IN_MEMORY", "OFF_HEAP", "VERSIONED", "TIERED", "ROCKS_DB"})
+  private DatabaseType databaseType;
+
+  @Param({"1000", "100000", "1000000"})
+  private int keyCount;
+
+  private final SplittableRandom random = new SplittableRandom(42);
+  private ZeebeDb<BenchmarkColumnFamilies> zeebeDb;
+  private TransactionContext context;
+
+  private DbLong key;
+  private DbLong value;
+  private ColumnFamily<DbLong, DbLong> columnFamily;
+
+  private DbLong prefix;
+  private DbLong suffix;
+  private DbCompositeKey<DbLong, DbLong> compositeKey;
+  private ColumnFamily<DbCompositeKey<DbLong, DbLong>, DbLong> compositeColumnFamily;
+
+  @Setup(Level.Trial)
+  public void setup() {
+    zeebeDb = databaseType.<BenchmarkColumnFamilies>createFactory().createDb(null);
+    context = zeebeDb.createContext();
+
+    key = new DbLong();
+    value = new DbLong();
+    columnFamily = zeebeDb.createColumnFamily(BenchmarkColumnFamilies.KEYS, context, key, value);
+
+    prefix = new DbLong();
+    suffix = new DbLong();
+    compositeKey = new DbCompositeKey<>(prefix, suffix);
+    compositeColumnFamily =
+        zeebeDb.createColumnFamily(
+            BenchmarkColumnFamilies.COMPOSITE_KEYS, context, compositeKey, value);
+
+    for (int start = 0; start < keyCount; start += KEYS_PER_SETUP_TRANSACTION) {
+      final int from = start;
+      final int to = Math.min(keyCount, start + KEYS_PER_SETUP_TRANSACTION);
+      context.runInTransaction(
+          () -> {
+            for (int i = from; i < to; i++) {
+              key.wrapLong(i);
+              value.wrapLong(i);
+              columnFamily.insert(key, value);
+
+              prefix.wrapLong(i / ENTRIES_PER_PREFIX);
+              suffix.wrapLong(i % ENTRIES_PER_PREFIX);
+              compositeColumnFamily.insert(compositeKey, value);
+            }
+          });
+    }
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() throws Exception {
+    zeebeDb.close();
+  }
+
+  @Benchmark
+  public DbLong get() {
+    key.wrapLong(nextKey());
+    return columnFamily.get(key);
+  }
+
+  @Benchmark
+  public boolean exists() {
+    key.wrapLong(nextKey());
+    return columnFamily.exists(key);
+  }
+
+  @Benchmark
+  public void upsert() {
+    key.wrapLong(nextKey());
+    value.wrapLong(random.nextLong());
+    columnFamily.upsert(key, value);
+  }
+
+  @Benchmark
+  public void insertAndDelete() {
+    key.wrapLong(keyCount + nextKey());
+    value.wrapLong(random.nextLong());
+    columnFamily.insert(key, value);
+    columnFamily.deleteExisting(key);
+  }
+
+  @Benchmark
+  public void prefixIteration(final Blackhole blackhole) {
+    prefix.wrapLong(nextKey() / ENTRIES_PER_PREFIX);
+    compositeColumnFamily.whileEqualPrefix(prefix, (k, v) -> blackhole.consume(v.getValue()));
+  }
+
+  @Benchmark
+  public long count() {
+    return columnFamily.count();
+  }
+
+  @Benchmark
+  public boolean isEmpty() {
+    return columnFamily.isEmpty();
+  }
+
+  @Benchmark
+  public void commit() {
+    context.runInTransaction(this::upsertInTransaction);
+  }
+
+  @Benchmark
+  public void rollback() throws Exception {
+    final ZeebeDbTransaction transaction = context.getCurrentTransaction();
+    upsertInTransaction();
+    transaction.rollback();
+  }
+
+  private void upsertInTransaction() {
+    for (int i = 0; i < KEYS_PER_TRANSACTION; i++) {
+      key.wrapLong(nextKey());
+      value.wrapLong(random.nextLong());
+      columnFamily.upsert(key, value);
+    }
+  }
+
+  private int nextKey() {
+    return random.nextInt(keyCount);
+  }
+}
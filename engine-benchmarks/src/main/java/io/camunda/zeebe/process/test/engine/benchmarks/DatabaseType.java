@@ -0,0 +1,59 @@
+/*
+ * Copyright Camunda Services GmbH and/or licensed to Camunda Services GmbH under
+ * one or more contributor license agreements. See the NOTICE file distributed
+ * with this work for additional information regarding copyright ownership.
+ * Licensed under the Zeebe Community License 1.1. You may not use this file
+ * except in compliance with the Zeebe Community License 1.1.
+ */
+package io.camunda.zeebe.process.test.engine.benchmarks;
+
+import io.camunda.zeebe.db.ZeebeDbFactory;
+import io.camunda.zeebe.process.test.engine.db.InMemoryDbFactory;
+import io.camunda.zeebe.process.test.engine.db.OffHeapInMemoryDbFactory;
+import io.camunda.zeebe.process.test.engine.db.TemporaryRocksDbFactory;
+import io.camunda.zeebe.process.test.engine.db.TieredInMemoryDbFactory;
+import io.camunda.zeebe.process.test.engine.db.VersionedInMemoryDbFactory;
+import io.camunda.zeebe.protocol.EnumValue;
+
+/** The databases which are compared by the benchmarks */
+public enum DatabaseType {
+  IN_MEMORY {
+    @Override
+    <ColumnFamilyType extends Enum<? extends EnumValue> & EnumValue>
+        ZeebeDbFactory<ColumnFamilyType> createFactory() {
+      return new InMemoryDbFactory<>();
+    }
+  },
+  OFF_HEAP {
+    @Override
+    <ColumnFamilyType extends Enum<? extends EnumValue> & EnumValue>
+        ZeebeDbFactory<ColumnFamilyType> createFactory() {
+      return new OffHeapInMemoryDbFactory<>();
+    }
+  },
+  VERSIONED {
+    @Override
+    <ColumnFamilyType extends Enum<? extends EnumValue> & EnumValue>
+        ZeebeDbFactory<ColumnFamilyType> createFactory() {
+      return new VersionedInMemoryDbFactory<>();
+    }
+  },
+  TIERED {
+    @Override
+    <ColumnFamilyType extends Enum<? extends EnumValue> & EnumValue>
+        ZeebeDbFactory<ColumnFamilyType> createFactory() {
+      // a small budget, so that the larger states are mostly spilled
+      return new TieredInMemoryDbFactory<>(16L * 1024 * 1024, null);
+    }
+  },
+  ROCKS_DB {
+    @Override
+    <ColumnFamilyType extends Enum<? extends EnumValue> & EnumValue>
+        ZeebeDbFactory<ColumnFamilyType> createFactory() {
+      return new TemporaryRocksDbFactory<>();
+    }
+  };
+
+  abstract <ColumnFamilyType extends Enum<? extends EnumValue> & EnumValue>
+      ZeebeDbFactory<ColumnFamilyType> createFactory();
+}
@@ -0,0 +1,119 @@
+/*
+ * Copyright Camunda Services GmbH and/or licensed to Camunda Services GmbH under
+ * one or more contributor license agreements. See the NOTICE file distributed
+ * with this work for additional information regarding copyright ownership.
+ * Licensed under the Zeebe Community License 1.1. You may not use this file
+ * except in compliance with the Zeebe Community License 1.1.
+ */
+package io.camunda.zeebe.process.test.engine.benchmarks;
+
+import io.camunda.client.CamundaClient;
+import io.camunda.client.api.CamundaFuture;
+import io.camunda.client.api.response.ProcessInstanceEvent;
+import io.camunda.zeebe.model.bpmn.Bpmn;
+import io.camunda.zeebe.model.bpmn.BpmnModelInstance;
+import io.camunda.zeebe.process.test.api.ZeebeTestEngine;
+import io.camunda.zeebe.process.test.engine.EngineFactory;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the engine with a growing state. Before each trial, {@link #waitingInstances} process
+ * instances are created, which wait for a message, so that the state contains as many message
+ * subscriptions. Each invocation creates another instance and correlates a message to it.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class EngineStateBenchmark {
+
+  private static final String PROCESS_ID = "benchmark";
+  private static final String MESSAGE_NAME = "message";
+  private static final int SETUP_BATCH_SIZE = 1_000;
+  private static final Duration SETUP_TIMEOUT = Duration.ofMinutes(10);
+  private static final Duration TIMEOUT = Duration.ofSeconds(30);
+
+  @Param({"IN_MEMORY", "ROCKS_DB"})
+  private DatabaseType databaseType;
+
+  @Param({"1000", "10000", "100000"})
+  private int waitingInstances;
+
+  private ZeebeTestEngine engine;
+  private CamundaClient client;
+  private long correlatedInstances;
+
+  @Setup(Level.Trial)
+  public void setup() throws Exception {
+    engine = EngineFactory.create(databaseType.createFactory());
+    engine.start();
+    client = engine.createClient();
+
+    final BpmnModelInstance process =
+        Bpmn.createExecutableProcess(PROCESS_ID)
+            .startEvent()
+            .intermediateCatchEvent()
+            .message(message -> message.name(MESSAGE_NAME).zeebeCorrelationKeyExpression("key"))
+            .endEvent()
+            .done();
+    client.newDeployResourceCommand().addProcessModel(process, "benchmark.bpmn").send().join();
+
+    final List<CamundaFuture<ProcessInstanceEvent>> batch = new ArrayList<>(SETUP_BATCH_SIZE);
+    for (int i = 0; i < waitingInstances; i++) {
+      batch.add(createInstance("waiting-" + i));
+      if (batch.size() == SETUP_BATCH_SIZE) {
+        batch.forEach(CamundaFuture::join);
+        batch.clear();
+      }
+    }
+    batch.forEach(CamundaFuture::join);
+    engine.waitForIdleState(SETUP_TIMEOUT);
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    client.close();
+    engine.stop();
+  }
+
+  @Benchmark
+  public void createAndCorrelate() throws Exception {
+    final String correlationKey = "correlated-" + correlatedInstances++;
+    createInstance(correlationKey).join();
+    client
+        .newPublishMessageCommand()
+        .messageName(MESSAGE_NAME)
+        .correlationKey(correlationKey)
+        .send()
+        .join();
+    engine.waitForIdleState(TIMEOUT);
+  }
+
+  private CamundaFuture<ProcessInstanceEvent> createInstance(final String correlationKey) {
+    return client
+        .newCreateInstanceCommand()
+        .bpmnProcessId(PROCESS_ID)
+        .latestVersion()
+        .variables(Map.of("key", correlationKey))
+        .send();
+  }
+}
@@ -0,0 +1,86 @@
+/*
+ * Copyright Camunda Services GmbH and/or licensed to Camunda Services GmbH under
+ * one or more contributor license agreements. See the NOTICE file distributed
+ * with this work for additional information regarding copyright ownership.
+ * Licensed under the Zeebe Community License 1.1. You may not use this file
+ * except in compliance with the Zeebe Community License 1.1.
+ */
+package io.camunda.zeebe.process.test.engine;
+
+import io.camunda.zeebe.logstreams.storage.LogStorage.CommitListener;
+import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Notifies the commit listeners of a log storage on a thread of its own, so that appending a block
+ * doesn't wait for the listeners. Commits which are signalled while a notification is pending are
+ * coalesced into that notification: a listener is called at least once after every commit, but not
+ * necessarily once per commit.
+ *
+ * <p>All listeners of a notifier share its thread, a slow listener delays the others. Listeners
+ * which run user code, like the record subscriptions, therefore use a notifier of their own.
+ */
+final class CommitNotifier implements AutoCloseable {
+
+  private final AtomicBoolean isNotificationPending = new AtomicBoolean();
+  private final ExecutorService executor;
+  private volatile CommitListener[] listeners = new CommitListener[0];
+
+  CommitNotifier() {
+    this("commit-listener");
+  }
+
+  /**
+   * @param threadName the name of the thread which notifies the listeners
+   */
+  CommitNotifier(final String threadName) {
+    executor =
+        Executors.newSingleThreadExecutor(
+            runnable -> {
+              final Thread thread = new Thread(runnable, threadName);
+              thread.setDaemon(true);
+              return thread;
+            });
+  }
+
+  synchronized void addListener(final CommitListener listener) {
+    final CommitListener[] listeners = Arrays.copyOf(this.listeners, this.listeners.length + 1);
+    listeners[listeners.length - 1] = listener;
+    this.listeners = listeners;
+  }
+
+  synchronized void removeListener(final CommitListener listener) {
+    listeners =
+        Arrays.stream(listeners).filter(other -> other != listener).toArray(CommitListener[]::new);
+  }
+
+  /** Signals a commit. Returns immediately, the listeners are notified asynchronously. */
+  void signal() {
+    if (listeners.length == 0 || !isNotificationPending.compareAndSet(false, true)) {
+      return;
+    }
+
+    try {
+      executor.execute(this::notifyListeners);
+    } catch (final RejectedExecutionException e) {
+      // the log storage was closed, nobody waits for the commit anymore
+      isNotificationPending.set(false);
+    }
+  }
+
+  @Override
+  public void close() {
+    executor.shutdownNow();
+  }
+
+  private void notifyListeners() {
+    // reset before notifying, a commit during the notification schedules another one
+    isNotificationPending.set(false);
+    for (final CommitListener listener : listeners) {
+      listener.onCommit();
+    }
+  }
+}
@@ -0,0 +1,113 @@
+/*
+ * Copyright Camunda Services GmbH and/or licensed to Camunda Services GmbH under
+ * one or more contributor license agreements. See the NOTICE file distributed
+ * with this work for additional information regarding copyright ownership.
+ * Licensed under the Zeebe Community License 1.1. You may not use this file
+ * except in compliance with the Zeebe Community License 1.1.
+ */
+package io.camunda.zeebe.process.test.engine;
+
+import io.camunda.zeebe.db.ZeebeDb;
+import io.camunda.zeebe.protocol.ZbColumnFamilies;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Publishes the size of the engine state as gauges. The values are read through {@link
+ * ZeebeDb#getProperty(String)}, using the RocksDB property names, when the registry is scraped.
+ *
+ * <p>The gauges per column family are only registered if the database answers the property of a
+ * column family, e.g. {@code rocksdb.estimate-num-keys.ELEMENT_INSTANCE_KEY}. The RocksDB database
+ * only answers the properties of its default column family, so they are skipped for it. The gauges
+ * only hold a weak reference to the database and are removed from the registry when the metrics
+ * are closed, which must happen before the database is closed.
+ */
+final class DatabaseMetrics implements AutoCloseable {
+
+  private static final String NAMESPACE = "zeebe.process.test.db.";
+  private static final String COLUMN_FAMILY_TAG = "columnFamily";
+  private static final String ESTIMATE_NUM_KEYS = "rocksdb.estimate-num-keys";
+  private static final String ESTIMATE_LIVE_DATA_SIZE = "rocksdb.estimate-live-data-size";
+  private static final String CUR_SIZE_ALL_MEM_TABLES = "rocksdb.cur-size-all-mem-tables";
+
+  private final ZeebeDb<ZbColumnFamilies> database;
+  private final MeterRegistry registry;
+  private final List<Meter> meters = new ArrayList<>();
+
+  DatabaseMetrics(final ZeebeDb<ZbColumnFamilies> database, final MeterRegistry registry) {
+    this.database = database;
+    this.registry = registry;
+  }
+
+  /**
+   * Registers the gauges. Must be called once the engine created its state, as a database may only
+   * answer the properties of the column families which exist.
+   */
+  void register() {
+    if (supportsColumnFamilyProperties()) {
+      for (final ZbColumnFamilies columnFamily : ZbColumnFamilies.values()) {
+        registerColumnFamilyGauge(
+            columnFamily,
+            "keys",
+            ESTIMATE_NUM_KEYS,
+            "The estimated number of keys in the column family");
+        registerColumnFamilyGauge(
+            columnFamily,
+            "live.data.size",
+            ESTIMATE_LIVE_DATA_SIZE,
+            "The estimated bytes of the keys and values in the column family");
+      }
+    }
+
+    meters.add(
+        Gauge.builder(
+                NAMESPACE + "memory.size",
+                database,
+                db -> getProperty(db, CUR_SIZE_ALL_MEM_TABLES))
+            .description("The bytes of the state which are held in memory")
+            .baseUnit("bytes")
+            .register(registry));
+  }
+
+  @Override
+  public void close() {
+    meters.forEach(registry::remove);
+    meters.clear();
+  }
+
+  private boolean supportsColumnFamilyProperties() {
+    for (final ZbColumnFamilies columnFamily : ZbColumnFamilies.values()) {
+      final String propertyName = columnFamilyPropertyName(ESTIMATE_NUM_KEYS, columnFamily);
+      if (database.getProperty(propertyName).isPresent()) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private void registerColumnFamilyGauge(
+      final ZbColumnFamilies columnFamily,
+      final String name,
+      final String propertyName,
+      final String description) {
+    final String columnFamilyPropertyName = columnFamilyPropertyName(propertyName, columnFamily);
+    meters.add(
+        Gauge.builder(NAMESPACE + name, database, db -> getProperty(db, columnFamilyPropertyName))
+            .description(description)
+            .tag(COLUMN_FAMILY_TAG, columnFamily.name())
+            .register(registry));
+  }
+
+  private static String columnFamilyPropertyName(
+      final String propertyName, final ZbColumnFamilies columnFamily) {
+    return propertyName + "." + columnFamily.name();
+  }
+
+  private static double getProperty(
+      final ZeebeDb<ZbColumnFamilies> database, final String propertyName) {
+    return database.getProperty(propertyName).map(Double::parseDouble).orElse(Double.NaN);
+  }
+}
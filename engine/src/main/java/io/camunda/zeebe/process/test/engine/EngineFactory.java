@@ -9,6 +9,7 @@ package io.camunda.zeebe.process.test.engine;
 
 import io.camunda.security.configuration.SecurityConfiguration;
 import io.camunda.zeebe.db.ZeebeDb;
+import io.camunda.zeebe.db.ZeebeDbFactory;
 import io.camunda.zeebe.engine.Engine;
 import io.camunda.zeebe.engine.EngineConfiguration;
 import io.camunda.zeebe.engine.processing.EngineProcessors;
@@ -30,9 +31,12 @@ import io.camunda.zeebe.stream.impl.StreamProcessor;
 import io.camunda.zeebe.util.FeatureFlags;
 import io.grpc.Server;
 import io.grpc.ServerBuilder;
+import io.micrometer.core.instrument.MeterRegistry;
 import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import java.io.IOException;
 import java.net.ServerSocket;
+import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.function.Consumer;
 
@@ -60,14 +64,101 @@ public class EngineFactory {
     return create(port, null);
   }
 
+  /**
+   * Creates an engine which stores its state in a database of the given factory, e.g. a {@link
+   * io.camunda.zeebe.process.test.engine.db.OffHeapInMemoryDbFactory}, a {@link
+   * io.camunda.zeebe.process.test.engine.db.TieredInMemoryDbFactory} or a {@link
+   * io.camunda.zeebe.process.test.engine.db.TemporaryRocksDbFactory} for tests with a large state.
+   * The database is closed when the engine is stopped.
+   *
+   * @param databaseFactory the factory of the database which holds the state of the engine
+   * @return the created engine
+   */
+  public static InMemoryEngine create(final ZeebeDbFactory<ZbColumnFamilies> databaseFactory) {
+    return create(databaseFactory, new SimpleMeterRegistry());
+  }
+
+  /**
+   * Creates an engine which stores its state in a database of the given factory, and publishes its
+   * metrics to the given registry. Next to the metrics of the stream processor, these include the
+   * number of keys and bytes of every column family of the state.
+   *
+   * @param databaseFactory the factory of the database which holds the state of the engine
+   * @param meterRegistry the registry to publish the metrics of the engine to
+   * @return the created engine
+   */
+  public static InMemoryEngine create(
+      final ZeebeDbFactory<ZbColumnFamilies> databaseFactory, final MeterRegistry meterRegistry) {
+    return create(databaseFactory, meterRegistry, LogRetentionPolicy.keepAll());
+  }
+
+  /**
+   * Creates an engine which stores its state in a database of the given factory, publishes its
+   * metrics to the given registry and drops records which are not retained by the given policy.
+   * Combined with a {@link io.camunda.zeebe.process.test.engine.db.TieredInMemoryDbFactory}, this
+   * keeps the memory of long running tests flat.
+   *
+   * @param databaseFactory the factory of the database which holds the state of the engine
+   * @param meterRegistry the registry to publish the metrics of the engine to
+   * @param retentionPolicy decides which records of the log are retained
+   * @return the created engine
+   */
+  public static InMemoryEngine create(
+      final ZeebeDbFactory<ZbColumnFamilies> databaseFactory,
+      final MeterRegistry meterRegistry,
+      final LogRetentionPolicy retentionPolicy) {
+    return create(
+        findFreePort(),
+        null,
+        databaseFactory,
+        meterRegistry,
+        new InMemoryLogStorage(),
+        retentionPolicy);
+  }
+
+  /**
+   * Creates an engine which appends its log to a journal in the given directory, instead of
+   * keeping it in memory. If the directory contains the journal of a previous run, the engine
+   * replays it when it is started, and continues with the state of that run.
+   *
+   * @param journalDirectory the directory of the journal, which is created if it doesn't exist
+   * @param flushPolicy when the appended records are flushed to disk
+   * @return the created engine
+   */
+  public static InMemoryEngine create(
+      final Path journalDirectory, final JournalFlushPolicy flushPolicy) {
+    return create(
+        findFreePort(),
+        null,
+        new InMemoryDbFactory<>(),
+        new SimpleMeterRegistry(),
+        JournalLogStorage.open(journalDirectory, flushPolicy),
+        LogRetentionPolicy.keepAll());
+  }
+
   private static ZeebeTestEngine create(final int port, final Consumer<Intent> requestListener) {
+    return create(
+        port,
+        requestListener,
+        new InMemoryDbFactory<>(),
+        new SimpleMeterRegistry(),
+        new InMemoryLogStorage(),
+        LogRetentionPolicy.keepAll());
+  }
+
+  private static InMemoryEngine create(
+      final int port,
+      final Consumer<Intent> requestListener,
+      final ZeebeDbFactory<ZbColumnFamilies> databaseFactory,
+      final MeterRegistry meterRegistry,
+      final LogStorage logStorage,
+      final LogRetentionPolicy retentionPolicy) {
     final int partitionId = 1;
     final int partitionCount = 1;
 
     final ControlledActorClock clock = createActorClock();
     final ActorScheduler scheduler = createAndStartActorScheduler(clock);
 
-    final InMemoryLogStorage logStorage = new InMemoryLogStorage();
     final LogStream logStream = createLogStream(logStorage, partitionId, clock);
 
     final CommandWriter commandWriter = new CommandWriter(logStream.newLogStreamWriter());
@@ -82,7 +173,7 @@ public class EngineFactory {
     final GrpcResponseWriter grpcResponseWriter =
         new GrpcResponseWriter(gateway, gatewayRequestStore, requestListener);
 
-    final ZeebeDb<ZbColumnFamilies> zeebeDb = createDatabase();
+    final ZeebeDb<ZbColumnFamilies> zeebeDb = createDatabase(databaseFactory);
 
     final StreamProcessor streamProcessor =
         createStreamProcessor(
@@ -93,13 +184,30 @@ public class EngineFactory {
             partitionCount,
             commandSender,
             jobStreamer,
-            clock);
+            clock,
+            meterRegistry);
 
     final EngineStateMonitor engineStateMonitor =
         new EngineStateMonitor(logStorage, streamProcessor);
 
     final LogStreamReader reader = logStream.newLogStreamReader();
-    final RecordStreamSourceImpl recordStream = new RecordStreamSourceImpl(reader, partitionId);
+    final RecordStreamSourceImpl recordStream =
+        new RecordStreamSourceImpl(reader, logStream.newLogStreamReader(), partitionId);
+    logStorage.addCommitListener(recordStream);
+
+    final List<AutoCloseable> resources = new ArrayList<>();
+    resources.add(recordStream);
+    if (logStorage instanceof final AutoCloseable closeableLogStorage) {
+      resources.add(closeableLogStorage);
+    }
+    if (!retentionPolicy.isKeepAll()
+        && logStorage instanceof final InMemoryLogStorage inMemoryLogStorage) {
+      final LogRetention retention =
+          new LogRetention(retentionPolicy, inMemoryLogStorage, streamProcessor, recordStream);
+      retention.start();
+      // stop the retention before the log storage is closed
+      resources.add(0, retention);
+    }
 
     return new InMemoryEngine(
         grpcServer,
@@ -110,7 +218,9 @@ public class EngineFactory {
         scheduler,
         recordStream,
         clock,
-        engineStateMonitor);
+        engineStateMonitor,
+        resources,
+        new DatabaseMetrics(zeebeDb, meterRegistry));
   }
 
   private static ControlledActorClock createActorClock() {
@@ -133,9 +243,9 @@ public class EngineFactory {
         .build();
   }
 
-  private static ZeebeDb<ZbColumnFamilies> createDatabase() {
-    final InMemoryDbFactory<ZbColumnFamilies> factory = new InMemoryDbFactory<>();
-    return factory.createDb();
+  private static ZeebeDb<ZbColumnFamilies> createDatabase(
+      final ZeebeDbFactory<ZbColumnFamilies> factory) {
+    return factory.createDb(null);
   }
 
   private static StreamProcessor createStreamProcessor(
@@ -146,7 +256,8 @@ public class EngineFactory {
       final int partitionCount,
       final CommandSender commandSender,
       final JobStreamer jobStreamer,
-      final ActorClock clock) {
+      final ActorClock clock,
+      final MeterRegistry meterRegistry) {
     return StreamProcessor.builder()
         .logStream(logStream)
         .zeebeDb(database)
@@ -167,7 +278,7 @@ public class EngineFactory {
                     new SecurityConfiguration())))
         .actorSchedulingService(scheduler)
         .clock(new ControllableStreamClockImpl(clock))
-        .meterRegistry(new SimpleMeterRegistry())
+        .meterRegistry(meterRegistry)
         .build();
   }
 }
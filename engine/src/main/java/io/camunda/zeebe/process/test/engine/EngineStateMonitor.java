@@ -20,8 +20,8 @@ import org.slf4j.LoggerFactory;
  * Monitor that monitors whether the engine is busy or in idle state. Busy state is a state in which
  * the engine is actively writing new events to the logstream. Idle state is a state in which the
  * process engine makes no progress and is waiting for new commands or events to trigger<br>
- * The busy state callbacks are notified immediately as soon as a new commit is registered in the
- * log storage.<br>
+ * The busy state callbacks are notified as soon as the log storage notifies about a new commit, on
+ * the thread of its commit notifier.<br>
  * The idle state callbacks are notified when the idle state has lasted <code>
  * PERIOD * NOTIFICATION_THRESHOLD</code> ms<br>
  */
@@ -37,7 +37,7 @@ final class EngineStateMonitor implements LogStorage.CommitListener {
   private final StreamProcessor streamProcessor;
   private volatile TimerTask stateNotifier;
 
-  EngineStateMonitor(final InMemoryLogStorage logStorage, final StreamProcessor streamProcessor) {
+  EngineStateMonitor(final LogStorage logStorage, final StreamProcessor streamProcessor) {
     logStorage.addCommitListener(this);
 
     this.streamProcessor = streamProcessor;
@@ -10,10 +10,12 @@ package io.camunda.zeebe.process.test.engine;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import io.camunda.client.CamundaClient;
 import io.camunda.client.impl.CamundaObjectMapper;
+import io.camunda.zeebe.db.TransactionContext;
 import io.camunda.zeebe.db.ZeebeDb;
 import io.camunda.zeebe.logstreams.log.LogStream;
 import io.camunda.zeebe.process.test.api.RecordStreamSource;
 import io.camunda.zeebe.process.test.api.ZeebeTestEngine;
+import io.camunda.zeebe.process.test.engine.db.VersionedZeebeDb;
 import io.camunda.zeebe.protocol.ZbColumnFamilies;
 import io.camunda.zeebe.scheduler.ActorScheduler;
 import io.camunda.zeebe.scheduler.clock.ControlledActorClock;
@@ -21,10 +23,12 @@ import io.camunda.zeebe.stream.impl.StreamProcessor;
 import io.grpc.Server;
 import java.io.IOException;
 import java.time.Duration;
+import java.util.List;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
+import java.util.function.BiFunction;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -41,6 +45,8 @@ public class InMemoryEngine implements ZeebeTestEngine {
   private final RecordStreamSource recordStream;
   private final ControlledActorClock clock;
   private final EngineStateMonitor engineStateMonitor;
+  private final List<AutoCloseable> resources;
+  private final DatabaseMetrics databaseMetrics;
 
   public InMemoryEngine(
       final Server grpcServer,
@@ -52,6 +58,64 @@ public class InMemoryEngine implements ZeebeTestEngine {
       final RecordStreamSource recordStream,
       final ControlledActorClock clock,
       final EngineStateMonitor engineStateMonitor) {
+    this(
+        grpcServer,
+        streamProcessor,
+        gateway,
+        database,
+        logStream,
+        scheduler,
+        recordStream,
+        clock,
+        engineStateMonitor,
+        List.of());
+  }
+
+  /**
+   * @param resources further resources of the engine, e.g. its log storage, which are closed in
+   *     the given order when the engine is stopped
+   */
+  public InMemoryEngine(
+      final Server grpcServer,
+      final StreamProcessor streamProcessor,
+      final GrpcToLogStreamGateway gateway,
+      final ZeebeDb<ZbColumnFamilies> database,
+      final LogStream logStream,
+      final ActorScheduler scheduler,
+      final RecordStreamSource recordStream,
+      final ControlledActorClock clock,
+      final EngineStateMonitor engineStateMonitor,
+      final List<AutoCloseable> resources) {
+    this(
+        grpcServer,
+        streamProcessor,
+        gateway,
+        database,
+        logStream,
+        scheduler,
+        recordStream,
+        clock,
+        engineStateMonitor,
+        resources,
+        null);
+  }
+
+  /**
+   * @param databaseMetrics the metrics of the database, which are registered when the engine is
+   *     started and removed before the database is closed; may be {@code null}
+   */
+  InMemoryEngine(
+      final Server grpcServer,
+      final StreamProcessor streamProcessor,
+      final GrpcToLogStreamGateway gateway,
+      final ZeebeDb<ZbColumnFamilies> database,
+      final LogStream logStream,
+      final ActorScheduler scheduler,
+      final RecordStreamSource recordStream,
+      final ControlledActorClock clock,
+      final EngineStateMonitor engineStateMonitor,
+      final List<AutoCloseable> resources,
+      final DatabaseMetrics databaseMetrics) {
     this.grpcServer = grpcServer;
     this.streamProcessor = streamProcessor;
     this.gateway = gateway;
@@ -61,6 +125,8 @@ public class InMemoryEngine implements ZeebeTestEngine {
     this.recordStream = recordStream;
     this.clock = clock;
     this.engineStateMonitor = engineStateMonitor;
+    this.resources = resources;
+    this.databaseMetrics = databaseMetrics;
   }
 
   @Override
@@ -68,6 +134,10 @@ public class InMemoryEngine implements ZeebeTestEngine {
     try {
       grpcServer.start();
       streamProcessor.openAsync(false).join();
+      if (databaseMetrics != null) {
+        // the state of the engine exists once the stream processor is opened
+        databaseMetrics.register();
+      }
     } catch (final IOException e) {
       LOG.error("Failed starting in memory engine", e);
       throw new RuntimeException(e);
@@ -80,9 +150,15 @@ public class InMemoryEngine implements ZeebeTestEngine {
       grpcServer.shutdownNow();
       grpcServer.awaitTermination();
       streamProcessor.close();
+      if (databaseMetrics != null) {
+        databaseMetrics.close();
+      }
       database.close();
       logStream.close();
       scheduler.stop();
+      for (final AutoCloseable resource : resources) {
+        resource.close();
+      }
     } catch (final Exception e) {
       LOG.error("Failed stopping in memory engine", e);
       throw new RuntimeException(e);
@@ -94,6 +170,27 @@ public class InMemoryEngine implements ZeebeTestEngine {
     return recordStream;
   }
 
+  /**
+   * Reads the state of the engine as of its last commit. The state can be read on any thread while
+   * the engine keeps processing, later commits are not visible to the reader. Requires an engine
+   * whose database publishes versions of its state, e.g. one created with a {@link
+   * io.camunda.zeebe.process.test.engine.db.VersionedInMemoryDbFactory}.
+   *
+   * @param reader creates the column families to read from the given database and read context;
+   *     they must not be used after the reader returned
+   * @return the result of the reader
+   * @throws IllegalStateException if the database of the engine doesn't publish versions
+   */
+  public <T> T readState(
+      final BiFunction<ZeebeDb<ZbColumnFamilies>, TransactionContext, T> reader) {
+    if (!(database instanceof final VersionedZeebeDb<ZbColumnFamilies> versionedDatabase)) {
+      throw new IllegalStateException(
+          "Expected a database which publishes versions of its state, but got "
+              + database.getClass().getSimpleName());
+    }
+    return reader.apply(versionedDatabase, versionedDatabase.createReadContext());
+  }
+
   @Override
   public CamundaClient createClient() {
     return CamundaClient.newClientBuilder()
@@ -11,27 +11,58 @@ import io.camunda.zeebe.logstreams.storage.LogStorage;
 import io.camunda.zeebe.logstreams.storage.LogStorageReader;
 import io.camunda.zeebe.util.buffer.BufferWriter;
 import java.nio.ByteBuffer;
-import java.util.ArrayList;
-import java.util.HashSet;
-import java.util.List;
-import java.util.Map.Entry;
+import java.util.Arrays;
 import java.util.NoSuchElementException;
-import java.util.Optional;
 import java.util.Set;
-import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ConcurrentHashMap;
 import org.agrona.DirectBuffer;
 import org.agrona.concurrent.UnsafeBuffer;
 
-class InMemoryLogStorage implements LogStorage {
+/**
+ * Log storage which keeps the appended blocks in off heap segments. A block is written into the
+ * current segment, without copying it into an intermediate buffer first. Segments start small and
+ * double in size up to {@link #MAX_SEGMENT_SIZE}, so that short tests don't reserve much memory; a
+ * block which is larger than that gets a segment of its own.
+ *
+ * <p>The blocks are indexed by primitive arrays holding the lowest position, the segment and the
+ * offset of every block, in append order. As positions are increasing, a reader seeks by binary
+ * search over the lowest positions. The buffer returned by a reader is a view of the segment,
+ * which is only valid until the next call of {@link LogStorageReader#next()}.
+ *
+ * <p>Blocks are appended by a single writer and read by any number of threads without locking.
+ * The writer fills the slots of a block in the index before it publishes the block by increasing
+ * the volatile {@link #tail}. Whenever the arrays of the index are replaced, a new {@link
+ * BlockIndex} is published before the tail, and readers read the tail before the index. Thereby a
+ * reader always finds every block below the tail it has read.
+ *
+ * <p>Commit listeners are notified by a {@link CommitNotifier}, off the thread of the writer.
+ *
+ * <p>Leading segments can be dropped by {@link #compact(long)}. Blocks are numbered by the order in
+ * which they were appended, including dropped blocks, so that readers keep their place.
+ */
+class InMemoryLogStorage implements LogStorage, AutoCloseable {
+
+  private static final int MIN_SEGMENT_SIZE = 64 * 1024;
+  private static final int MAX_SEGMENT_SIZE = 16 * 1024 * 1024;
+  private static final int MIN_INDEX_CAPACITY = 64;
+
+  private volatile BlockIndex index = new BlockIndex(0, new UnsafeBuffer[8], MIN_INDEX_CAPACITY);
+  private volatile long tail;
+
+  // only accessed by the writer
+  private int blockCount;
+  private int segmentCount;
+  private int segmentLength;
 
-  private final ConcurrentSkipListMap<Long, Integer> positionIndexMapping =
-      new ConcurrentSkipListMap<>();
-  private final List<ByteBuffer> logEntries = new ArrayList<>();
-  private final Set<CommitListener> commitListeners = new HashSet<>();
+  private volatile long retainFromPosition = Long.MIN_VALUE;
+  private final Set<SegmentLogStorageReader> readers = ConcurrentHashMap.newKeySet();
+  private final CommitNotifier commitNotifier = new CommitNotifier();
 
   @Override
   public LogStorageReader newReader() {
-    return new ListLogStorageReader();
+    final SegmentLogStorageReader reader = new SegmentLogStorageReader();
+    readers.add(reader);
+    return reader;
   }
 
   @Override
@@ -40,9 +71,10 @@ class InMemoryLogStorage implements LogStorage {
       final long highestPosition,
       final BufferWriter bufferWriter,
       final AppendListener listener) {
-    final var buffer = ByteBuffer.allocate(bufferWriter.getLength());
-    bufferWriter.write(new UnsafeBuffer(buffer), 0);
-    append(lowestPosition, highestPosition, buffer, listener);
+    final int length = bufferWriter.getLength();
+    final UnsafeBuffer segment = reserve(length);
+    bufferWriter.write(segment, segmentLength);
+    append(lowestPosition, highestPosition, length, listener);
   }
 
   @Override
@@ -51,54 +83,322 @@ class InMemoryLogStorage implements LogStorage {
       final long highestPosition,
       final ByteBuffer blockBuffer,
       final AppendListener listener) {
-    logEntries.add(blockBuffer);
-    final int index = logEntries.size();
-    positionIndexMapping.put(lowestPosition, index);
-    listener.onWrite(index, highestPosition);
-
-    listener.onCommit(index, highestPosition);
-    commitListeners.forEach(CommitListener::onCommit);
+    final int length = blockBuffer.remaining();
+    final UnsafeBuffer segment = reserve(length);
+    segment.putBytes(segmentLength, blockBuffer, blockBuffer.position(), length);
+    append(lowestPosition, highestPosition, length, listener);
   }
 
   @Override
   public void addCommitListener(final CommitListener listener) {
-    commitListeners.add(listener);
+    commitNotifier.addListener(listener);
   }
 
   @Override
   public void removeCommitListener(final CommitListener listener) {
-    commitListeners.remove(listener);
+    commitNotifier.removeListener(listener);
+  }
+
+  /** Stops notifying the commit listeners. The blocks stay readable. */
+  @Override
+  public void close() {
+    commitNotifier.close();
+  }
+
+  /**
+   * Allows dropping the blocks before the given position. They are dropped on the next append, in
+   * whole segments, and only once every reader has read them. Can be called from any thread.
+   *
+   * <p>A reader holds back the compaction from the block it returned last, or to which it was moved
+   * by a seek, until it reads further or is closed, also when it is idle. Readers which were never
+   * positioned and closed readers don't hold it back. Readers which stop reading for good must
+   * therefore be closed, or moved to the end of the log.
+   *
+   * @param position the lowest position to retain
+   */
+  void compact(final long position) {
+    retainFromPosition = position;
+  }
+
+  /**
+   * @return the highest position of the log, or {@code -1} if it is empty
+   */
+  long lastPosition() {
+    final long tail = this.tail;
+    final BlockIndex index = this.index;
+    final int count = index.count(tail);
+    return count > 0 ? index.highestPositions[count - 1] : -1;
+  }
+
+  /**
+   * @param bytes the number of bytes at the end of the log
+   * @return the lowest position of the oldest block which is within the given number of bytes
+   */
+  long firstPositionOfLastBytes(final long bytes) {
+    final long tail = this.tail;
+    final BlockIndex index = this.index;
+    final int count = index.count(tail);
+    long remainingBytes = bytes;
+    int block = count;
+    while (block > 0 && remainingBytes >= index.blockLengths[block - 1]) {
+      remainingBytes -= index.blockLengths[block - 1];
+      block--;
+    }
+    return block < count
+        ? index.lowestPositions[block]
+        : (count > 0 ? index.highestPositions[count - 1] : -1) + 1;
+  }
+
+  /** Indexes and publishes the block which was written at the end of the current segment. */
+  private void append(
+      final long lowestPosition,
+      final long highestPosition,
+      final int length,
+      final AppendListener listener) {
+    BlockIndex index = this.index;
+    if (blockCount == index.lowestPositions.length) {
+      index = index.resize(blockCount * 2);
+      this.index = index;
+    }
+
+    index.lowestPositions[blockCount] = lowestPosition;
+    index.highestPositions[blockCount] = highestPosition;
+    index.blockSegments[blockCount] = segmentCount - 1;
+    index.blockOffsets[blockCount] = segmentLength;
+    index.blockLengths[blockCount] = length;
+    blockCount++;
+    segmentLength += length;
+
+    final long blockNumber = index.firstBlock + blockCount;
+    tail = blockNumber;
+
+    listener.onWrite(blockNumber, highestPosition);
+
+    listener.onCommit(blockNumber, highestPosition);
+    commitNotifier.signal();
   }
 
-  private class ListLogStorageReader implements LogStorageReader {
+  /**
+   * @return the current segment, which has space for a block of the given length at {@link
+   *     #segmentLength}
+   */
+  private UnsafeBuffer reserve(final int length) {
+    final UnsafeBuffer[] segments = index.segments;
+    if (segmentCount > 0 && segmentLength + length <= segments[segmentCount - 1].capacity()) {
+      return segments[segmentCount - 1];
+    }
+
+    dropSegmentsBeforeRetainedPosition();
 
-    private int currentIndex = 0;
+    final int lastSegmentSize =
+        segmentCount > 0 ? index.segments[segmentCount - 1].capacity() : MIN_SEGMENT_SIZE / 2;
+    final int segmentSize = Math.max(Math.min(lastSegmentSize * 2, MAX_SEGMENT_SIZE), length);
+    if (segmentCount == index.segments.length) {
+      index = index.withSegments(Arrays.copyOf(index.segments, segmentCount * 2));
+    }
+    final UnsafeBuffer segment = new UnsafeBuffer(ByteBuffer.allocateDirect(segmentSize));
+    index.segments[segmentCount++] = segment;
+    segmentLength = 0;
+    return segment;
+  }
+
+  /**
+   * Drops the leading segments whose blocks are all before the retained position and were read by
+   * every reader. Called before a new segment is started, the current segment is never dropped.
+   */
+  private void dropSegmentsBeforeRetainedPosition() {
+    final BlockIndex index = this.index;
+    final long retainFromPosition = this.retainFromPosition;
+    int retainedBlock = 0;
+    while (retainedBlock < blockCount
+        && index.highestPositions[retainedBlock] < retainFromPosition) {
+      retainedBlock++;
+    }
+    for (final SegmentLogStorageReader reader : readers) {
+      retainedBlock = (int) Math.min(retainedBlock, reader.retainedBlock - index.firstBlock);
+    }
+    // the last block is always retained, it is part of the current segment
+    retainedBlock = Math.min(retainedBlock, blockCount - 1);
+    if (retainedBlock <= 0) {
+      return;
+    }
+
+    // only whole segments are dropped, the segment of the first retained block is kept
+    final int droppedSegments = index.blockSegments[retainedBlock];
+    int droppedBlocks = retainedBlock;
+    while (droppedBlocks > 0 && index.blockSegments[droppedBlocks - 1] == droppedSegments) {
+      droppedBlocks--;
+    }
+    if (droppedSegments == 0) {
+      return;
+    }
+
+    // the dropped segments are released by the garbage collector, after the last reader let go
+    this.index = index.drop(droppedBlocks, blockCount, droppedSegments);
+    blockCount -= droppedBlocks;
+    segmentCount -= droppedSegments;
+  }
+
+  /**
+   * The segments and the index of the blocks from {@link #firstBlock} on. The arrays are only
+   * replaced by publishing a new instance; slots beyond the published tail are written in place.
+   */
+  private static final class BlockIndex {
+
+    private final long firstBlock;
+    private final UnsafeBuffer[] segments;
+    private final long[] lowestPositions;
+    private final long[] highestPositions;
+    private final int[] blockSegments;
+    private final int[] blockOffsets;
+    private final int[] blockLengths;
+
+    private BlockIndex(final long firstBlock, final UnsafeBuffer[] segments, final int capacity) {
+      this(
+          firstBlock,
+          segments,
+          new long[capacity],
+          new long[capacity],
+          new int[capacity],
+          new int[capacity],
+          new int[capacity]);
+    }
+
+    private BlockIndex(
+        final long firstBlock,
+        final UnsafeBuffer[] segments,
+        final long[] lowestPositions,
+        final long[] highestPositions,
+        final int[] blockSegments,
+        final int[] blockOffsets,
+        final int[] blockLengths) {
+      this.firstBlock = firstBlock;
+      this.segments = segments;
+      this.lowestPositions = lowestPositions;
+      this.highestPositions = highestPositions;
+      this.blockSegments = blockSegments;
+      this.blockOffsets = blockOffsets;
+      this.blockLengths = blockLengths;
+    }
+
+    /**
+     * @return the number of blocks of this index which are below the given tail
+     */
+    private int count(final long tail) {
+      return (int) Math.max(tail - firstBlock, 0);
+    }
+
+    private BlockIndex resize(final int capacity) {
+      return new BlockIndex(
+          firstBlock,
+          segments,
+          Arrays.copyOf(lowestPositions, capacity),
+          Arrays.copyOf(highestPositions, capacity),
+          Arrays.copyOf(blockSegments, capacity),
+          Arrays.copyOf(blockOffsets, capacity),
+          Arrays.copyOf(blockLengths, capacity));
+    }
+
+    private BlockIndex withSegments(final UnsafeBuffer[] segments) {
+      return new BlockIndex(
+          firstBlock,
+          segments,
+          lowestPositions,
+          highestPositions,
+          blockSegments,
+          blockOffsets,
+          blockLengths);
+    }
+
+    private BlockIndex drop(
+        final int droppedBlocks, final int blockCount, final int droppedSegments) {
+      final int retainedBlocks = blockCount - droppedBlocks;
+      final int capacity =
+          Math.max(MIN_INDEX_CAPACITY, Integer.highestOneBit(retainedBlocks) << 1);
+      final int end = droppedBlocks + capacity;
+      final BlockIndex index =
+          new BlockIndex(
+              firstBlock + droppedBlocks,
+              Arrays.copyOfRange(segments, droppedSegments, segments.length),
+              Arrays.copyOfRange(lowestPositions, droppedBlocks, end),
+              Arrays.copyOfRange(highestPositions, droppedBlocks, end),
+              Arrays.copyOfRange(blockSegments, droppedBlocks, end),
+              Arrays.copyOfRange(blockOffsets, droppedBlocks, end),
+              Arrays.copyOfRange(blockLengths, droppedBlocks, end));
+      for (int i = 0; i < retainedBlocks; i++) {
+        index.blockSegments[i] -= droppedSegments;
+      }
+      return index;
+    }
+
+    /**
+     * @return the number of the last block whose lowest position is not higher than the given
+     *     position, i.e. the block which may contain it, or of the first block if there is none
+     */
+    private long blockContaining(final long position, final long tail) {
+      int low = 0;
+      int high = count(tail);
+      while (low < high) {
+        final int middle = (low + high) >>> 1;
+        if (lowestPositions[middle] <= position) {
+          low = middle + 1;
+        } else {
+          high = middle;
+        }
+      }
+      return firstBlock + Math.max(low - 1, 0);
+    }
+  }
+
+  private final class SegmentLogStorageReader implements LogStorageReader {
+
+    private static final long NOT_POSITIONED = Long.MAX_VALUE;
+
+    private final UnsafeBuffer block = new UnsafeBuffer(0, 0);
+    private long nextBlock = 0;
+
+    /**
+     * The number of the oldest block this reader may still access: the block which was returned
+     * last, or to which the reader was moved. Readers which were never used don't retain blocks,
+     * closed readers are forgotten by the storage.
+     */
+    private volatile long retainedBlock = NOT_POSITIONED;
 
     @Override
     public void seek(final long position) {
-      currentIndex =
-          Optional.ofNullable(positionIndexMapping.lowerEntry(position))
-              .map(Entry::getValue)
-              .map(index -> index - 1)
-              .orElse(0);
+      final long tail = InMemoryLogStorage.this.tail;
+      nextBlock = index.blockContaining(position, tail);
+      retainedBlock = nextBlock;
     }
 
     @Override
-    public void close() {}
+    public void close() {
+      readers.remove(this);
+    }
 
     @Override
     public boolean hasNext() {
-      return currentIndex >= 0 && currentIndex < logEntries.size();
+      final long tail = InMemoryLogStorage.this.tail;
+      return Math.max(nextBlock, index.firstBlock) < tail;
     }
 
     @Override
     public DirectBuffer next() {
-      if (!hasNext()) {
+      final long tail = InMemoryLogStorage.this.tail;
+      final BlockIndex index = InMemoryLogStorage.this.index;
+      final long blockNumber = Math.max(nextBlock, index.firstBlock);
+      if (blockNumber >= tail) {
         throw new NoSuchElementException();
       }
-      final int index = currentIndex;
-      currentIndex++;
-      return new UnsafeBuffer(logEntries.get(index));
+
+      final int slot = (int) (blockNumber - index.firstBlock);
+      nextBlock = blockNumber + 1;
+      retainedBlock = blockNumber;
+      block.wrap(
+          index.segments[index.blockSegments[slot]],
+          index.blockOffsets[slot],
+          index.blockLengths[slot]);
+      return block;
     }
   }
 }
@@ -0,0 +1,24 @@
+/*
+ * Copyright Camunda Services GmbH and/or licensed to Camunda Services GmbH under
+ * one or more contributor license agreements. See the NOTICE file distributed
+ * with this work for additional information regarding copyright ownership.
+ * Licensed under the Zeebe Community License 1.1. You may not use this file
+ * except in compliance with the Zeebe Community License 1.1.
+ */
+package io.camunda.zeebe.process.test.engine;
+
+/** Decides when the blocks appended to a journal are flushed to disk. */
+public enum JournalFlushPolicy {
+
+  /**
+   * Flushes every block before it is committed. A crash of the machine can't lose a committed
+   * block, but every append waits for the disk.
+   */
+  ON_EVERY_APPEND,
+
+  /**
+   * Leaves flushing to the operating system until the engine is stopped. Blocks survive a crash of
+   * the JVM, but may be lost when the machine crashes.
+   */
+  ON_CLOSE
+}
@@ -0,0 +1,472 @@
+/*
+ * Copyright Camunda Services GmbH and/or licensed to Camunda Services GmbH under
+ * one or more contributor license agreements. See the NOTICE file distributed
+ * with this work for additional information regarding copyright ownership.
+ * Licensed under the Zeebe Community License 1.1. You may not use this file
+ * except in compliance with the Zeebe Community License 1.1.
+ */
+package io.camunda.zeebe.process.test.engine;
+
+import io.camunda.zeebe.logstreams.storage.LogStorage;
+import io.camunda.zeebe.logstreams.storage.LogStorageReader;
+import io.camunda.zeebe.util.buffer.BufferWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+import org.agrona.DirectBuffer;
+import org.agrona.concurrent.UnsafeBuffer;
+
+/**
+ * Log storage which appends the blocks to a journal on disk, so that the log of a test run can be
+ * opened again after the JVM exited. An engine which is created on an existing journal replays it
+ * and ends up with the state of the recorded run.
+ *
+ * <p>The journal consists of memory mapped segment files. Every block is stored with the header
+ * {@code [length][checksum][lowest position][highest position]}, followed by the block itself. A
+ * length of zero marks the end of a segment. When the journal is opened, the blocks are validated
+ * by their checksum; a block which was only written partially, and everything after it, is
+ * discarded.
+ *
+ * <p>The position index is sparse: only every {@link #INDEX_INTERVAL}th block is indexed. A reader
+ * seeks by binary search over the index and scans the following blocks. Readers return a view of
+ * the mapped segment, which is only valid until the next call of {@link LogStorageReader#next()}.
+ *
+ * <p>Blocks are appended by a single writer and read by any number of threads without locking.
+ * After every append, the writer publishes an immutable {@link JournalView} through a volatile
+ * field. The arrays of a view are shared with the writer, which only writes slots beyond the counts
+ * of the published views, and replaces an array by a copy when it grows. A reader reads the view
+ * once per call and never sees a count without the arrays it belongs to.
+ *
+ * <p>Segments are not unmapped when the journal is closed, as readers on other threads may still
+ * access them; the mappings are released by the garbage collector.
+ */
+final class JournalLogStorage implements LogStorage, AutoCloseable {
+
+  private static final int SEGMENT_SIZE = 64 * 1024 * 1024;
+  private static final int INDEX_INTERVAL = 64;
+  private static final String SEGMENT_FILE_FORMAT = "journal-%d.log";
+  private static final Pattern SEGMENT_FILE_PATTERN = Pattern.compile("journal-(\\d+)\\.log");
+
+  private static final ByteOrder BYTE_ORDER = ByteOrder.LITTLE_ENDIAN;
+  private static final int LENGTH_OFFSET = 0;
+  private static final int CHECKSUM_OFFSET = LENGTH_OFFSET + Integer.BYTES;
+  private static final int LOWEST_POSITION_OFFSET = CHECKSUM_OFFSET + Integer.BYTES;
+  private static final int HIGHEST_POSITION_OFFSET = LOWEST_POSITION_OFFSET + Long.BYTES;
+  private static final int HEADER_LENGTH = HIGHEST_POSITION_OFFSET + Long.BYTES;
+
+  private final Path directory;
+  private final JournalFlushPolicy flushPolicy;
+  private final CRC32C checksum = new CRC32C();
+
+  private volatile JournalView view = JournalView.EMPTY;
+
+  // only accessed by the writer
+  private MappedByteBuffer[] mappedSegments = new MappedByteBuffer[0];
+  private UnsafeBuffer[] segments = new UnsafeBuffer[0];
+  private int[] segmentLengths = new int[0];
+  private int segmentCount;
+  private long blockCount;
+
+  private long[] indexedPositions = new long[64];
+  private int[] indexedSegments = new int[64];
+  private int[] indexedOffsets = new int[64];
+  private int indexSize;
+
+  private final CommitNotifier commitNotifier = new CommitNotifier();
+
+  private JournalLogStorage(final Path directory, final JournalFlushPolicy flushPolicy) {
+    this.directory = directory;
+    this.flushPolicy = flushPolicy;
+  }
+
+  /**
+   * Opens the journal in the given directory, which is created if it doesn't exist.
+   *
+   * @param directory the directory of the journal
+   * @param flushPolicy when appended blocks are flushed to disk
+   * @return the opened journal, containing all valid blocks which were appended before
+   */
+  static JournalLogStorage open(final Path directory, final JournalFlushPolicy flushPolicy) {
+    final JournalLogStorage journal = new JournalLogStorage(directory, flushPolicy);
+    try {
+      Files.createDirectories(directory);
+      journal.restoreSegments();
+    } catch (final IOException e) {
+      journal.close();
+      throw new UncheckedIOException("Failed to open journal in " + directory, e);
+    }
+    return journal;
+  }
+
+  @Override
+  public LogStorageReader newReader() {
+    return new JournalReader();
+  }
+
+  @Override
+  public void append(
+      final long lowestPosition,
+      final long highestPosition,
+      final BufferWriter bufferWriter,
+      final AppendListener listener) {
+    final int length = bufferWriter.getLength();
+    final UnsafeBuffer segment = reserve(length);
+    bufferWriter.write(segment, segmentLengths[segmentCount - 1] + HEADER_LENGTH);
+    append(lowestPosition, highestPosition, length, listener);
+  }
+
+  @Override
+  public void append(
+      final long lowestPosition,
+      final long highestPosition,
+      final ByteBuffer blockBuffer,
+      final AppendListener listener) {
+    final int length = blockBuffer.remaining();
+    final UnsafeBuffer segment = reserve(length);
+    segment.putBytes(
+        segmentLengths[segmentCount - 1] + HEADER_LENGTH,
+        blockBuffer,
+        blockBuffer.position(),
+        length);
+    append(lowestPosition, highestPosition, length, listener);
+  }
+
+  @Override
+  public void addCommitListener(final CommitListener listener) {
+    commitNotifier.addListener(listener);
+  }
+
+  @Override
+  public void removeCommitListener(final CommitListener listener) {
+    commitNotifier.removeListener(listener);
+  }
+
+  /**
+   * Flushes all segments and stops notifying the commit listeners. The journal stays on disk and
+   * can be opened again. Blocks stay readable for readers which were created before.
+   */
+  @Override
+  public void close() {
+    commitNotifier.close();
+    for (int i = 0; i < segmentCount; i++) {
+      mappedSegments[i].force();
+    }
+    mappedSegments = new MappedByteBuffer[0];
+    segments = new UnsafeBuffer[0];
+    segmentLengths = new int[0];
+    segmentCount = 0;
+  }
+
+  /** Writes the header of the block which was written behind the end of the current segment. */
+  private void append(
+      final long lowestPosition,
+      final long highestPosition,
+      final int length,
+      final AppendListener listener) {
+    final int segmentIndex = segmentCount - 1;
+    final UnsafeBuffer segment = segments[segmentIndex];
+    final int offset = segmentLengths[segmentIndex];
+
+    segment.putInt(offset + CHECKSUM_OFFSET, checksum(segmentIndex, offset, length), BYTE_ORDER);
+    segment.putLong(offset + LOWEST_POSITION_OFFSET, lowestPosition, BYTE_ORDER);
+    segment.putLong(offset + HIGHEST_POSITION_OFFSET, highestPosition, BYTE_ORDER);
+    final int nextOffset = offset + HEADER_LENGTH + length;
+    if (nextOffset + Integer.BYTES <= segment.capacity()) {
+      // overwrite a block which was discarded when the journal was opened
+      segment.putInt(nextOffset + LENGTH_OFFSET, 0, BYTE_ORDER);
+    }
+    // the length is written last, it marks the block as complete
+    segment.putInt(offset + LENGTH_OFFSET, length, BYTE_ORDER);
+
+    if (flushPolicy == JournalFlushPolicy.ON_EVERY_APPEND) {
+      mappedSegments[segmentIndex].force(offset, nextOffset - offset);
+    }
+
+    index(lowestPosition, segmentIndex, offset);
+    segmentLengths[segmentIndex] = nextOffset;
+    publish();
+
+    listener.onWrite(blockCount, highestPosition);
+
+    listener.onCommit(blockCount, highestPosition);
+    commitNotifier.signal();
+  }
+
+  /**
+   * @return the current segment, which has space for a block of the given length at its end
+   */
+  private UnsafeBuffer reserve(final int length) {
+    final int blockLength = HEADER_LENGTH + length;
+    if (segmentCount > 0) {
+      final int lastSegment = segmentCount - 1;
+      if (segmentLengths[lastSegment] + blockLength <= segments[lastSegment].capacity()) {
+        return segments[lastSegment];
+      }
+    }
+
+    final int segmentId = segmentCount + 1;
+    final Path segmentFile = directory.resolve(String.format(SEGMENT_FILE_FORMAT, segmentId));
+    try {
+      addSegment(mapSegment(segmentFile, Math.max(SEGMENT_SIZE, blockLength + Integer.BYTES)));
+    } catch (final IOException e) {
+      throw new UncheckedIOException("Failed to create journal segment " + segmentFile, e);
+    }
+    return segments[segmentCount - 1];
+  }
+
+  /** Maps the existing segments and indexes their valid blocks. */
+  private void restoreSegments() throws IOException {
+    final Path[] segmentFiles;
+    try (final Stream<Path> files = Files.list(directory)) {
+      segmentFiles =
+          files
+              .filter(file -> segmentId(file) > 0)
+              .sorted((a, b) -> Integer.compare(segmentId(a), segmentId(b)))
+              .toArray(Path[]::new);
+    }
+
+    boolean isComplete = true;
+    for (final Path segmentFile : segmentFiles) {
+      if (!isComplete || segmentId(segmentFile) != segmentCount + 1) {
+        // blocks after a discarded block, or after a missing segment, can't be replayed
+        Files.delete(segmentFile);
+        continue;
+      }
+
+      addSegment(mapSegment(segmentFile, (int) Files.size(segmentFile)));
+      isComplete = restoreBlocks(segmentCount - 1);
+    }
+    publish();
+  }
+
+  /** Makes all appended blocks visible to the readers. */
+  private void publish() {
+    view =
+        new JournalView(
+            segments,
+            segmentLengths,
+            segmentCount,
+            segmentCount > 0 ? segmentLengths[segmentCount - 1] : 0,
+            indexedPositions,
+            indexedSegments,
+            indexedOffsets,
+            indexSize);
+  }
+
+  /**
+   * @return {@code true} if all blocks of the segment are valid, {@code false} if a partially
+   *     written block was found
+   */
+  private boolean restoreBlocks(final int segmentIndex) {
+    final UnsafeBuffer segment = segments[segmentIndex];
+    int offset = 0;
+    while (offset + HEADER_LENGTH <= segment.capacity()) {
+      final int length = segment.getInt(offset + LENGTH_OFFSET, BYTE_ORDER);
+      if (length == 0) {
+        return true;
+      }
+
+      final boolean isValid =
+          length > 0
+              && offset + HEADER_LENGTH + length <= segment.capacity()
+              && segment.getInt(offset + CHECKSUM_OFFSET, BYTE_ORDER)
+                  == checksum(segmentIndex, offset, length);
+      if (!isValid) {
+        segment.putInt(offset + LENGTH_OFFSET, 0, BYTE_ORDER);
+        return false;
+      }
+
+      index(segment.getLong(offset + LOWEST_POSITION_OFFSET, BYTE_ORDER), segmentIndex, offset);
+      offset += HEADER_LENGTH + length;
+      segmentLengths[segmentIndex] = offset;
+    }
+    return true;
+  }
+
+  private int checksum(final int segmentIndex, final int offset, final int length) {
+    checksum.reset();
+    checksum.update(mappedSegments[segmentIndex].slice(offset + HEADER_LENGTH, length));
+    return (int) checksum.getValue();
+  }
+
+  /** Adds every {@link #INDEX_INTERVAL}th block to the sparse position index. */
+  private void index(final long lowestPosition, final int segmentIndex, final int offset) {
+    if (blockCount++ % INDEX_INTERVAL != 0) {
+      return;
+    }
+
+    if (indexSize == indexedPositions.length) {
+      final int capacity = indexSize * 2;
+      indexedPositions = Arrays.copyOf(indexedPositions, capacity);
+      indexedSegments = Arrays.copyOf(indexedSegments, capacity);
+      indexedOffsets = Arrays.copyOf(indexedOffsets, capacity);
+    }
+    indexedPositions[indexSize] = lowestPosition;
+    indexedSegments[indexSize] = segmentIndex;
+    indexedOffsets[indexSize] = offset;
+    indexSize++;
+  }
+
+  private void addSegment(final MappedByteBuffer mappedSegment) {
+    if (segmentCount == segments.length) {
+      final int capacity = Math.max(segmentCount * 2, 8);
+      mappedSegments = Arrays.copyOf(mappedSegments, capacity);
+      segments = Arrays.copyOf(segments, capacity);
+      segmentLengths = Arrays.copyOf(segmentLengths, capacity);
+    }
+    mappedSegments[segmentCount] = mappedSegment;
+    segments[segmentCount] = new UnsafeBuffer(mappedSegment);
+    segmentLengths[segmentCount] = 0;
+    segmentCount++;
+  }
+
+  private static MappedByteBuffer mapSegment(final Path segmentFile, final int size)
+      throws IOException {
+    try (final FileChannel channel =
+        FileChannel.open(
+            segmentFile,
+            StandardOpenOption.CREATE,
+            StandardOpenOption.READ,
+            StandardOpenOption.WRITE)) {
+      return channel.map(MapMode.READ_WRITE, 0, size);
+    }
+  }
+
+  /**
+   * @return the id of the given segment file, or {@code -1} if it isn't a segment file
+   */
+  private static int segmentId(final Path file) {
+    final Matcher matcher = SEGMENT_FILE_PATTERN.matcher(file.getFileName().toString());
+    return matcher.matches() ? Integer.parseInt(matcher.group(1)) : -1;
+  }
+
+  /**
+   * The blocks which are visible to the readers. The length of the last segment is part of the
+   * view, as the writer keeps updating it in place; the lengths of the other segments are final.
+   */
+  private record JournalView(
+      UnsafeBuffer[] segments,
+      int[] segmentLengths,
+      int segmentCount,
+      int lastSegmentLength,
+      long[] indexedPositions,
+      int[] indexedSegments,
+      int[] indexedOffsets,
+      int indexSize) {
+
+    private static final JournalView EMPTY =
+        new JournalView(
+            new UnsafeBuffer[0], new int[0], 0, 0, new long[0], new int[0], new int[0], 0);
+
+    private int segmentLength(final int segmentIndex) {
+      return segmentIndex == segmentCount - 1 ? lastSegmentLength : segmentLengths[segmentIndex];
+    }
+
+    private int blockLength(final int segmentIndex, final int offset) {
+      return HEADER_LENGTH + segments[segmentIndex].getInt(offset + LENGTH_OFFSET, BYTE_ORDER);
+    }
+
+    private long lowestPosition(final int segmentIndex, final int offset) {
+      return segments[segmentIndex].getLong(offset + LOWEST_POSITION_OFFSET, BYTE_ORDER);
+    }
+  }
+
+  private final class JournalReader implements LogStorageReader {
+
+    private final UnsafeBuffer block = new UnsafeBuffer(0, 0);
+    private int segmentIndex;
+    private int offset;
+
+    @Override
+    public void seek(final long position) {
+      final JournalView view = JournalLogStorage.this.view;
+      int low = 0;
+      int high = view.indexSize();
+      while (low < high) {
+        final int middle = (low + high) >>> 1;
+        if (view.indexedPositions()[middle] <= position) {
+          low = middle + 1;
+        } else {
+          high = middle;
+        }
+      }
+
+      if (low == 0) {
+        segmentIndex = 0;
+        offset = 0;
+        return;
+      }
+
+      segmentIndex = view.indexedSegments()[low - 1];
+      offset = view.indexedOffsets()[low - 1];
+      // scan to the last block whose lowest position is not higher than the given position
+      int nextSegmentIndex = segmentIndex;
+      int nextOffset = offset + view.blockLength(segmentIndex, offset);
+      while (true) {
+        if (nextOffset >= view.segmentLength(nextSegmentIndex)) {
+          if (nextSegmentIndex + 1 >= view.segmentCount()) {
+            return;
+          }
+          nextSegmentIndex++;
+          nextOffset = 0;
+        }
+        if (nextOffset >= view.segmentLength(nextSegmentIndex)
+            || view.lowestPosition(nextSegmentIndex, nextOffset) > position) {
+          return;
+        }
+        segmentIndex = nextSegmentIndex;
+        offset = nextOffset;
+        nextOffset += view.blockLength(nextSegmentIndex, nextOffset);
+      }
+    }
+
+    @Override
+    public void close() {}
+
+    @Override
+    public boolean hasNext() {
+      return hasNext(JournalLogStorage.this.view);
+    }
+
+    @Override
+    public DirectBuffer next() {
+      final JournalView view = JournalLogStorage.this.view;
+      if (!hasNext(view)) {
+        throw new NoSuchElementException();
+      }
+      if (offset >= view.segmentLength(segmentIndex)) {
+        segmentIndex++;
+        offset = 0;
+      }
+
+      final UnsafeBuffer segment = view.segments()[segmentIndex];
+      final int length = segment.getInt(offset + LENGTH_OFFSET, BYTE_ORDER);
+      block.wrap(segment, offset + HEADER_LENGTH, length);
+      offset += HEADER_LENGTH + length;
+      return block;
+    }
+
+    private boolean hasNext(final JournalView view) {
+      if (segmentIndex >= view.segmentCount()) {
+        return false;
+      }
+      if (offset < view.segmentLength(segmentIndex)) {
+        return true;
+      }
+      return segmentIndex + 1 < view.segmentCount() && view.segmentLength(segmentIndex + 1) > 0;
+    }
+  }
+}
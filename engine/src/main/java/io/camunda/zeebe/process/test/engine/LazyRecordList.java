@@ -0,0 +1,198 @@
+/*
+ * Copyright Camunda Services GmbH and/or licensed to Camunda Services GmbH under
+ * one or more contributor license agreements. See the NOTICE file distributed
+ * with this work for additional information regarding copyright ownership.
+ * Licensed under the Zeebe Community License 1.1. You may not use this file
+ * except in compliance with the Zeebe Community License 1.1.
+ */
+package io.camunda.zeebe.process.test.engine;
+
+import io.camunda.zeebe.protocol.record.Record;
+import java.lang.ref.SoftReference;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.RandomAccess;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * List of the records of the log, which holds their positions. A record is decoded from the log
+ * when it is accessed for the first time. The decoded record is kept through a soft reference, so
+ * that iterating over the list repeatedly doesn't decode every record again, while the garbage
+ * collector can still drop decoded records when the heap runs short; those are decoded again on
+ * their next access.
+ *
+ * <p>Records which are about to be dropped from the log are pinned, see {@link
+ * #pinRecordsBefore(int)}, so that a list which was handed out before never fails to return them.
+ *
+ * <p>The references to the decoded records are kept in chunks of fixed size. When the list grows,
+ * only the array of chunks is copied, so that a record which is decoded concurrently to the growth
+ * is never lost.
+ *
+ * <p>Records are added by a single writer, while the list is read by any thread. The writer stores
+ * a position before it increases the volatile {@link #size}, and publishes grown arrays before
+ * that. Readers read the size before the arrays.
+ */
+final class LazyRecordList extends AbstractList<Record<?>> implements RandomAccess {
+
+  private static final int INITIAL_CAPACITY = 64;
+  private static final int CHUNK_SHIFT = 10;
+  private static final int CHUNK_SIZE = 1 << CHUNK_SHIFT;
+  private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+
+  private static final Record<?>[] NO_PINNED_RECORDS = new Record<?>[0];
+
+  private final RecordDecoder decoder;
+  private volatile Record<?>[] pinnedRecords = NO_PINNED_RECORDS;
+  private volatile long[] positions;
+  private volatile DecodedChunk[] decodedChunks;
+  private volatile int size;
+
+  /**
+   * @param decoder the decoder to read the records from the log
+   */
+  LazyRecordList(final RecordDecoder decoder) {
+    this(decoder, new long[INITIAL_CAPACITY], new DecodedChunk[1], 0);
+  }
+
+  private LazyRecordList(
+      final RecordDecoder decoder,
+      final long[] positions,
+      final DecodedChunk[] decodedChunks,
+      final int size) {
+    this.decoder = decoder;
+    this.positions = positions;
+    this.decodedChunks = decodedChunks;
+    this.size = size;
+  }
+
+  @Override
+  public Record<?> get(final int index) {
+    final long position = position(index);
+    final Record<?>[] pinnedRecords = this.pinnedRecords;
+    if (index < pinnedRecords.length) {
+      return pinnedRecords[index];
+    }
+
+    final DecodedChunk chunk = decodedChunks[index >>> CHUNK_SHIFT];
+    final int slot = index & CHUNK_MASK;
+    final SoftReference<Record<?>> reference = chunk.get(slot);
+    final Record<?> decodedRecord = reference != null ? reference.get() : null;
+    if (decodedRecord != null) {
+      return decodedRecord;
+    }
+
+    final Record<?> record = decoder.read(position);
+    chunk.set(slot, new SoftReference<>(record));
+    return record;
+  }
+
+  @Override
+  public int size() {
+    return size;
+  }
+
+  /**
+   * @param index the index of the record
+   * @return the position of the record, without decoding it
+   */
+  long position(final int index) {
+    final int size = this.size;
+    if (index < 0 || index >= size) {
+      throw new IndexOutOfBoundsException("Index " + index + " out of bounds for size " + size);
+    }
+    return positions[index];
+  }
+
+  /**
+   * @param position the position to search for
+   * @return the index of the first record whose position is not lower than the given position, or
+   *     the size of the list if there is no such record
+   */
+  int indexOfPosition(final long position) {
+    // the size is read first, the positions array holds at least that many positions
+    final int size = this.size;
+    final long[] positions = this.positions;
+    int low = 0;
+    int high = size;
+    while (low < high) {
+      final int middle = (low + high) >>> 1;
+      if (positions[middle] < position) {
+        low = middle + 1;
+      } else {
+        high = middle;
+      }
+    }
+    return low;
+  }
+
+  /**
+   * Adds a record to the end of the list. Must only be called by a single writer.
+   *
+   * @param position the position of the record
+   */
+  void addPosition(final long position) {
+    long[] positions = this.positions;
+    if (size == positions.length) {
+      positions = Arrays.copyOf(positions, size * 2);
+      this.positions = positions;
+    }
+
+    DecodedChunk[] decodedChunks = this.decodedChunks;
+    final int chunkIndex = size >>> CHUNK_SHIFT;
+    if (chunkIndex == decodedChunks.length) {
+      decodedChunks = Arrays.copyOf(decodedChunks, chunkIndex * 2);
+      this.decodedChunks = decodedChunks;
+    }
+    if (decodedChunks[chunkIndex] == null) {
+      decodedChunks[chunkIndex] = new DecodedChunk();
+    }
+
+    positions[size] = position;
+    size++;
+  }
+
+  /**
+   * Decodes the records before the given index which are not cached, and keeps all of them with
+   * strong references. Called before the records are dropped from the log, so that this list stays
+   * valid for as long as it is referenced.
+   *
+   * @param toIndex the index of the first record which is not pinned
+   */
+  void pinRecordsBefore(final int toIndex) {
+    final Record<?>[] pinnedRecords = Arrays.copyOf(this.pinnedRecords, toIndex);
+    for (int index = this.pinnedRecords.length; index < toIndex; index++) {
+      pinnedRecords[index] = get(index);
+    }
+    this.pinnedRecords = pinnedRecords;
+  }
+
+  /**
+   * @param fromIndex the index of the first record of the new list
+   * @return a new list holding the records from the given index on, this list stays unchanged
+   */
+  LazyRecordList tail(final int fromIndex) {
+    final int size = this.size;
+    final int tailSize = size - fromIndex;
+    final int capacity = Math.max(tailSize, INITIAL_CAPACITY);
+    final long[] positions = Arrays.copyOfRange(this.positions, fromIndex, fromIndex + capacity);
+    final DecodedChunk[] decodedChunks =
+        new DecodedChunk[Math.max((tailSize + CHUNK_SIZE - 1) >>> CHUNK_SHIFT, 1)];
+    for (int i = 0; i < tailSize; i++) {
+      if (decodedChunks[i >>> CHUNK_SHIFT] == null) {
+        decodedChunks[i >>> CHUNK_SHIFT] = new DecodedChunk();
+      }
+      final int index = fromIndex + i;
+      decodedChunks[i >>> CHUNK_SHIFT].set(
+          i & CHUNK_MASK, this.decodedChunks[index >>> CHUNK_SHIFT].get(index & CHUNK_MASK));
+    }
+    return new LazyRecordList(decoder, positions, decodedChunks, tailSize);
+  }
+
+  /** The references to the decoded records of {@link #CHUNK_SIZE} consecutive indexes. */
+  private static final class DecodedChunk extends AtomicReferenceArray<SoftReference<Record<?>>> {
+
+    private DecodedChunk() {
+      super(CHUNK_SIZE);
+    }
+  }
+}
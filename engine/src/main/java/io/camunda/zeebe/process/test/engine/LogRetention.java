@@ -0,0 +1,77 @@
+/*
+ * Copyright Camunda Services GmbH and/or licensed to Camunda Services GmbH under
+ * one or more contributor license agreements. See the NOTICE file distributed
+ * with this work for additional information regarding copyright ownership.
+ * Licensed under the Zeebe Community License 1.1. You may not use this file
+ * except in compliance with the Zeebe Community License 1.1.
+ */
+package io.camunda.zeebe.process.test.engine;
+
+import io.camunda.zeebe.stream.impl.StreamProcessor;
+import java.util.Timer;
+import java.util.TimerTask;
+import java.util.concurrent.TimeUnit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Applies a {@link LogRetentionPolicy} periodically. The position to retain from is handed to the
+ * record stream source and to the log storage, which drop the records before it.
+ */
+final class LogRetention implements AutoCloseable {
+
+  private static final Logger LOG = LoggerFactory.getLogger(LogRetention.class);
+  private static final long PERIOD_MS = 1_000;
+
+  private final Timer timer = new Timer("log-retention", true);
+  private final LogRetentionPolicy policy;
+  private final InMemoryLogStorage logStorage;
+  private final StreamProcessor streamProcessor;
+  private final RecordStreamSourceImpl recordStream;
+
+  LogRetention(
+      final LogRetentionPolicy policy,
+      final InMemoryLogStorage logStorage,
+      final StreamProcessor streamProcessor,
+      final RecordStreamSourceImpl recordStream) {
+    this.policy = policy;
+    this.logStorage = logStorage;
+    this.streamProcessor = streamProcessor;
+    this.recordStream = recordStream;
+  }
+
+  void start() {
+    timer.schedule(
+        new TimerTask() {
+          @Override
+          public void run() {
+            applyPolicy();
+          }
+        },
+        PERIOD_MS,
+        PERIOD_MS);
+  }
+
+  @Override
+  public void close() {
+    timer.cancel();
+  }
+
+  private void applyPolicy() {
+    if (streamProcessor.isActorClosed()) {
+      return;
+    }
+
+    try {
+      // the stream processor may not be started yet
+      final long processedPosition =
+          streamProcessor.getLastProcessedPositionAsync().join(PERIOD_MS, TimeUnit.MILLISECONDS);
+      final long retainFromPosition = policy.retainFromPosition(logStorage, processedPosition);
+      recordStream.compact(retainFromPosition);
+      logStorage.compact(retainFromPosition);
+    } catch (final Exception e) {
+      // e.g. the stream processor was closed concurrently, the next run tries again
+      LOG.debug("Failed to apply the log retention policy {}", policy, e);
+    }
+  }
+}
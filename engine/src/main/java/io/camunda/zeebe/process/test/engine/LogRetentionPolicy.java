@@ -0,0 +1,102 @@
+/*
+ * Copyright Camunda Services GmbH and/or licensed to Camunda Services GmbH under
+ * one or more contributor license agreements. See the NOTICE file distributed
+ * with this work for additional information regarding copyright ownership.
+ * Licensed under the Zeebe Community License 1.1. You may not use this file
+ * except in compliance with the Zeebe Community License 1.1.
+ */
+package io.camunda.zeebe.process.test.engine;
+
+/**
+ * Decides which records of the log an engine keeps. Records which are not retained are dropped
+ * from the log and from the {@link io.camunda.zeebe.process.test.api.RecordStreamSource}, so that
+ * the memory of long running tests stays flat.
+ *
+ * <p>Regardless of the policy, records are only dropped once they were processed by the engine,
+ * and memory is released in whole log segments. A policy is therefore a lower bound, more records
+ * may be retained.
+ */
+public final class LogRetentionPolicy {
+
+  private static final LogRetentionPolicy KEEP_ALL = new LogRetentionPolicy(Kind.ALL, 0);
+  private static final LogRetentionPolicy KEEP_UNPROCESSED =
+      new LogRetentionPolicy(Kind.UNPROCESSED, 0);
+
+  private final Kind kind;
+  private final long limit;
+
+  private LogRetentionPolicy(final Kind kind, final long limit) {
+    this.kind = kind;
+    this.limit = limit;
+  }
+
+  /**
+   * @return a policy which never drops records, the default
+   */
+  public static LogRetentionPolicy keepAll() {
+    return KEEP_ALL;
+  }
+
+  /**
+   * @return a policy which drops all records that were processed
+   */
+  public static LogRetentionPolicy keepUnprocessed() {
+    return KEEP_UNPROCESSED;
+  }
+
+  /**
+   * @param count the number of records to keep
+   * @return a policy which keeps the given number of most recent records
+   */
+  public static LogRetentionPolicy keepLastRecords(final long count) {
+    return new LogRetentionPolicy(Kind.LAST_RECORDS, requirePositive(count, "record count"));
+  }
+
+  /**
+   * @param bytes the number of log bytes to keep
+   * @return a policy which keeps the most recent records, up to the given number of bytes
+   */
+  public static LogRetentionPolicy keepLastBytes(final long bytes) {
+    return new LogRetentionPolicy(Kind.LAST_BYTES, requirePositive(bytes, "byte count"));
+  }
+
+  boolean isKeepAll() {
+    return kind == Kind.ALL;
+  }
+
+  /**
+   * @param logStorage the log to apply the policy to
+   * @param processedPosition the position of the last record processed by the engine
+   * @return the position of the first record to retain; all records before it may be dropped
+   */
+  long retainFromPosition(final InMemoryLogStorage logStorage, final long processedPosition) {
+    final long retainFromPosition =
+        switch (kind) {
+          case ALL -> Long.MIN_VALUE;
+          case UNPROCESSED -> processedPosition + 1;
+          case LAST_RECORDS -> logStorage.lastPosition() - limit + 1;
+          case LAST_BYTES -> logStorage.firstPositionOfLastBytes(limit);
+        };
+    return Math.min(retainFromPosition, processedPosition + 1);
+  }
+
+  private static long requirePositive(final long value, final String name) {
+    if (value <= 0) {
+      throw new IllegalArgumentException(
+          "Expected the " + name + " to be positive, but was " + value);
+    }
+    return value;
+  }
+
+  @Override
+  public String toString() {
+    return "LogRetentionPolicy{kind=" + kind + ", limit=" + limit + '}';
+  }
+
+  private enum Kind {
+    ALL,
+    UNPROCESSED,
+    LAST_RECORDS,
+    LAST_BYTES
+  }
+}
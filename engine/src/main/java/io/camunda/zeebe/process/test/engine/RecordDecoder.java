@@ -0,0 +1,119 @@
+/*
+ * Copyright Camunda Services GmbH and/or licensed to Camunda Services GmbH under
+ * one or more contributor license agreements. See the NOTICE file distributed
+ * with this work for additional information regarding copyright ownership.
+ * Licensed under the Zeebe Community License 1.1. You may not use this file
+ * except in compliance with the Zeebe Community License 1.1.
+ */
+package io.camunda.zeebe.process.test.engine;
+
+import io.camunda.zeebe.logstreams.log.LogStreamReader;
+import io.camunda.zeebe.logstreams.log.LoggedEvent;
+import io.camunda.zeebe.protocol.impl.record.CopiedRecord;
+import io.camunda.zeebe.protocol.impl.record.RecordMetadata;
+import io.camunda.zeebe.protocol.impl.record.UnifiedRecordValue;
+import io.camunda.zeebe.protocol.record.ValueType;
+import io.camunda.zeebe.stream.impl.TypedEventRegistry;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+/**
+ * Decodes the records of the log. The constructors of the record values are looked up once per
+ * value type, instead of reflectively for every record.
+ */
+final class RecordDecoder {
+
+  private static final Map<ValueType, MethodHandle> VALUE_FACTORIES = createValueFactories();
+
+  private final LogStreamReader logStreamReader;
+  private final int partitionId;
+
+  /**
+   * @param logStreamReader the reader to read records by their position, only used by this decoder
+   * @param partitionId the partition of the log
+   */
+  RecordDecoder(final LogStreamReader logStreamReader, final int partitionId) {
+    this.logStreamReader = logStreamReader;
+    this.partitionId = partitionId;
+  }
+
+  /**
+   * @param position the position of the record
+   * @return the decoded record
+   * @throws NoSuchElementException if the log doesn't contain a record with the given position,
+   *     e.g. because it was dropped by the log retention
+   */
+  synchronized CopiedRecord<UnifiedRecordValue> read(final long position) {
+    if (!logStreamReader.seek(position) || !logStreamReader.hasNext()) {
+      throw new NoSuchElementException("Expected a record at position " + position);
+    }
+    return decode(logStreamReader.next());
+  }
+
+  /**
+   * Moves the reader of this decoder to the given position, so that it doesn't hold back the
+   * compaction of the log before it.
+   *
+   * @param position the position of the first record which may still be read
+   */
+  synchronized void releaseRecordsBefore(final long position) {
+    logStreamReader.seek(position);
+  }
+
+  /**
+   * @param event the logged event to decode
+   * @return a copy of the event, which stays valid after the reader moved on
+   */
+  private CopiedRecord<UnifiedRecordValue> decode(final LoggedEvent event) {
+    final RecordMetadata metadata = new RecordMetadata();
+    event.readMetadata(metadata);
+
+    final UnifiedRecordValue value = newValue(metadata.getValueType());
+    event.readValue(value);
+
+    return new CopiedRecord<>(
+        value,
+        metadata,
+        event.getKey(),
+        partitionId,
+        event.getPosition(),
+        event.getSourceEventPosition(),
+        event.getTimestamp());
+  }
+
+  private static UnifiedRecordValue newValue(final ValueType valueType) {
+    final MethodHandle factory = VALUE_FACTORIES.get(valueType);
+    if (factory == null) {
+      throw new IllegalStateException("Expected a record value class for " + valueType);
+    }
+
+    try {
+      return (UnifiedRecordValue) factory.invoke();
+    } catch (final Throwable e) {
+      throw new IllegalStateException("Failed to create a record value of " + valueType, e);
+    }
+  }
+
+  private static Map<ValueType, MethodHandle> createValueFactories() {
+    final MethodHandles.Lookup lookup = MethodHandles.publicLookup();
+    final Map<ValueType, MethodHandle> factories = new EnumMap<>(ValueType.class);
+    TypedEventRegistry.EVENT_REGISTRY.forEach(
+        (valueType, valueClass) -> {
+          try {
+            factories.put(
+                valueType,
+                lookup
+                    .findConstructor(valueClass, MethodType.methodType(void.class))
+                    .asType(MethodType.methodType(UnifiedRecordValue.class)));
+          } catch (final ReflectiveOperationException e) {
+            throw new IllegalStateException(
+                "Expected a public no-arg constructor of " + valueClass, e);
+          }
+        });
+    return factories;
+  }
+}
@@ -9,26 +9,51 @@ package io.camunda.zeebe.process.test.engine;
 
 import io.camunda.zeebe.logstreams.log.LogStreamReader;
 import io.camunda.zeebe.logstreams.log.LoggedEvent;
+import io.camunda.zeebe.logstreams.storage.LogStorage.CommitListener;
+import io.camunda.zeebe.process.test.api.RecordListener;
 import io.camunda.zeebe.process.test.api.RecordStreamSource;
-import io.camunda.zeebe.protocol.impl.record.CopiedRecord;
-import io.camunda.zeebe.protocol.impl.record.RecordMetadata;
-import io.camunda.zeebe.protocol.impl.record.UnifiedRecordValue;
+import io.camunda.zeebe.process.test.api.RecordSubscription;
 import io.camunda.zeebe.protocol.record.Record;
-import io.camunda.zeebe.stream.impl.TypedEventRegistry;
-import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
-class RecordStreamSourceImpl implements RecordStreamSource {
+/**
+ * Source of the records of the in memory engine. The records are read from the log when they are
+ * requested, but they are only decoded when they are accessed, see {@link LazyRecordList}.
+ *
+ * <p>Subscriptions are fed after the log storage notified about a commit, and once after
+ * subscribing with the records which were published before. The listeners of the subscriptions are
+ * user code, they are always called on a thread of this source, so that a slow listener doesn't
+ * delay the other commit listeners of the log storage, like the {@link EngineStateMonitor}, nor
+ * the thread which subscribes.
+ */
+class RecordStreamSourceImpl implements RecordStreamSource, CommitListener, AutoCloseable {
+
+  private static final Logger LOG = LoggerFactory.getLogger(RecordStreamSourceImpl.class);
 
   private final LogStreamReader logStreamReader;
-  private final int partitionId;
-  private final List<Record<?>> records = new ArrayList<>();
+  private final RecordDecoder decoder;
+  private volatile LazyRecordList records;
   private volatile long lastPosition = -1L;
+  private final List<PushingRecordSubscription> subscriptions = new CopyOnWriteArrayList<>();
+  private final CommitNotifier subscriptionNotifier = new CommitNotifier("record-subscriptions");
 
-  public RecordStreamSourceImpl(final LogStreamReader logStreamReader, final int partitionId) {
+  /**
+   * @param logStreamReader the reader to read new records from
+   * @param recordReader the reader to decode the records by their position
+   * @param partitionId the partition of the log
+   */
+  public RecordStreamSourceImpl(
+      final LogStreamReader logStreamReader,
+      final LogStreamReader recordReader,
+      final int partitionId) {
     this.logStreamReader = logStreamReader;
-    this.partitionId = partitionId;
+    decoder = new RecordDecoder(recordReader, partitionId);
+    records = new LazyRecordList(decoder);
+    subscriptionNotifier.addListener(this::pushToSubscriptions);
   }
 
   @Override
@@ -37,6 +62,63 @@ class RecordStreamSourceImpl implements RecordStreamSource {
     return Collections.unmodifiableList(records);
   }
 
+  @Override
+  public RecordSubscription subscribe(final long fromPosition, final RecordListener listener) {
+    final PushingRecordSubscription subscription =
+        new PushingRecordSubscription(fromPosition, listener);
+    subscriptions.add(subscription);
+    // the records which were published before are pushed on the thread of the subscriptions too
+    subscriptionNotifier.signal();
+    return subscription;
+  }
+
+  @Override
+  public void onCommit() {
+    if (!subscriptions.isEmpty()) {
+      subscriptionNotifier.signal();
+    }
+  }
+
+  /** Stops feeding the subscriptions. */
+  @Override
+  public void close() {
+    subscriptionNotifier.close();
+  }
+
+  /**
+   * Drops the records before the given position. Records which were not read yet are read first,
+   * so that this source doesn't hold back the compaction of the log. Lists returned by {@link
+   * #getRecords()} before are not changed, their dropped records are decoded and kept by them, see
+   * {@link LazyRecordList#pinRecordsBefore(int)}.
+   *
+   * @param position the position of the first record to keep
+   */
+  void compact(final long position) {
+    synchronized (logStreamReader) {
+      updateWithNewRecords();
+
+      final LazyRecordList currentRecords = records;
+      int retainedIndex = 0;
+      while (retainedIndex < currentRecords.size()
+          && currentRecords.position(retainedIndex) < position) {
+        retainedIndex++;
+      }
+      if (retainedIndex > 0) {
+        // the list may be referenced by a caller of getRecords() or by a push in progress
+        currentRecords.pinRecordsBefore(retainedIndex);
+        records = currentRecords.tail(retainedIndex);
+      }
+      decoder.releaseRecordsBefore(position);
+    }
+  }
+
+  private void pushToSubscriptions() {
+    updateWithNewRecords();
+    for (final PushingRecordSubscription subscription : subscriptions) {
+      subscription.pushNewRecords();
+    }
+  }
+
   private void updateWithNewRecords() {
     synchronized (logStreamReader) {
       if (lastPosition < 0) {
@@ -47,37 +129,46 @@ class RecordStreamSourceImpl implements RecordStreamSource {
 
       while (logStreamReader.hasNext()) {
         final LoggedEvent event = logStreamReader.next();
-        final CopiedRecord<UnifiedRecordValue> record = mapToRecord(event);
-        records.add(record);
+        records.addPosition(event.getPosition());
         lastPosition = event.getPosition();
       }
     }
   }
 
-  private CopiedRecord<UnifiedRecordValue> mapToRecord(final LoggedEvent event) {
-    final RecordMetadata metadata = new RecordMetadata();
-    event.readMetadata(metadata);
-
-    final UnifiedRecordValue value;
-    try {
-      value =
-          TypedEventRegistry.EVENT_REGISTRY
-              .get(metadata.getValueType())
-              .getDeclaredConstructor()
-              .newInstance();
-    } catch (final Exception e) {
-      throw new RuntimeException(e);
+  private final class PushingRecordSubscription implements RecordSubscription {
+
+    private final RecordListener listener;
+    private long nextPosition;
+    private volatile boolean isClosed;
+
+    private PushingRecordSubscription(final long fromPosition, final RecordListener listener) {
+      this.listener = listener;
+      nextPosition = fromPosition;
     }
 
-    event.readValue(value);
+    /** Waits for a push which is in progress, so that no record is passed after returning. */
+    @Override
+    public synchronized void close() {
+      isClosed = true;
+      subscriptions.remove(this);
+    }
 
-    return new CopiedRecord<>(
-        value,
-        metadata,
-        event.getKey(),
-        partitionId,
-        event.getPosition(),
-        event.getSourceEventPosition(),
-        event.getTimestamp());
+    /** Passes the records which were not passed yet to the listener. */
+    private synchronized void pushNewRecords() {
+      final LazyRecordList records = RecordStreamSourceImpl.this.records;
+      for (int index = records.indexOfPosition(nextPosition);
+          index < records.size() && !isClosed;
+          index++) {
+        final Record<?> record = records.get(index);
+        nextPosition = record.getPosition() + 1;
+        try {
+          listener.onRecord(record);
+        } catch (final RuntimeException e) {
+          LOG.warn("Closing record subscription, its listener failed on record {}", record, e);
+          close();
+          listener.onFailure(e);
+        }
+      }
+    }
   }
 }
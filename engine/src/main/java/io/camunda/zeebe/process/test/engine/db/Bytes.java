@@ -10,19 +10,36 @@ package io.camunda.zeebe.process.test.engine.db;
 import io.camunda.zeebe.db.DbValue;
 import java.util.Arrays;
 import org.agrona.ExpandableArrayBuffer;
+import org.agrona.concurrent.UnsafeBuffer;
 
-/** Wrapper around a {@code byte[]} to make it {@code Comparable} */
+/**
+ * Wrapper around a {@code byte[]} to make it {@code Comparable}
+ *
+ * <p>Instances created by the static factory methods own an exactly sized copy of the bytes and
+ * are immutable. Instances created by {@link #probe()} are mutable views on a range of a reused
+ * array; they can be used to look up entries, but must never be stored in a collection.
+ */
 final class Bytes implements Comparable<Bytes> {
 
-  private final byte[] byteArray;
+  private byte[] byteArray;
+  private int length;
 
   private Bytes(final byte[] byteArray) {
+    this(byteArray, byteArray.length);
+  }
+
+  private Bytes(final byte[] byteArray, final int length) {
     this.byteArray = byteArray;
+    this.length = length;
   }
 
   @Override
   public int hashCode() {
-    return Arrays.hashCode(byteArray);
+    int result = 1;
+    for (int i = 0; i < length; i++) {
+      result = 31 * result + byteArray[i];
+    }
+    return result;
   }
 
   @Override
@@ -36,18 +53,59 @@ final class Bytes implements Comparable<Bytes> {
 
     final Bytes bytes = (Bytes) o;
 
-    return Arrays.equals(byteArray, bytes.byteArray);
+    return Arrays.equals(byteArray, 0, length, bytes.byteArray, 0, bytes.length);
   }
 
   @Override
   public int compareTo(final Bytes other) {
-    return Arrays.compareUnsigned(byteArray, other.byteArray);
+    return Arrays.compareUnsigned(byteArray, 0, length, other.byteArray, 0, other.length);
   }
 
+  /**
+   * @return the underlying array, for immutable instances its length is the length of these bytes
+   */
   byte[] toBytes() {
     return byteArray;
   }
 
+  int length() {
+    return length;
+  }
+
+  /**
+   * Points this probe to the first {@code length} bytes of the given array. Must only be called on
+   * instances created by {@link #probe()}.
+   */
+  void wrap(final byte[] array, final int length) {
+    byteArray = array;
+    this.length = length;
+  }
+
+  /**
+   * @return an immutable copy of these bytes, which can be stored as key in a collection
+   */
+  Bytes copy() {
+    return fromByteArray(byteArray, length);
+  }
+
+  /**
+   * Calculates the smallest key which is greater than all keys starting with these bytes. This is
+   * done by incrementing the last byte which is not {@code 0xFF} and dropping all bytes after it.
+   *
+   * @return the exclusive upper bound of all keys with this prefix, or {@code null} if there is
+   *     no such bound (i.e. all bytes are {@code 0xFF})
+   */
+  Bytes exclusiveUpperBound() {
+    for (int i = length - 1; i >= 0; i--) {
+      if (byteArray[i] != (byte) 0xFF) {
+        final byte[] upperBound = Arrays.copyOf(byteArray, i + 1);
+        upperBound[i]++;
+        return new Bytes(upperBound);
+      }
+    }
+    return null;
+  }
+
   static Bytes fromByteArray(final byte[] array, final int length) {
     return new Bytes(Arrays.copyOfRange(array, 0, length));
   }
@@ -60,10 +118,22 @@ final class Bytes implements Comparable<Bytes> {
     return fromByteArray(buffer.byteArray());
   }
 
+  /**
+   * Wraps the given array without copying it. The caller hands over the array, it must not be
+   * modified afterwards.
+   */
+  static Bytes wrapArray(final byte[] array) {
+    return new Bytes(array);
+  }
+
   static Bytes fromDbValue(final DbValue value) {
-    final ExpandableArrayBuffer valueBuffer = new ExpandableArrayBuffer(0);
-    value.write(valueBuffer, 0);
-    return Bytes.fromExpandableArrayBuffer(valueBuffer);
+    final byte[] valueBytes = new byte[value.getLength()];
+    value.write(new UnsafeBuffer(valueBytes), 0);
+    return new Bytes(valueBytes);
+  }
+
+  static Bytes probe() {
+    return new Bytes(new byte[0]);
   }
 
   public static Bytes empty() {
@@ -8,42 +8,70 @@
 package io.camunda.zeebe.process.test.engine.db;
 
 import io.camunda.zeebe.db.DbKey;
-import io.camunda.zeebe.db.impl.ZeebeDbConstants;
 import org.agrona.DirectBuffer;
 import org.agrona.ExpandableArrayBuffer;
 import org.agrona.concurrent.UnsafeBuffer;
 
 /**
  * Helper class that represents a fully qualified key. A fully qualified key is constructed from a
- * column family index and the key inside that column family
+ * column family index and the key inside that column family.
+ *
+ * <p>Instances are reused by a column family for all of its lookups: the key is written into a
+ * reused buffer and compared against the stored keys without copying. Only when a key is actually
+ * inserted, a copy of it is materialized via {@link #copyKeyBytes()}.
  */
 final class FullyQualifiedKey {
 
-  private final Bytes keyBytes;
+  private final int columnFamilyIndex;
+  private final ExpandableArrayBuffer keyBuffer = new ExpandableArrayBuffer();
+  private final Bytes keyBytes = Bytes.probe();
+
+  FullyQualifiedKey(final Enum columnFamily) {
+    columnFamilyIndex = columnFamily.ordinal();
+  }
 
   FullyQualifiedKey(final Enum columnFamily, final DbKey dbKey) {
-    final ExpandableArrayBuffer keyBuffer = new ExpandableArrayBuffer();
-    keyBuffer.putLong(0, columnFamily.ordinal(), ZeebeDbConstants.ZB_DB_BYTE_ORDER);
-    dbKey.write(keyBuffer, Long.BYTES);
-    keyBytes = Bytes.fromExpandableArrayBuffer(keyBuffer);
+    this(columnFamily);
+    wrap(dbKey);
+  }
+
+  /**
+   * Serializes the given key into the reused buffer of this instance
+   *
+   * @return this instance
+   */
+  FullyQualifiedKey wrap(final DbKey dbKey) {
+    dbKey.write(keyBuffer, 0);
+    keyBytes.wrap(keyBuffer.byteArray(), dbKey.getLength());
+    return this;
+  }
+
+  int getColumnFamilyIndex() {
+    return columnFamilyIndex;
   }
 
+  /**
+   * @return a view on the current key, which is only valid until the next call to {@link
+   *     #wrap(DbKey)}
+   */
   Bytes getKeyBytes() {
     return keyBytes;
   }
 
   /**
-   * Extract the key from a byte array containing a fully qualified key
+   * @return an immutable copy of the current key
+   */
+  Bytes copyKeyBytes() {
+    return keyBytes.copy();
+  }
+
+  /**
+   * Wraps the key bytes as they are stored in a column family of the database
    *
-   * @param rawKeyBytes raw key as it is stored in the database, contains column family index as
-   *     prefix
-   * @return direct buffer with key part of
+   * @param rawKeyBytes raw key as it is stored in the database
+   * @return direct buffer with the key
    */
   static DirectBuffer wrapKey(final byte[] rawKeyBytes) {
-    final DirectBuffer keyViewBuffer = new UnsafeBuffer(0, 0);
-
-    keyViewBuffer.wrap(rawKeyBytes, Long.BYTES, rawKeyBytes.length - Long.BYTES);
-
-    return keyViewBuffer;
+    return new UnsafeBuffer(rawKeyBytes);
   }
 }
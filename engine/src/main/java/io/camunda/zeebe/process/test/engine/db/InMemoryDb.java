@@ -11,8 +11,12 @@ import io.camunda.zeebe.db.*;
 import io.camunda.zeebe.db.impl.DbNil;
 import io.camunda.zeebe.protocol.EnumValue;
 import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Map;
 import java.util.Optional;
-import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.ToLongFunction;
 
 /**
  * In memory implementation of {@code ZeebeDb}
@@ -22,17 +26,70 @@ import java.util.TreeMap;
  * <ul>
  *   <li>concurrent access
  *   <li>locking between transactions
- *   <li>Taking snapshots
  * </ul>
  *
- * <p>This implementation is backed by a tree map.
+ * <p>This implementation is backed by one sorted store per column family, see {@link
+ * InMemoryDbStore}. Snapshots contain the committed state only, see {@link InMemoryDbSnapshot}.
+ * Read contexts are only supported by {@link VersionedInMemoryDb}.
  *
  * @param <ColumnFamilyType>
  */
-final class InMemoryDb<ColumnFamilyType extends Enum<? extends EnumValue> & EnumValue>
+class InMemoryDb<ColumnFamilyType extends Enum<? extends EnumValue> & EnumValue>
     implements ZeebeDb<ColumnFamilyType> {
 
-  private final TreeMap<Bytes, Bytes> database = new TreeMap<>();
+  /** The number of keys, of a column family or of all column families */
+  static final String ESTIMATE_NUM_KEYS = "rocksdb.estimate-num-keys";
+
+  /** The bytes of all keys and values, of a column family or of all column families */
+  static final String ESTIMATE_LIVE_DATA_SIZE = "rocksdb.estimate-live-data-size";
+
+  /** The bytes of all keys and values of all column families, as all data is kept in memory */
+  static final String CUR_SIZE_ALL_MEM_TABLES = "rocksdb.cur-size-all-mem-tables";
+
+  final InMemoryDbStore database;
+  private final Map<String, Integer> columnFamilyOrdinals = new ConcurrentHashMap<>();
+
+  InMemoryDb() {
+    this(InMemoryDbColumnFamilyStoreFactory.HEAP);
+  }
+
+  InMemoryDb(final InMemoryDbColumnFamilyStoreFactory storeFactory) {
+    database = new InMemoryDbStore(storeFactory);
+  }
+
+  /**
+   * Opens the snapshot in the given directory. The column families of the snapshot are memory
+   * mapped, they are read lazily.
+   *
+   * @param snapshotDir the directory of a snapshot taken by {@link #createSnapshot(File)}
+   * @param storeFactory creates the stores of column families which are not part of the snapshot
+   * @return the database with the state of the snapshot
+   */
+  static <ColumnFamilyType extends Enum<? extends EnumValue> & EnumValue>
+      InMemoryDb<ColumnFamilyType> openSnapshot(
+          final File snapshotDir, final InMemoryDbColumnFamilyStoreFactory storeFactory) {
+    final InMemoryDb<ColumnFamilyType> db = new InMemoryDb<>(storeFactory);
+    return restoreSnapshot(db, snapshotDir);
+  }
+
+  /**
+   * Restores the snapshot in the given directory into the given, empty database. The database is
+   * closed if the snapshot can't be read.
+   */
+  static <DbType extends InMemoryDb<?>> DbType restoreSnapshot(
+      final DbType db, final File snapshotDir) {
+    try {
+      InMemoryDbSnapshot.restore(snapshotDir, db.database);
+      db.database.publishVersion();
+    } catch (final IOException e) {
+      db.close();
+      throw new UncheckedIOException("Failed to open snapshot in path " + snapshotDir, e);
+    } catch (final RuntimeException e) {
+      db.close();
+      throw e;
+    }
+    return db;
+  }
 
   @Override
   public <KeyType extends DbKey, ValueType extends DbValue>
@@ -41,19 +98,82 @@ final class InMemoryDb<ColumnFamilyType extends Enum<? extends EnumValue> & Enum
           final TransactionContext context,
           final KeyType keyInstance,
           final ValueType valueInstance) {
+    if (keyInstance != DbNullKey.INSTANCE) {
+      // a read context has its own version of the state, which may be read on another thread
+      ((InMemoryDbTransactionContext) context)
+          .getDatabase()
+          .createColumnFamily(columnFamily.ordinal(), keyInstance);
+    }
+    columnFamilyOrdinals.putIfAbsent(columnFamily.name(), columnFamily.ordinal());
     return new InMemoryDbColumnFamily<>(columnFamily, context, keyInstance, valueInstance);
   }
 
   @Override
   public void createSnapshot(final File snapshotDir) {
-    throw new IllegalStateException("No snapshots supported");
+    try {
+      InMemoryDbSnapshot.write(database, snapshotDir);
+    } catch (final IOException e) {
+      throw new UncheckedIOException("Failed to take snapshot in path " + snapshotDir, e);
+    }
   }
 
+  /**
+   * Supports the RocksDB properties {@value #ESTIMATE_NUM_KEYS}, {@value #ESTIMATE_LIVE_DATA_SIZE}
+   * and {@value #CUR_SIZE_ALL_MEM_TABLES}, which are summed up over all column families. The first
+   * two can be restricted to a single column family by appending its name, e.g. {@code
+   * rocksdb.estimate-num-keys.JOBS}.
+   *
+   * <p>The values are read without synchronization, so they may be slightly outdated when they are
+   * read from another thread than the one writing to the database.
+   */
   @Override
   public Optional<String> getProperty(final String propertyName) {
+    if (propertyName.equals(CUR_SIZE_ALL_MEM_TABLES)) {
+      return Optional.of(String.valueOf(sum(InMemoryDbColumnFamilyStore::liveBytes)));
+    } else if (propertyName.startsWith(ESTIMATE_NUM_KEYS)) {
+      return getColumnFamilyProperty(
+          propertyName.substring(ESTIMATE_NUM_KEYS.length()), InMemoryDbColumnFamilyStore::size);
+    } else if (propertyName.startsWith(ESTIMATE_LIVE_DATA_SIZE)) {
+      return getColumnFamilyProperty(
+          propertyName.substring(ESTIMATE_LIVE_DATA_SIZE.length()),
+          InMemoryDbColumnFamilyStore::liveBytes);
+    }
     return Optional.empty();
   }
 
+  /**
+   * @param columnFamilySuffix an empty string for the sum of all column families, or the name of a
+   *     column family prefixed by a dot
+   */
+  private Optional<String> getColumnFamilyProperty(
+      final String columnFamilySuffix, final ToLongFunction<InMemoryDbColumnFamilyStore> property) {
+    if (columnFamilySuffix.isEmpty()) {
+      return Optional.of(String.valueOf(sum(property)));
+    } else if (columnFamilySuffix.charAt(0) != '.') {
+      return Optional.empty();
+    }
+
+    final Integer ordinal = columnFamilyOrdinals.get(columnFamilySuffix.substring(1));
+    if (ordinal == null) {
+      return Optional.empty();
+    }
+
+    final InMemoryDbColumnFamilyStore columnFamily = database.existingColumnFamily(ordinal);
+    return Optional.of(
+        String.valueOf(columnFamily != null ? property.applyAsLong(columnFamily) : 0));
+  }
+
+  private long sum(final ToLongFunction<InMemoryDbColumnFamilyStore> property) {
+    long sum = 0;
+    for (int i = 0; i < database.columnFamilyCount(); i++) {
+      final InMemoryDbColumnFamilyStore columnFamily = database.existingColumnFamily(i);
+      if (columnFamily != null) {
+        sum += property.applyAsLong(columnFamily);
+      }
+    }
+    return sum;
+  }
+
   @Override
   public TransactionContext createContext() {
     return new InMemoryDbTransactionContext(database);
@@ -66,6 +186,6 @@ final class InMemoryDb<ColumnFamilyType extends Enum<? extends EnumValue> & Enum
 
   @Override
   public void close() {
-    database.clear();
+    database.close();
   }
 }
@@ -18,12 +18,11 @@ import io.camunda.zeebe.util.buffer.BufferUtil;
 import java.util.Iterator;
 import java.util.Map;
 import java.util.Objects;
-import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicLong;
-import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.BiConsumer;
 import java.util.function.Consumer;
 import org.agrona.DirectBuffer;
+import org.agrona.concurrent.UnsafeBuffer;
 
 final class InMemoryDbColumnFamily<
         ColumnFamilyNames extends Enum<? extends EnumValue> & EnumValue,
@@ -37,6 +36,8 @@ final class InMemoryDbColumnFamily<
   private final ValueType valueInstance;
 
   private final InMemoryDbColumnFamilyIterationContext iterationContext;
+  private final FullyQualifiedKey fullyQualifiedKey;
+  private final UnsafeBuffer valueViewBuffer = new UnsafeBuffer(0, 0);
 
   InMemoryDbColumnFamily(
       final ColumnFamilyNames columnFamily,
@@ -48,7 +49,8 @@ final class InMemoryDbColumnFamily<
     this.keyInstance = keyInstance;
     this.valueInstance = valueInstance;
 
-    iterationContext = new InMemoryDbColumnFamilyIterationContext(columnFamily.ordinal());
+    iterationContext = new InMemoryDbColumnFamilyIterationContext();
+    fullyQualifiedKey = new FullyQualifiedKey(columnFamily);
   }
 
   private void ensureInOpenTransaction(
@@ -62,12 +64,12 @@ final class InMemoryDbColumnFamily<
     ensureInOpenTransaction(
         context,
         state -> {
-          final FullyQualifiedKey fullyQualifiedKey = new FullyQualifiedKey(columnFamily, key);
+          final FullyQualifiedKey fullyQualifiedKey = this.fullyQualifiedKey.wrap(key);
           if (state.contains(fullyQualifiedKey)) {
             throw new ZeebeDbInconsistentException(
                 "Key " + keyInstance + " in ColumnFamily " + columnFamily + " already exists");
           } else {
-            state.put(fullyQualifiedKey, value);
+            state.put(fullyQualifiedKey, value, false);
           }
         });
   }
@@ -77,9 +79,9 @@ final class InMemoryDbColumnFamily<
     ensureInOpenTransaction(
         context,
         state -> {
-          final FullyQualifiedKey fullyQualifiedKey = new FullyQualifiedKey(columnFamily, key);
+          final FullyQualifiedKey fullyQualifiedKey = this.fullyQualifiedKey.wrap(key);
           if (state.contains(fullyQualifiedKey)) {
-            state.put(fullyQualifiedKey, value);
+            state.put(fullyQualifiedKey, value, true);
           } else {
             throw new ZeebeDbInconsistentException(
                 "Key " + keyInstance + " in ColumnFamily " + columnFamily + " does not exist");
@@ -89,20 +91,16 @@ final class InMemoryDbColumnFamily<
 
   @Override
   public void upsert(final KeyType key, final ValueType value) {
-    ensureInOpenTransaction(
-        context, state -> state.put(new FullyQualifiedKey(columnFamily, key), value));
+    ensureInOpenTransaction(context, state -> state.put(fullyQualifiedKey.wrap(key), value));
   }
 
   @Override
   public ValueType get(final KeyType key) {
-    final AtomicReference<DirectBuffer> valueBufferRef = new AtomicReference<>(null);
-
-    ensureInOpenTransaction(context, state -> valueBufferRef.set(getValue(state, key)));
-
-    final DirectBuffer valueBuffer = valueBufferRef.get();
+    final byte[] value = getValue(key);
 
-    if (valueBuffer != null) {
-      valueInstance.wrap(valueBuffer, 0, valueBuffer.capacity());
+    if (value != null) {
+      valueViewBuffer.wrap(value);
+      valueInstance.wrap(valueViewBuffer, 0, value.length);
       return valueInstance;
     }
 
@@ -155,9 +153,9 @@ final class InMemoryDbColumnFamily<
     ensureInOpenTransaction(
         context,
         state -> {
-          final FullyQualifiedKey fullyQualifiedKey = new FullyQualifiedKey(columnFamily, key);
+          final FullyQualifiedKey fullyQualifiedKey = this.fullyQualifiedKey.wrap(key);
           if (state.contains(fullyQualifiedKey)) {
-            state.delete(fullyQualifiedKey);
+            state.delete(fullyQualifiedKey, true);
           } else {
             throw new ZeebeDbInconsistentException(
                 "Key " + keyInstance + " in ColumnFamily " + columnFamily + " does not exist");
@@ -170,52 +168,42 @@ final class InMemoryDbColumnFamily<
     ensureInOpenTransaction(
         context,
         state -> {
-          final FullyQualifiedKey fullyQualifiedKey = new FullyQualifiedKey(columnFamily, key);
+          final FullyQualifiedKey fullyQualifiedKey = this.fullyQualifiedKey.wrap(key);
           state.delete(fullyQualifiedKey);
         });
   }
 
   @Override
   public boolean exists(final KeyType key) {
-    final AtomicBoolean exists = new AtomicBoolean(true);
-
-    ensureInOpenTransaction(context, state -> exists.set(getValue(state, key) != null));
-
-    return exists.get();
+    return getState().contains(fullyQualifiedKey.wrap(key));
   }
 
   @Override
   public boolean isEmpty() {
-    final AtomicBoolean isEmpty = new AtomicBoolean(true);
-    whileEqualPrefix(
-        DbNullKey.INSTANCE,
-        (key, value) -> {
-          isEmpty.set(false);
-          return false;
-        });
-
-    return isEmpty.get();
+    return count() == 0;
   }
 
   @Override
   public long count() {
-    return countEachInPrefix(DbNullKey.INSTANCE);
+    return getState().count(columnFamily.ordinal());
   }
 
   @Override
   public long countEqualPrefix(final DbKey prefix) {
-    return countEachInPrefix(prefix);
+    // every key starts with an empty prefix
+    return prefix.getLength() == 0 ? count() : countEachInPrefix(prefix);
   }
 
-  private DirectBuffer getValue(final InMemoryDbState state, final DbKey key) {
-    final FullyQualifiedKey fullyQualifiedKey = new FullyQualifiedKey(columnFamily, key);
-    final byte[] value = state.get(fullyQualifiedKey);
+  private byte[] getValue(final DbKey key) {
+    return getState().get(fullyQualifiedKey.wrap(key));
+  }
 
-    if (value != null) {
-      return BufferUtil.wrapArray(value);
-    } else {
-      return null;
-    }
+  /**
+   * Reads don't need to open a transaction: outside of a transaction, the state has no uncommitted
+   * changes and reads the committed data.
+   */
+  private InMemoryDbState getState() {
+    return ((InMemoryDbTransactionContext) context).getState();
   }
 
   private void forEach(
@@ -252,21 +240,15 @@ final class InMemoryDbColumnFamily<
             ensureInOpenTransaction(
                 context,
                 state -> {
-                  final var seekTargetBuffer = iterationContext.keyWithColumnFamily(seekTarget);
-                  final byte[] seekTargetBytes = seekTargetBuffer.array();
                   final Iterator<Map.Entry<Bytes, Bytes>> iterator =
-                      state.newIterator().seek(seekTargetBytes, seekTargetBytes.length).iterate();
+                      state
+                          .newIterator(columnFamily.ordinal())
+                          .seek(iterationContext.seekKey(seekTarget))
+                          .withPrefix(prefixKey)
+                          .iterate();
 
-                  final byte[] prefixKeyBytes = prefixKey.toBytes();
                   while (iterator.hasNext()) {
-                    final Map.Entry<Bytes, Bytes> entry = iterator.next();
-
-                    final byte[] keyBytes = entry.getKey().toBytes();
-                    if (!BufferUtil.startsWith(
-                        prefixKeyBytes, 0, prefixKeyBytes.length, keyBytes, 0, keyBytes.length)) {
-                      break;
-                    }
-
+                    iterator.next();
                     count.getAndIncrement();
                   }
                 }));
@@ -291,21 +273,16 @@ final class InMemoryDbColumnFamily<
             ensureInOpenTransaction(
                 context,
                 state -> {
-                  final var seekTargetBuffer = iterationContext.keyWithColumnFamily(seekTarget);
-                  final byte[] seekTargetBytes = seekTargetBuffer.array();
                   final Iterator<Map.Entry<Bytes, Bytes>> iterator =
-                      state.newIterator().seek(seekTargetBytes, seekTargetBytes.length).iterate();
+                      state
+                          .newIterator(columnFamily.ordinal())
+                          .seek(iterationContext.seekKey(seekTarget))
+                          .withPrefix(prefixKey)
+                          .iterate();
 
-                  final byte[] prefixKeyBytes = prefixKey.toBytes();
                   while (iterator.hasNext()) {
                     final Map.Entry<Bytes, Bytes> entry = iterator.next();
 
-                    final byte[] keyBytes = entry.getKey().toBytes();
-                    if (!BufferUtil.startsWith(
-                        prefixKeyBytes, 0, prefixKeyBytes.length, keyBytes, 0, keyBytes.length)) {
-                      continue;
-                    }
-
                     final DirectBuffer keyViewBuffer =
                         FullyQualifiedKey.wrapKey(entry.getKey().toBytes());
 
@@ -0,0 +1,159 @@
+/*
+ * Copyright Camunda Services GmbH and/or licensed to Camunda Services GmbH under
+ * one or more contributor license agreements. See the NOTICE file distributed
+ * with this work for additional information regarding copyright ownership.
+ * Licensed under the Zeebe Community License 1.1. You may not use this file
+ * except in compliance with the Zeebe Community License 1.1.
+ */
+package io.camunda.zeebe.process.test.engine.db;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * The uncommitted changes of a transaction to a single column family.
+ *
+ * <p>Writes and deletes are kept in a single hash map, a delete is stored as {@link #DELETED}
+ * tombstone. Writing a key repeatedly only replaces its value. The keys are sorted only when they
+ * are iterated. Keys added since the last iteration are sorted on their own and merged into the
+ * previously sorted keys, so a transaction which alternates writes and iterations doesn't sort all
+ * of its keys again for every iteration.
+ *
+ * <p>The changes also track by how many entries they change the size of the column family, so that
+ * the entries can be counted without iterating them.
+ */
+final class InMemoryDbColumnFamilyChanges {
+
+  /** Marks a deleted key, compared by identity */
+  static final Bytes DELETED = Bytes.wrapArray(new byte[0]);
+
+  private static final Bytes[] NO_KEYS = new Bytes[0];
+
+  private final int columnFamilyIndex;
+  private final HashMap<Bytes, Bytes> changes = new HashMap<>();
+  private Bytes[] sortedKeys = NO_KEYS;
+  private final List<Bytes> addedKeys = new ArrayList<>();
+  private boolean changed;
+  private long sizeDelta;
+
+  InMemoryDbColumnFamilyChanges(final int columnFamilyIndex) {
+    this.columnFamilyIndex = columnFamilyIndex;
+  }
+
+  /**
+   * @param key the key to look up
+   * @return the changed value, {@link #DELETED} if the key was deleted, or {@code null} if the key
+   *     wasn't changed
+   */
+  Bytes get(final Bytes key) {
+    return changes.get(key);
+  }
+
+  /**
+   * @param fullyQualifiedKey the key to write, it is only copied if it wasn't changed before
+   * @param value the new value
+   * @param exists whether the key is visible to the transaction before the put
+   */
+  void put(final FullyQualifiedKey fullyQualifiedKey, final Bytes value, final boolean exists) {
+    change(fullyQualifiedKey, value);
+    if (!exists) {
+      sizeDelta++;
+    }
+  }
+
+  /**
+   * @param fullyQualifiedKey the key to delete, it is only copied if it wasn't changed before
+   * @param exists whether the key is visible to the transaction before the delete
+   */
+  void delete(final FullyQualifiedKey fullyQualifiedKey, final boolean exists) {
+    change(fullyQualifiedKey, DELETED);
+    if (exists) {
+      sizeDelta--;
+    }
+  }
+
+  /**
+   * @return the number of entries these changes add to the column family, negative if they remove
+   *     more entries than they add
+   */
+  long sizeDelta() {
+    return sizeDelta;
+  }
+
+  /**
+   * @return all changed keys in ascending order, including deleted ones; the array must not be
+   *     modified and is not updated by later changes
+   */
+  Bytes[] sortedKeys() {
+    if (!addedKeys.isEmpty()) {
+      final Bytes[] added = addedKeys.toArray(NO_KEYS);
+      Arrays.sort(added);
+      sortedKeys = merge(sortedKeys, added);
+      addedKeys.clear();
+    }
+    return sortedKeys;
+  }
+
+  /** Applies all changes to the given store, in a single pass */
+  void applyTo(final InMemoryDbStore database) {
+    changes.forEach(
+        (key, value) -> {
+          if (value == DELETED) {
+            database.remove(columnFamilyIndex, key);
+          } else {
+            database.put(columnFamilyIndex, key, value);
+          }
+        });
+  }
+
+  /**
+   * Marks this column family as changed.
+   *
+   * @return {@code true} if it wasn't marked before
+   */
+  boolean markChanged() {
+    if (changed) {
+      return false;
+    }
+    changed = true;
+    return true;
+  }
+
+  void clear() {
+    changes.clear();
+    sortedKeys = NO_KEYS;
+    addedKeys.clear();
+    changed = false;
+    sizeDelta = 0;
+  }
+
+  private void change(final FullyQualifiedKey fullyQualifiedKey, final Bytes value) {
+    // keys are only materialized if they are not yet part of the changes
+    if (changes.replace(fullyQualifiedKey.getKeyBytes(), value) == null) {
+      final Bytes key = fullyQualifiedKey.copyKeyBytes();
+      changes.put(key, value);
+      addedKeys.add(key);
+    }
+  }
+
+  /** Merges two sorted arrays of distinct keys into a new one */
+  private static Bytes[] merge(final Bytes[] left, final Bytes[] right) {
+    final Bytes[] merged = new Bytes[left.length + right.length];
+    int leftIndex = 0;
+    int rightIndex = 0;
+    int mergedIndex = 0;
+    while (leftIndex < left.length && rightIndex < right.length) {
+      if (left[leftIndex].compareTo(right[rightIndex]) < 0) {
+        merged[mergedIndex++] = left[leftIndex++];
+      } else {
+        merged[mergedIndex++] = right[rightIndex++];
+      }
+    }
+    System.arraycopy(left, leftIndex, merged, mergedIndex, left.length - leftIndex);
+    mergedIndex += left.length - leftIndex;
+    System.arraycopy(right, rightIndex, merged, mergedIndex, right.length - rightIndex);
+    return merged;
+  }
+}
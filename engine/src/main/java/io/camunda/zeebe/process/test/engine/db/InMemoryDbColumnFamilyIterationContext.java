@@ -8,54 +8,66 @@
 package io.camunda.zeebe.process.test.engine.db;
 
 import io.camunda.zeebe.db.DbKey;
-import io.camunda.zeebe.db.impl.ZeebeDbConstants;
-import java.nio.ByteBuffer;
-import java.util.ArrayDeque;
-import java.util.List;
-import java.util.Queue;
+import java.util.Arrays;
 import java.util.function.Consumer;
 import org.agrona.ExpandableArrayBuffer;
-import org.agrona.concurrent.UnsafeBuffer;
 
 /**
- * This class allows iterating over a subset of keys in the database. The subset is identified by a
- * common prefix for all keys in that subset. It also implements a recursion guard by checking that
- * iterations can only be nested up to a certain maximum depth.
+ * This class allows iterating over a subset of keys in a column family. The subset is identified
+ * by a common prefix for all keys in that subset.
+ *
+ * <p>Iterations can be nested to any depth. Every depth has its own buffers for the prefix and the
+ * seek key, which are reused by all iterations of that depth. The buffers are created when a depth
+ * is reached for the first time, afterwards iterating doesn't allocate any buffers.
  */
 final class InMemoryDbColumnFamilyIterationContext {
 
-  private final long columnFamilyPrefix;
+  private Depth[] depths = new Depth[0];
+  private int currentDepth = -1;
 
-  private final Queue<ExpandableArrayBuffer> prefixKeyBuffers =
-      new ArrayDeque<>(List.of(new ExpandableArrayBuffer(), new ExpandableArrayBuffer()));
+  /**
+   * Writes the prefix into the buffer of the next depth and passes it to the given consumer. The
+   * passed bytes are only valid until the consumer returns.
+   */
+  void withPrefixKey(final DbKey prefix, final Consumer<Bytes> prefixKeyConsumer) {
+    final Depth depth = enterDepth();
+    try {
+      prefixKeyConsumer.accept(depth.prefixKey.write(prefix));
+    } finally {
+      currentDepth--;
+    }
+  }
 
-  InMemoryDbColumnFamilyIterationContext(final long columnFamilyPrefix) {
-    this.columnFamilyPrefix = columnFamilyPrefix;
+  /**
+   * Writes the key into the seek buffer of the current depth. Must only be called within {@link
+   * #withPrefixKey(DbKey, Consumer)}, the returned bytes are valid until its consumer returns.
+   */
+  Bytes seekKey(final DbKey key) {
+    return depths[currentDepth].seekKey.write(key);
   }
 
-  void withPrefixKey(final DbKey prefix, final Consumer<Bytes> prefixKeyConsumer) {
-    if (prefixKeyBuffers.peek() == null) {
-      throw new IllegalStateException(
-          "Currently nested prefix iterations of this depth are not supported! This will cause unexpected behavior.");
+  private Depth enterDepth() {
+    currentDepth++;
+    if (currentDepth == depths.length) {
+      depths = Arrays.copyOf(depths, depths.length + 1);
+      depths[currentDepth] = new Depth();
     }
+    return depths[currentDepth];
+  }
 
-    final ExpandableArrayBuffer prefixKeyBuffer = prefixKeyBuffers.remove();
-    try {
-      prefixKeyBuffer.putLong(0, columnFamilyPrefix, ZeebeDbConstants.ZB_DB_BYTE_ORDER);
-      prefix.write(prefixKeyBuffer, Long.BYTES);
-      final int prefixLength = Long.BYTES + prefix.getLength();
-      prefixKeyConsumer.accept(Bytes.fromByteArray(prefixKeyBuffer.byteArray(), prefixLength));
-    } finally {
-      prefixKeyBuffers.add(prefixKeyBuffer);
-    }
+  private static final class Depth {
+    private final KeyBuffer prefixKey = new KeyBuffer();
+    private final KeyBuffer seekKey = new KeyBuffer();
   }
 
-  public ByteBuffer keyWithColumnFamily(final DbKey key) {
-    final var bytes = ByteBuffer.allocate(Long.BYTES + key.getLength());
-    final var buffer = new UnsafeBuffer(bytes);
+  private static final class KeyBuffer {
+    private final ExpandableArrayBuffer buffer = new ExpandableArrayBuffer();
+    private final Bytes view = Bytes.probe();
 
-    buffer.putLong(0, columnFamilyPrefix, ZeebeDbConstants.ZB_DB_BYTE_ORDER);
-    key.write(buffer, Long.BYTES);
-    return bytes;
+    private Bytes write(final DbKey key) {
+      key.write(buffer, 0);
+      view.wrap(buffer.byteArray(), key.getLength());
+      return view;
+    }
   }
 }
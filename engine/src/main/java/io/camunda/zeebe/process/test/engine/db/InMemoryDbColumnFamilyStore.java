@@ -0,0 +1,56 @@
+/*
+ * Copyright Camunda Services GmbH and/or licensed to Camunda Services GmbH under
+ * one or more contributor license agreements. See the NOTICE file distributed
+ * with this work for additional information regarding copyright ownership.
+ * Licensed under the Zeebe Community License 1.1. You may not use this file
+ * except in compliance with the Zeebe Community License 1.1.
+ */
+package io.camunda.zeebe.process.test.engine.db;
+
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * Storage of the committed entries of a single column family. Implementations must iterate the
+ * entries in the unsigned lexicographical order of the key bytes, which is the order RocksDB uses.
+ */
+interface InMemoryDbColumnFamilyStore {
+
+  Bytes get(Bytes key);
+
+  boolean containsKey(Bytes key);
+
+  /**
+   * @param key an immutable key, which may be stored by the implementation
+   * @param value the value to store
+   */
+  void put(Bytes key, Bytes value);
+
+  void remove(Bytes key);
+
+  /**
+   * @param key the key which should be stored
+   * @return {@code true} if this store is able to store the given key
+   */
+  default boolean accepts(final Bytes key) {
+    return true;
+  }
+
+  /**
+   * @param startKey the inclusive lower bound, or {@code null} to start at the first entry
+   * @param endKey the exclusive upper bound, or {@code null} to iterate until the last entry
+   * @return an iterator over the entries in the given range
+   */
+  Iterator<Map.Entry<Bytes, Bytes>> iterator(Bytes startKey, Bytes endKey);
+
+  int size();
+
+  /**
+   * @return the number of bytes of all keys and values in this store, which doesn't include the
+   *     overhead of the data structures holding them
+   */
+  long liveBytes();
+
+  /** Releases the resources held by this store; it must not be used afterwards */
+  default void close() {}
+}
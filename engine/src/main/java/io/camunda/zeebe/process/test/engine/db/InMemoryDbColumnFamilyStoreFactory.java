@@ -0,0 +1,90 @@
+/*
+ * Copyright Camunda Services GmbH and/or licensed to Camunda Services GmbH under
+ * one or more contributor license agreements. See the NOTICE file distributed
+ * with this work for additional information regarding copyright ownership.
+ * Licensed under the Zeebe Community License 1.1. You may not use this file
+ * except in compliance with the Zeebe Community License 1.1.
+ */
+package io.camunda.zeebe.process.test.engine.db;
+
+import io.camunda.zeebe.db.DbKey;
+import io.camunda.zeebe.db.impl.DbLong;
+import java.nio.file.Path;
+
+/** Decides how the committed entries of a column family are stored. */
+@FunctionalInterface
+interface InMemoryDbColumnFamilyStoreFactory {
+
+  /**
+   * Keeps column families which are keyed by a single {@link DbLong} in a {@link
+   * InMemoryDbLongKeyStore}, all others in a {@link InMemoryDbTreeMapStore}.
+   */
+  InMemoryDbColumnFamilyStoreFactory HEAP =
+      keyInstance ->
+          keyInstance instanceof DbLong
+              ? new InMemoryDbLongKeyStore()
+              : new InMemoryDbTreeMapStore();
+
+  /** Keeps all column families in a {@link InMemoryDbOffHeapStore}. */
+  InMemoryDbColumnFamilyStoreFactory OFF_HEAP = keyInstance -> new InMemoryDbOffHeapStore();
+
+  /**
+   * Keeps all column families in a {@link InMemoryDbPersistentStore}, which can be forked in
+   * constant time to publish versions of the state.
+   */
+  InMemoryDbColumnFamilyStoreFactory VERSIONED =
+      new InMemoryDbColumnFamilyStoreFactory() {
+        @Override
+        public InMemoryDbVersionedStore create(final DbKey keyInstance) {
+          return new InMemoryDbPersistentStore();
+        }
+
+        @Override
+        public boolean isVersioned() {
+          return true;
+        }
+      };
+
+  /**
+   * Keeps all column families in a {@link InMemoryDbTieredStore}, which spills the least recently
+   * used values to disk once the values of all column families exceed the given number of bytes.
+   *
+   * @param hotBytesLimit the number of value bytes which are kept on the heap
+   * @param spillParentDirectory the directory to create the spill file in, or {@code null} to use
+   *     the default temporary directory
+   * @return a factory whose created stores share one budget and one spill file
+   */
+  static InMemoryDbColumnFamilyStoreFactory tiered(
+      final long hotBytesLimit, final Path spillParentDirectory) {
+    final InMemoryDbTiering tiering = new InMemoryDbTiering(hotBytesLimit, spillParentDirectory);
+    return new InMemoryDbColumnFamilyStoreFactory() {
+      @Override
+      public InMemoryDbColumnFamilyStore create(final DbKey keyInstance) {
+        return new InMemoryDbTieredStore(tiering);
+      }
+
+      @Override
+      public void close() {
+        tiering.close();
+      }
+    };
+  }
+
+  /**
+   * @param keyInstance the key instance the column family is created with, or {@link
+   *     DbNullKey#INSTANCE} if the column family is accessed before it was created
+   * @return a new, empty store for the column family
+   */
+  InMemoryDbColumnFamilyStore create(DbKey keyInstance);
+
+  /**
+   * @return {@code true} if the created stores are {@link InMemoryDbVersionedStore versioned
+   *     stores}, which can be forked
+   */
+  default boolean isVersioned() {
+    return false;
+  }
+
+  /** Releases the resources which are shared by the created stores, after they were closed. */
+  default void close() {}
+}
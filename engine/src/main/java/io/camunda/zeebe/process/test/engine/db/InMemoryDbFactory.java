@@ -26,6 +26,6 @@ public class InMemoryDbFactory<ColumnFamilyType extends Enum<? extends EnumValue
 
   @Override
   public ZeebeDb<ColumnFamilyType> openSnapshotOnlyDb(final File path) {
-    throw new UnsupportedOperationException("Snapshots are not supported with in-memory databases");
+    return InMemoryDb.openSnapshot(path, InMemoryDbColumnFamilyStoreFactory.HEAP);
   }
 }
@@ -7,23 +7,177 @@
  */
 package io.camunda.zeebe.process.test.engine.db;
 
+import java.util.AbstractMap.SimpleImmutableEntry;
 import java.util.Iterator;
 import java.util.Map;
-import java.util.SortedMap;
+import java.util.NoSuchElementException;
 
+/**
+ * Iterator over the entries visible to a transaction. The committed column family and the
+ * uncommitted changes of the transaction are merged lazily, keys that were deleted in the
+ * transaction are masked. Nothing is copied, so the cost of an iteration only depends on the
+ * number of entries that are visited.
+ *
+ * <p>An iteration can be bounded to the keys of a common prefix, in which case only the sub range
+ * of the column family and the changes that contain the prefix is visited.
+ *
+ * <p>The changed keys are sorted when the iteration starts. Values and deletes are looked up when
+ * an entry is visited, which means that changes done by the transaction while iterating are
+ * reflected by the entries that have not been visited yet. Keys which are added by the
+ * transaction while iterating are only visited if they are part of the column family.
+ */
 final class InMemoryDbIterator {
 
-  private final SortedMap<Bytes, Bytes> database;
+  private final InMemoryDbColumnFamilyStore database;
+  private final InMemoryDbColumnFamilyChanges changes;
+  private final Bytes startKey;
+  private final Bytes endKey;
+
+  InMemoryDbIterator(
+      final InMemoryDbColumnFamilyStore database, final InMemoryDbColumnFamilyChanges changes) {
+    this(database, changes, null, null);
+  }
 
-  InMemoryDbIterator(final SortedMap<Bytes, Bytes> database) {
+  private InMemoryDbIterator(
+      final InMemoryDbColumnFamilyStore database,
+      final InMemoryDbColumnFamilyChanges changes,
+      final Bytes startKey,
+      final Bytes endKey) {
     this.database = database;
+    this.changes = changes;
+    this.startKey = startKey;
+    this.endKey = endKey;
+  }
+
+  /**
+   * @param startKey the key to start the iteration at, it is not copied and must not change while
+   *     iterating
+   * @return an iterator which starts at the given key
+   */
+  InMemoryDbIterator seek(final Bytes startKey) {
+    return new InMemoryDbIterator(database, changes, startKey, endKey);
   }
 
-  InMemoryDbIterator seek(final byte[] prefixedKey, final int prefixLength) {
-    return new InMemoryDbIterator(database.tailMap(Bytes.fromByteArray(prefixedKey, prefixLength)));
+  /**
+   * Restricts the iteration to the keys starting with the given prefix. If the iterator was
+   * positioned before the prefix, it is moved to the prefix.
+   *
+   * @param prefix the common prefix of all keys to visit
+   * @return an iterator over the range {@code [max(start, prefix), upperBound(prefix))}
+   */
+  InMemoryDbIterator withPrefix(final Bytes prefix) {
+    final Bytes lowerBound =
+        startKey == null || startKey.compareTo(prefix) < 0 ? prefix : startKey;
+    return new InMemoryDbIterator(database, changes, lowerBound, prefix.exclusiveUpperBound());
   }
 
   Iterator<Map.Entry<Bytes, Bytes>> iterate() {
-    return database.entrySet().iterator();
+    return new MergingIterator(database.iterator(startKey, endKey), changes.sortedKeys());
+  }
+
+  private final class MergingIterator implements Iterator<Map.Entry<Bytes, Bytes>> {
+
+    private final Iterator<Map.Entry<Bytes, Bytes>> databaseIterator;
+    private final Bytes[] changedKeys;
+    private int changedKeyIndex;
+    private Map.Entry<Bytes, Bytes> nextDatabaseEntry;
+    private Map.Entry<Bytes, Bytes> nextEntry;
+
+    private MergingIterator(
+        final Iterator<Map.Entry<Bytes, Bytes>> databaseIterator, final Bytes[] changedKeys) {
+      this.databaseIterator = databaseIterator;
+      this.changedKeys = changedKeys;
+      changedKeyIndex = startKey == null ? 0 : lowerBound(changedKeys, startKey);
+    }
+
+    @Override
+    public boolean hasNext() {
+      if (nextEntry == null) {
+        nextEntry = findNext();
+      }
+      return nextEntry != null;
+    }
+
+    @Override
+    public Map.Entry<Bytes, Bytes> next() {
+      if (!hasNext()) {
+        throw new NoSuchElementException();
+      }
+      final Map.Entry<Bytes, Bytes> entry = nextEntry;
+      nextEntry = null;
+      return entry;
+    }
+
+    private Map.Entry<Bytes, Bytes> findNext() {
+      while (true) {
+        final Map.Entry<Bytes, Bytes> databaseEntry = peekDatabaseEntry();
+        final Bytes changedKey = peekChangedKey();
+        if (databaseEntry == null && changedKey == null) {
+          return null;
+        }
+
+        final int result;
+        if (databaseEntry == null) {
+          result = 1;
+        } else if (changedKey == null) {
+          result = -1;
+        } else {
+          result = databaseEntry.getKey().compareTo(changedKey);
+        }
+
+        if (result < 0) {
+          // the key may have been changed after the iteration started
+          nextDatabaseEntry = null;
+          final Bytes change = changes.get(databaseEntry.getKey());
+          if (change == null) {
+            return databaseEntry;
+          } else if (change != InMemoryDbColumnFamilyChanges.DELETED) {
+            return new SimpleImmutableEntry<>(databaseEntry.getKey(), change);
+          }
+        } else {
+          changedKeyIndex++;
+          if (result == 0) {
+            nextDatabaseEntry = null;
+          }
+          final Bytes change = changes.get(changedKey);
+          if (change != null && change != InMemoryDbColumnFamilyChanges.DELETED) {
+            return new SimpleImmutableEntry<>(changedKey, change);
+          }
+        }
+      }
+    }
+
+    private Map.Entry<Bytes, Bytes> peekDatabaseEntry() {
+      if (nextDatabaseEntry == null && databaseIterator.hasNext()) {
+        nextDatabaseEntry = databaseIterator.next();
+      }
+      return nextDatabaseEntry;
+    }
+
+    private Bytes peekChangedKey() {
+      if (changedKeyIndex >= changedKeys.length) {
+        return null;
+      }
+
+      final Bytes changedKey = changedKeys[changedKeyIndex];
+      return endKey == null || changedKey.compareTo(endKey) < 0 ? changedKey : null;
+    }
+  }
+
+  /**
+   * @return the index of the first key which is greater or equal to the given bound
+   */
+  private static int lowerBound(final Bytes[] keys, final Bytes bound) {
+    int low = 0;
+    int high = keys.length;
+    while (low < high) {
+      final int middle = (low + high) >>> 1;
+      if (keys[middle].compareTo(bound) < 0) {
+        low = middle + 1;
+      } else {
+        high = middle;
+      }
+    }
+    return low;
   }
 }
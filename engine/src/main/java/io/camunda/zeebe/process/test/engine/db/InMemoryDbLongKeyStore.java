@@ -0,0 +1,245 @@
+/*
+ * Copyright Camunda Services GmbH and/or licensed to Camunda Services GmbH under
+ * one or more contributor license agreements. See the NOTICE file distributed
+ * with this work for additional information regarding copyright ownership.
+ * Licensed under the Zeebe Community License 1.1. You may not use this file
+ * except in compliance with the Zeebe Community License 1.1.
+ */
+package io.camunda.zeebe.process.test.engine.db;
+
+import java.util.AbstractMap.SimpleImmutableEntry;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import org.agrona.collections.Long2ObjectHashMap;
+
+/**
+ * Column family store for column families which are keyed by a single {@code DbLong}. The keys are
+ * kept as primitive longs instead of serialized byte arrays.
+ *
+ * <p>Point lookups go to a primitive hash map. For iteration, the keys are additionally kept in a
+ * sorted array, ordered by their unsigned value. As the keys are serialized in big endian byte
+ * order, this is the same order as the unsigned lexicographical order of the key bytes. Zeebe keys
+ * are mostly increasing, so inserting usually appends to the array. Removed keys stay in the array
+ * until more than half of it is stale, at which point it is compacted.
+ */
+final class InMemoryDbLongKeyStore implements InMemoryDbColumnFamilyStore {
+
+  private static final int MIN_COMPACTION_SIZE = 64;
+
+  private final Long2ObjectHashMap<Bytes> values = new Long2ObjectHashMap<>();
+  private long[] sortedKeys = new long[16];
+  private int sortedKeyCount;
+  private long liveBytes;
+
+  @Override
+  public Bytes get(final Bytes key) {
+    return accepts(key) ? values.get(toLong(key)) : null;
+  }
+
+  @Override
+  public boolean containsKey(final Bytes key) {
+    return accepts(key) && values.containsKey(toLong(key));
+  }
+
+  @Override
+  public void put(final Bytes key, final Bytes value) {
+    final long longKey = toLong(key);
+    final Bytes previous = values.put(longKey, value);
+    if (previous == null) {
+      addSortedKey(longKey);
+      liveBytes += Long.BYTES + value.length();
+    } else {
+      liveBytes += value.length() - previous.length();
+    }
+  }
+
+  @Override
+  public void remove(final Bytes key) {
+    if (!accepts(key)) {
+      return;
+    }
+
+    final Bytes previous = values.remove(toLong(key));
+    if (previous != null) {
+      liveBytes -= Long.BYTES + previous.length();
+      compactIfNecessary();
+    }
+  }
+
+  @Override
+  public boolean accepts(final Bytes key) {
+    return key.length() == Long.BYTES;
+  }
+
+  @Override
+  public Iterator<Map.Entry<Bytes, Bytes>> iterator(final Bytes startKey, final Bytes endKey) {
+    final int startIndex = startKey == null ? 0 : lowerBound(startKey);
+    return new SortedKeyIterator(startIndex, endKey);
+  }
+
+  @Override
+  public int size() {
+    return values.size();
+  }
+
+  @Override
+  public long liveBytes() {
+    return liveBytes;
+  }
+
+  private void addSortedKey(final long key) {
+    if (sortedKeyCount == 0 || Long.compareUnsigned(key, sortedKeys[sortedKeyCount - 1]) > 0) {
+      ensureCapacity();
+      sortedKeys[sortedKeyCount++] = key;
+      return;
+    }
+
+    final int index = binarySearch(key);
+    if (index >= 0) {
+      // the key was removed before, but is still part of the sorted keys
+      return;
+    }
+
+    final int insertionPoint = -(index + 1);
+    ensureCapacity();
+    System.arraycopy(
+        sortedKeys,
+        insertionPoint,
+        sortedKeys,
+        insertionPoint + 1,
+        sortedKeyCount - insertionPoint);
+    sortedKeys[insertionPoint] = key;
+    sortedKeyCount++;
+  }
+
+  private void ensureCapacity() {
+    if (sortedKeyCount == sortedKeys.length) {
+      sortedKeys = Arrays.copyOf(sortedKeys, sortedKeys.length * 2);
+    }
+  }
+
+  private void compactIfNecessary() {
+    if (sortedKeyCount < MIN_COMPACTION_SIZE || values.size() * 2 > sortedKeyCount) {
+      return;
+    }
+
+    int liveKeyCount = 0;
+    for (int i = 0; i < sortedKeyCount; i++) {
+      if (values.containsKey(sortedKeys[i])) {
+        sortedKeys[liveKeyCount++] = sortedKeys[i];
+      }
+    }
+    sortedKeyCount = liveKeyCount;
+  }
+
+  /**
+   * @return the index of the key in the sorted keys, or {@code -(insertion point) - 1} if the key
+   *     is not part of them
+   */
+  private int binarySearch(final long key) {
+    int low = 0;
+    int high = sortedKeyCount - 1;
+    while (low <= high) {
+      final int middle = (low + high) >>> 1;
+      final int result = Long.compareUnsigned(sortedKeys[middle], key);
+      if (result < 0) {
+        low = middle + 1;
+      } else if (result > 0) {
+        high = middle - 1;
+      } else {
+        return middle;
+      }
+    }
+    return -(low + 1);
+  }
+
+  /**
+   * @return the index of the first sorted key which is greater or equal to the given bound
+   */
+  private int lowerBound(final Bytes bound) {
+    int low = 0;
+    int high = sortedKeyCount;
+    while (low < high) {
+      final int middle = (low + high) >>> 1;
+      if (compare(sortedKeys[middle], bound) < 0) {
+        low = middle + 1;
+      } else {
+        high = middle;
+      }
+    }
+    return low;
+  }
+
+  /** Compares the big endian bytes of the given key with the bound, without serializing the key */
+  private static int compare(final long key, final Bytes bound) {
+    final byte[] boundBytes = bound.toBytes();
+    final int length = Math.min(Long.BYTES, bound.length());
+    for (int i = 0; i < length; i++) {
+      final int keyByte = (int) (key >>> (Long.SIZE - Byte.SIZE * (i + 1))) & 0xFF;
+      final int result = Integer.compare(keyByte, boundBytes[i] & 0xFF);
+      if (result != 0) {
+        return result;
+      }
+    }
+    return Integer.compare(Long.BYTES, bound.length());
+  }
+
+  private static long toLong(final Bytes key) {
+    final byte[] bytes = key.toBytes();
+    long value = 0;
+    for (int i = 0; i < Long.BYTES; i++) {
+      value = (value << Byte.SIZE) | (bytes[i] & 0xFF);
+    }
+    return value;
+  }
+
+  private static Bytes toBytes(final long key) {
+    final byte[] bytes = new byte[Long.BYTES];
+    for (int i = 0; i < Long.BYTES; i++) {
+      bytes[i] = (byte) (key >>> (Long.SIZE - Byte.SIZE * (i + 1)));
+    }
+    return Bytes.wrapArray(bytes);
+  }
+
+  private final class SortedKeyIterator implements Iterator<Map.Entry<Bytes, Bytes>> {
+
+    private final Bytes endKey;
+    private int index;
+    private Map.Entry<Bytes, Bytes> nextEntry;
+
+    private SortedKeyIterator(final int startIndex, final Bytes endKey) {
+      index = startIndex;
+      this.endKey = endKey;
+    }
+
+    @Override
+    public boolean hasNext() {
+      while (nextEntry == null && index < sortedKeyCount) {
+        final long key = sortedKeys[index];
+        if (endKey != null && compare(key, endKey) >= 0) {
+          index = sortedKeyCount;
+          break;
+        }
+
+        index++;
+        final Bytes value = values.get(key);
+        if (value != null) {
+          nextEntry = new SimpleImmutableEntry<>(toBytes(key), value);
+        }
+      }
+      return nextEntry != null;
+    }
+
+    @Override
+    public Map.Entry<Bytes, Bytes> next() {
+      if (!hasNext()) {
+        throw new NoSuchElementException();
+      }
+      final Map.Entry<Bytes, Bytes> entry = nextEntry;
+      nextEntry = null;
+      return entry;
+    }
+  }
+}
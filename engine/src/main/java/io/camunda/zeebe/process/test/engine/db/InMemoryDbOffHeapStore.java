@@ -0,0 +1,371 @@
+/*
+ * Copyright Camunda Services GmbH and/or licensed to Camunda Services GmbH under
+ * one or more contributor license agreements. See the NOTICE file distributed
+ * with this work for additional information regarding copyright ownership.
+ * Licensed under the Zeebe Community License 1.1. You may not use this file
+ * except in compliance with the Zeebe Community License 1.1.
+ */
+package io.camunda.zeebe.process.test.engine.db;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.util.AbstractMap.SimpleImmutableEntry;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import org.agrona.BufferUtil;
+import org.agrona.IoUtil;
+import org.agrona.concurrent.UnsafeBuffer;
+
+/**
+ * Column family store which keeps keys and values off heap, so that a large state doesn't put
+ * millions of small objects on the heap.
+ *
+ * <p>Entries are appended to an arena, a direct buffer with the layout {@code [key length][value
+ * length][key][value]} per entry. A sorted index of the entry offsets is kept on heap as a single
+ * {@code int[]}. Updating a value with one of the same length overwrites it in place, otherwise the
+ * entry is appended again. Space of removed or replaced entries is reclaimed by compacting the
+ * arena, once more than half of it is garbage or when it runs full.
+ *
+ * <p>Keys and values are copied to the heap when they are read.
+ *
+ * <p>The arena has the same layout as a column family section of a snapshot, see {@link
+ * InMemoryDbSnapshot}. A store can therefore be restored by wrapping the memory mapped section
+ * without reading it. Such a store is read only until its first write, which copies the mapped
+ * section into a new arena.
+ */
+final class InMemoryDbOffHeapStore implements InMemoryDbColumnFamilyStore {
+
+  private static final int INITIAL_ARENA_CAPACITY = 64 * 1024;
+  private static final int MAX_ARENA_CAPACITY = Integer.MAX_VALUE;
+  private static final int ENTRY_HEADER_LENGTH = 2 * Integer.BYTES;
+  private static final int KEY_LENGTH_OFFSET = 0;
+  private static final int VALUE_LENGTH_OFFSET = Integer.BYTES;
+  private static final ByteOrder BYTE_ORDER = ByteOrder.BIG_ENDIAN;
+
+  private UnsafeBuffer arena;
+  private MappedByteBuffer mappedSection;
+  private int arenaLength;
+  private int garbageLength;
+
+  private int[] sortedOffsets = new int[16];
+  private int entryCount;
+
+  InMemoryDbOffHeapStore() {
+    this(allocateArena(INITIAL_ARENA_CAPACITY), null);
+  }
+
+  private InMemoryDbOffHeapStore(final UnsafeBuffer arena, final MappedByteBuffer mappedSection) {
+    this.arena = arena;
+    this.mappedSection = mappedSection;
+  }
+
+  /**
+   * Creates a store which reads its entries from the given memory mapped snapshot section, without
+   * copying them.
+   *
+   * @param section the mapped entries, in key order
+   * @param entryCount the number of entries in the section
+   * @return the restored store
+   * @throws IOException if the entries don't fill the section exactly, the section is unmapped then
+   */
+  static InMemoryDbOffHeapStore wrapSnapshotSection(
+      final MappedByteBuffer section, final int entryCount) throws IOException {
+    final InMemoryDbOffHeapStore store =
+        new InMemoryDbOffHeapStore(new UnsafeBuffer(section), section);
+    store.arenaLength = section.capacity();
+    store.sortedOffsets = new int[Math.max(entryCount, 16)];
+
+    long offset = 0;
+    for (int i = 0; i < entryCount; i++) {
+      if (offset > store.arenaLength - ENTRY_HEADER_LENGTH) {
+        throw store.corruptSnapshotSection(entryCount);
+      }
+      store.sortedOffsets[i] = (int) offset;
+      final int keyLength = store.keyLength((int) offset);
+      final int valueLength = store.valueLength((int) offset);
+      if (keyLength < 0 || valueLength < 0) {
+        throw store.corruptSnapshotSection(entryCount);
+      }
+      offset += ENTRY_HEADER_LENGTH + (long) keyLength + valueLength;
+    }
+    if (offset != store.arenaLength) {
+      throw store.corruptSnapshotSection(entryCount);
+    }
+    store.entryCount = entryCount;
+    return store;
+  }
+
+  @Override
+  public Bytes get(final Bytes key) {
+    final int index = indexOf(key);
+    return index >= 0 ? readValue(sortedOffsets[index]) : null;
+  }
+
+  @Override
+  public boolean containsKey(final Bytes key) {
+    return indexOf(key) >= 0;
+  }
+
+  @Override
+  public void put(final Bytes key, final Bytes value) {
+    ensureWritable();
+    final int index = indexOf(key);
+    if (index >= 0) {
+      final int offset = sortedOffsets[index];
+      if (valueLength(offset) == value.length()) {
+        arena.putBytes(valueOffset(offset), value.toBytes(), 0, value.length());
+      } else {
+        // appending may compact the arena and move the replaced entry
+        final int newOffset = append(key, value);
+        garbageLength += entryLength(sortedOffsets[index]);
+        sortedOffsets[index] = newOffset;
+      }
+      return;
+    }
+
+    final int insertionPoint = -(index + 1);
+    final int offset = append(key, value);
+    if (entryCount == sortedOffsets.length) {
+      sortedOffsets = Arrays.copyOf(sortedOffsets, sortedOffsets.length * 2);
+    }
+    System.arraycopy(
+        sortedOffsets,
+        insertionPoint,
+        sortedOffsets,
+        insertionPoint + 1,
+        entryCount - insertionPoint);
+    sortedOffsets[insertionPoint] = offset;
+    entryCount++;
+  }
+
+  @Override
+  public void remove(final Bytes key) {
+    final int index = indexOf(key);
+    if (index < 0) {
+      return;
+    }
+
+    ensureWritable();
+    garbageLength += entryLength(sortedOffsets[index]);
+    System.arraycopy(sortedOffsets, index + 1, sortedOffsets, index, entryCount - index - 1);
+    entryCount--;
+
+    if (garbageLength > INITIAL_ARENA_CAPACITY && garbageLength * 2 > arenaLength) {
+      compact(arena.capacity());
+    }
+  }
+
+  @Override
+  public Iterator<Map.Entry<Bytes, Bytes>> iterator(final Bytes startKey, final Bytes endKey) {
+    final int startIndex;
+    if (startKey == null) {
+      startIndex = 0;
+    } else {
+      final int index = indexOf(startKey);
+      startIndex = index >= 0 ? index : -(index + 1);
+    }
+    return new SortedOffsetIterator(startIndex, endKey);
+  }
+
+  @Override
+  public int size() {
+    return entryCount;
+  }
+
+  @Override
+  public long liveBytes() {
+    return arenaLength - garbageLength - (long) entryCount * ENTRY_HEADER_LENGTH;
+  }
+
+  @Override
+  public void close() {
+    releaseArena();
+    arena = allocateArena(0);
+    arenaLength = 0;
+    garbageLength = 0;
+    entryCount = 0;
+  }
+
+  /** Copies a mapped snapshot section into an arena of its own, before the first write */
+  private void ensureWritable() {
+    if (mappedSection != null) {
+      compact(Math.max(INITIAL_ARENA_CAPACITY, arenaCapacity(arenaLength)));
+    }
+  }
+
+  private IOException corruptSnapshotSection(final int expectedEntryCount) {
+    final int sectionLength = arenaLength;
+    releaseArena();
+    return new IOException(
+        String.format(
+            "Expected snapshot section of %d bytes to hold exactly %d entries, but it doesn't",
+            sectionLength, expectedEntryCount));
+  }
+
+  private void releaseArena() {
+    if (mappedSection != null) {
+      IoUtil.unmap(mappedSection);
+      mappedSection = null;
+    } else {
+      BufferUtil.free(arena.byteBuffer());
+    }
+  }
+
+  private int append(final Bytes key, final Bytes value) {
+    final int length = ENTRY_HEADER_LENGTH + key.length() + value.length();
+    if ((long) arenaLength + length > arena.capacity()) {
+      final long liveLength = arenaLength - garbageLength;
+      compact(Math.max(arena.capacity(), arenaCapacity(liveLength + length)));
+    }
+
+    final int offset = arenaLength;
+    arena.putInt(offset + KEY_LENGTH_OFFSET, key.length(), BYTE_ORDER);
+    arena.putInt(offset + VALUE_LENGTH_OFFSET, value.length(), BYTE_ORDER);
+    arena.putBytes(offset + ENTRY_HEADER_LENGTH, key.toBytes(), 0, key.length());
+    arena.putBytes(valueOffset(offset), value.toBytes(), 0, value.length());
+    arenaLength += length;
+    return offset;
+  }
+
+  /** Copies all live entries into a new arena of the given capacity, in key order */
+  private void compact(final int capacity) {
+    final UnsafeBuffer compacted = allocateArena(capacity);
+    int compactedLength = 0;
+    for (int i = 0; i < entryCount; i++) {
+      final int offset = sortedOffsets[i];
+      final int length = entryLength(offset);
+      compacted.putBytes(compactedLength, arena, offset, length);
+      sortedOffsets[i] = compactedLength;
+      compactedLength += length;
+    }
+
+    releaseArena();
+    arena = compacted;
+    arenaLength = compactedLength;
+    garbageLength = 0;
+  }
+
+  /**
+   * @return the index of the key in the sorted offsets, or {@code -(insertion point) - 1} if the
+   *     key is not part of them
+   */
+  private int indexOf(final Bytes key) {
+    int low = 0;
+    int high = entryCount - 1;
+    while (low <= high) {
+      final int middle = (low + high) >>> 1;
+      final int result = compareKey(sortedOffsets[middle], key);
+      if (result < 0) {
+        low = middle + 1;
+      } else if (result > 0) {
+        high = middle - 1;
+      } else {
+        return middle;
+      }
+    }
+    return -(low + 1);
+  }
+
+  /** Compares the key of the entry at the given offset with the given key, without copying it */
+  private int compareKey(final int offset, final Bytes key) {
+    final int keyLength = keyLength(offset);
+    final int keyOffset = offset + ENTRY_HEADER_LENGTH;
+    final byte[] otherBytes = key.toBytes();
+    final int length = Math.min(keyLength, key.length());
+    for (int i = 0; i < length; i++) {
+      final int result =
+          Integer.compare(arena.getByte(keyOffset + i) & 0xFF, otherBytes[i] & 0xFF);
+      if (result != 0) {
+        return result;
+      }
+    }
+    return Integer.compare(keyLength, key.length());
+  }
+
+  private Bytes readKey(final int offset) {
+    final byte[] key = new byte[keyLength(offset)];
+    arena.getBytes(offset + ENTRY_HEADER_LENGTH, key);
+    return Bytes.wrapArray(key);
+  }
+
+  private Bytes readValue(final int offset) {
+    final byte[] value = new byte[valueLength(offset)];
+    arena.getBytes(valueOffset(offset), value);
+    return Bytes.wrapArray(value);
+  }
+
+  private int keyLength(final int offset) {
+    return arena.getInt(offset + KEY_LENGTH_OFFSET, BYTE_ORDER);
+  }
+
+  private int valueLength(final int offset) {
+    return arena.getInt(offset + VALUE_LENGTH_OFFSET, BYTE_ORDER);
+  }
+
+  private int valueOffset(final int offset) {
+    return offset + ENTRY_HEADER_LENGTH + keyLength(offset);
+  }
+
+  private int entryLength(final int offset) {
+    return ENTRY_HEADER_LENGTH + keyLength(offset) + valueLength(offset);
+  }
+
+  /**
+   * @return the next power of two which is larger than the required length, capped to the largest
+   *     possible buffer
+   * @throws IllegalStateException if the required length doesn't fit into a single buffer
+   */
+  static int arenaCapacity(final long requiredLength) {
+    if (requiredLength > MAX_ARENA_CAPACITY) {
+      throw new IllegalStateException(
+          "Expected column family to fit into "
+              + MAX_ARENA_CAPACITY
+              + " bytes, but it requires "
+              + requiredLength
+              + " bytes");
+    }
+    return (int) Math.min(MAX_ARENA_CAPACITY, Long.highestOneBit(requiredLength) << 1);
+  }
+
+  private static UnsafeBuffer allocateArena(final int capacity) {
+    return new UnsafeBuffer(ByteBuffer.allocateDirect(capacity));
+  }
+
+  private final class SortedOffsetIterator implements Iterator<Map.Entry<Bytes, Bytes>> {
+
+    private final Bytes endKey;
+    private int index;
+    private Map.Entry<Bytes, Bytes> nextEntry;
+
+    private SortedOffsetIterator(final int startIndex, final Bytes endKey) {
+      index = startIndex;
+      this.endKey = endKey;
+    }
+
+    @Override
+    public boolean hasNext() {
+      if (nextEntry == null && index < entryCount) {
+        final int offset = sortedOffsets[index];
+        if (endKey == null || compareKey(offset, endKey) < 0) {
+          nextEntry = new SimpleImmutableEntry<>(readKey(offset), readValue(offset));
+          index++;
+        }
+      }
+      return nextEntry != null;
+    }
+
+    @Override
+    public Map.Entry<Bytes, Bytes> next() {
+      if (!hasNext()) {
+        throw new NoSuchElementException();
+      }
+      final Map.Entry<Bytes, Bytes> entry = nextEntry;
+      nextEntry = null;
+      return entry;
+    }
+  }
+}
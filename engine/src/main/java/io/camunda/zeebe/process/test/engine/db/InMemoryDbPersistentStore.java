@@ -0,0 +1,260 @@
+/*
+ * Copyright Camunda Services GmbH and/or licensed to Camunda Services GmbH under
+ * one or more contributor license agreements. See the NOTICE file distributed
+ * with this work for additional information regarding copyright ownership.
+ * Licensed under the Zeebe Community License 1.1. You may not use this file
+ * except in compliance with the Zeebe Community License 1.1.
+ */
+package io.camunda.zeebe.process.test.engine.db;
+
+import java.util.AbstractMap.SimpleImmutableEntry;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+/**
+ * Column family store backed by a persistent sorted map, an AVL tree whose nodes are never
+ * modified. A write copies the path from the root to the changed node and shares all other nodes
+ * with the previous tree.
+ *
+ * <p>This makes {@link #fork()} a constant time operation: the fork starts with the same tree, and
+ * neither store sees the writes of the other one. Because the nodes are immutable, a fork can be
+ * read on another thread while this store is written, as long as it was safely published.
+ */
+final class InMemoryDbPersistentStore implements InMemoryDbVersionedStore {
+
+  private Node root;
+  private int size;
+  private long liveBytes;
+  private boolean sizeChanged;
+
+  InMemoryDbPersistentStore() {
+    this(null, 0, 0);
+  }
+
+  private InMemoryDbPersistentStore(final Node root, final int size, final long liveBytes) {
+    this.root = root;
+    this.size = size;
+    this.liveBytes = liveBytes;
+  }
+
+  @Override
+  public Bytes get(final Bytes key) {
+    final Node node = find(key);
+    return node != null ? node.value : null;
+  }
+
+  @Override
+  public boolean containsKey(final Bytes key) {
+    return find(key) != null;
+  }
+
+  @Override
+  public void put(final Bytes key, final Bytes value) {
+    sizeChanged = false;
+    root = put(root, key, value);
+    if (sizeChanged) {
+      size++;
+    }
+  }
+
+  @Override
+  public void remove(final Bytes key) {
+    sizeChanged = false;
+    root = remove(root, key);
+    if (sizeChanged) {
+      size--;
+    }
+  }
+
+  @Override
+  public Iterator<Map.Entry<Bytes, Bytes>> iterator(final Bytes startKey, final Bytes endKey) {
+    return new NodeIterator(root, startKey, endKey);
+  }
+
+  @Override
+  public int size() {
+    return size;
+  }
+
+  @Override
+  public long liveBytes() {
+    return liveBytes;
+  }
+
+  @Override
+  public InMemoryDbVersionedStore fork() {
+    return new InMemoryDbPersistentStore(root, size, liveBytes);
+  }
+
+  private Node find(final Bytes key) {
+    Node node = root;
+    while (node != null) {
+      final int result = key.compareTo(node.key);
+      if (result < 0) {
+        node = node.left;
+      } else if (result > 0) {
+        node = node.right;
+      } else {
+        return node;
+      }
+    }
+    return null;
+  }
+
+  private Node put(final Node node, final Bytes key, final Bytes value) {
+    if (node == null) {
+      sizeChanged = true;
+      liveBytes += key.length() + value.length();
+      return new Node(key, value, null, null);
+    }
+
+    final int result = key.compareTo(node.key);
+    if (result < 0) {
+      return balance(node.key, node.value, put(node.left, key, value), node.right);
+    } else if (result > 0) {
+      return balance(node.key, node.value, node.left, put(node.right, key, value));
+    }
+    liveBytes += value.length() - node.value.length();
+    return new Node(node.key, value, node.left, node.right);
+  }
+
+  private Node remove(final Node node, final Bytes key) {
+    if (node == null) {
+      return null;
+    }
+
+    final int result = key.compareTo(node.key);
+    if (result < 0) {
+      final Node left = remove(node.left, key);
+      return left == node.left ? node : balance(node.key, node.value, left, node.right);
+    } else if (result > 0) {
+      final Node right = remove(node.right, key);
+      return right == node.right ? node : balance(node.key, node.value, node.left, right);
+    }
+
+    sizeChanged = true;
+    liveBytes -= node.key.length() + node.value.length();
+    if (node.left == null) {
+      return node.right;
+    } else if (node.right == null) {
+      return node.left;
+    }
+
+    Node successor = node.right;
+    while (successor.left != null) {
+      successor = successor.left;
+    }
+    return balance(successor.key, successor.value, node.left, removeFirst(node.right));
+  }
+
+  private static Node removeFirst(final Node node) {
+    if (node.left == null) {
+      return node.right;
+    }
+    return balance(node.key, node.value, removeFirst(node.left), node.right);
+  }
+
+  /**
+   * Creates a node with the given children, rotating them if their heights differ by more than
+   * one. After a single put or remove, the heights of the children differ by at most two.
+   */
+  private static Node balance(
+      final Bytes key, final Bytes value, final Node left, final Node right) {
+    final int leftHeight = height(left);
+    final int rightHeight = height(right);
+
+    if (leftHeight > rightHeight + 1) {
+      if (height(left.left) >= height(left.right)) {
+        return new Node(
+            left.key, left.value, left.left, new Node(key, value, left.right, right));
+      }
+      final Node pivot = left.right;
+      return new Node(
+          pivot.key,
+          pivot.value,
+          new Node(left.key, left.value, left.left, pivot.left),
+          new Node(key, value, pivot.right, right));
+    }
+
+    if (rightHeight > leftHeight + 1) {
+      if (height(right.right) >= height(right.left)) {
+        return new Node(
+            right.key, right.value, new Node(key, value, left, right.left), right.right);
+      }
+      final Node pivot = right.left;
+      return new Node(
+          pivot.key,
+          pivot.value,
+          new Node(key, value, left, pivot.left),
+          new Node(right.key, right.value, pivot.right, right.right));
+    }
+
+    return new Node(key, value, left, right);
+  }
+
+  private static int height(final Node node) {
+    return node != null ? node.height : 0;
+  }
+
+  private static final class Node {
+
+    private final Bytes key;
+    private final Bytes value;
+    private final Node left;
+    private final Node right;
+    private final int height;
+
+    private Node(final Bytes key, final Bytes value, final Node left, final Node right) {
+      this.key = key;
+      this.value = value;
+      this.left = left;
+      this.right = right;
+      height = Math.max(height(left), height(right)) + 1;
+    }
+  }
+
+  /** In order iterator over the tree it was created with, later writes are not visible to it */
+  private static final class NodeIterator implements Iterator<Map.Entry<Bytes, Bytes>> {
+
+    private final Deque<Node> path = new ArrayDeque<>();
+    private final Bytes endKey;
+
+    private NodeIterator(final Node root, final Bytes startKey, final Bytes endKey) {
+      this.endKey = endKey;
+
+      Node node = root;
+      while (node != null) {
+        if (startKey == null || node.key.compareTo(startKey) >= 0) {
+          path.push(node);
+          node = node.left;
+        } else {
+          node = node.right;
+        }
+      }
+    }
+
+    @Override
+    public boolean hasNext() {
+      final Node next = path.peek();
+      return next != null && (endKey == null || next.key.compareTo(endKey) < 0);
+    }
+
+    @Override
+    public Map.Entry<Bytes, Bytes> next() {
+      if (!hasNext()) {
+        throw new NoSuchElementException();
+      }
+
+      final Node node = path.pop();
+      Node child = node.right;
+      while (child != null) {
+        path.push(child);
+        child = child.left;
+      }
+      return new SimpleImmutableEntry<>(node.key, node.value);
+    }
+  }
+}
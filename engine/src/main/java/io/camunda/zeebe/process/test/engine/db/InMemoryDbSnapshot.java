@@ -0,0 +1,239 @@
+/*
+ * Copyright Camunda Services GmbH and/or licensed to Camunda Services GmbH under
+ * one or more contributor license agreements. See the NOTICE file distributed
+ * with this work for additional information regarding copyright ownership.
+ * Licensed under the Zeebe Community License 1.1. You may not use this file
+ * except in compliance with the Zeebe Community License 1.1.
+ */
+package io.camunda.zeebe.process.test.engine.db;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reads and writes snapshots of the committed state of an {@link InMemoryDbStore}.
+ *
+ * <p>A snapshot is a single file, written sequentially. All numbers are big endian.
+ *
+ * <pre>
+ * snapshot := magic:int version:int sectionCount:int section*
+ * section  := columnFamily:int entryCount:int sectionLength:long entry*
+ * entry    := keyLength:int valueLength:int key:byte[keyLength] value:byte[valueLength]
+ * </pre>
+ *
+ * <p>The snapshot is written into a temporary file first, which is moved into place once it is
+ * complete. A failed write therefore never leaves a truncated snapshot behind.
+ *
+ * <p>The entries of a section are sorted by key. On restore, every section is memory mapped and
+ * wrapped by a {@link InMemoryDbOffHeapStore}, the entries are not read until they are accessed.
+ */
+final class InMemoryDbSnapshot {
+
+  static final String SNAPSHOT_FILE_NAME = "in-memory-db.snapshot";
+  private static final String TEMPORARY_FILE_NAME = SNAPSHOT_FILE_NAME + ".tmp";
+
+  private static final int MAGIC = 0x5A424442; // "ZBDB"
+  private static final int VERSION = 1;
+  private static final int HEADER_LENGTH = 3 * Integer.BYTES;
+  private static final int SECTION_HEADER_LENGTH = 2 * Integer.BYTES + Long.BYTES;
+  private static final int ENTRY_HEADER_LENGTH = 2 * Integer.BYTES;
+
+  private InMemoryDbSnapshot() {}
+
+  /**
+   * Writes the committed state of the given store into a new snapshot in the given directory.
+   *
+   * @param database the store to take the snapshot of
+   * @param snapshotDir the directory of the snapshot, it is created if it doesn't exist
+   * @throws IOException if the snapshot can't be written
+   */
+  static void write(final InMemoryDbStore database, final File snapshotDir) throws IOException {
+    final Path directory = Files.createDirectories(snapshotDir.toPath());
+    final Path snapshotFile = directory.resolve(SNAPSHOT_FILE_NAME);
+    if (Files.exists(snapshotFile)) {
+      throw new FileAlreadyExistsException(snapshotFile.toString());
+    }
+
+    // validate all sections before anything is written
+    final List<Section> sections = new ArrayList<>();
+    for (int i = 0; i < database.columnFamilyCount(); i++) {
+      final InMemoryDbColumnFamilyStore columnFamily = database.existingColumnFamily(i);
+      if (columnFamily != null && columnFamily.size() > 0) {
+        sections.add(measureSection(i, columnFamily));
+      }
+    }
+
+    final Path temporaryFile = directory.resolve(TEMPORARY_FILE_NAME);
+    try {
+      try (final OutputStream fileOutput =
+              Files.newOutputStream(
+                  temporaryFile,
+                  StandardOpenOption.CREATE,
+                  StandardOpenOption.TRUNCATE_EXISTING,
+                  StandardOpenOption.WRITE);
+          final DataOutputStream output =
+              new DataOutputStream(new BufferedOutputStream(fileOutput, 64 * 1024))) {
+        output.writeInt(MAGIC);
+        output.writeInt(VERSION);
+        output.writeInt(sections.size());
+
+        for (final Section section : sections) {
+          writeSection(output, section, database.existingColumnFamily(section.columnFamilyIndex()));
+        }
+      }
+      Files.move(temporaryFile, snapshotFile, StandardCopyOption.ATOMIC_MOVE);
+    } catch (final IOException | RuntimeException e) {
+      Files.deleteIfExists(temporaryFile);
+      throw e;
+    }
+  }
+
+  /**
+   * Restores the column families of the snapshot in the given directory into the given store.
+   *
+   * @param snapshotDir the directory of the snapshot
+   * @param database the store to restore the column families into
+   * @throws IOException if the snapshot can't be read, or if it is corrupt
+   */
+  static void restore(final File snapshotDir, final InMemoryDbStore database) throws IOException {
+    final Path snapshotFile = snapshotDir.toPath().resolve(SNAPSHOT_FILE_NAME);
+
+    try (final FileChannel channel = FileChannel.open(snapshotFile, StandardOpenOption.READ)) {
+      final ByteBuffer header = readFully(channel, 0, HEADER_LENGTH);
+      final int magic = header.getInt();
+      final int version = header.getInt();
+      if (magic != MAGIC || version != VERSION) {
+        throw new IOException(
+            String.format(
+                "Expected %s to be an in memory database snapshot of version %d, but it is not",
+                snapshotFile, VERSION));
+      }
+
+      final int sectionCount = header.getInt();
+      if (sectionCount < 0) {
+        throw new IOException(
+            String.format(
+                "Expected the section count of %s to be positive, but it is %d",
+                snapshotFile, sectionCount));
+      }
+
+      final long fileSize = channel.size();
+      long position = HEADER_LENGTH;
+      for (int i = 0; i < sectionCount; i++) {
+        final ByteBuffer sectionHeader = readFully(channel, position, SECTION_HEADER_LENGTH);
+        final int columnFamilyIndex = sectionHeader.getInt();
+        final int entryCount = sectionHeader.getInt();
+        final long sectionLength = sectionHeader.getLong();
+        position += SECTION_HEADER_LENGTH;
+        validateSection(snapshotFile, columnFamilyIndex, entryCount, sectionLength);
+        if (sectionLength > fileSize - position) {
+          throw new IOException(
+              String.format(
+                  "Expected section of column family %d to end within %s at %d, but it ends at %d",
+                  columnFamilyIndex, snapshotFile, fileSize, position + sectionLength));
+        }
+
+        // the mapping stays valid after the channel is closed
+        final MappedByteBuffer section = channel.map(MapMode.READ_ONLY, position, sectionLength);
+        database.restoreColumnFamily(
+            columnFamilyIndex, InMemoryDbOffHeapStore.wrapSnapshotSection(section, entryCount));
+        position += sectionLength;
+      }
+    }
+  }
+
+  private static void validateSection(
+      final Path snapshotFile,
+      final int columnFamilyIndex,
+      final int entryCount,
+      final long sectionLength)
+      throws IOException {
+    if (columnFamilyIndex < 0 || entryCount < 0 || sectionLength < 0) {
+      throw new IOException(
+          String.format(
+              "Expected column family, entry count and length of a section in %s to be positive,"
+                  + " but they are %d, %d and %d",
+              snapshotFile, columnFamilyIndex, entryCount, sectionLength));
+    }
+    if (sectionLength > Integer.MAX_VALUE
+        || (long) entryCount * ENTRY_HEADER_LENGTH > sectionLength) {
+      throw new IOException(
+          String.format(
+              "Expected section of column family %d in %s to hold %d entries in at most 2 GB, but"
+                  + " it has %d bytes",
+              columnFamilyIndex, snapshotFile, entryCount, sectionLength));
+    }
+  }
+
+  private static Section measureSection(
+      final int columnFamilyIndex, final InMemoryDbColumnFamilyStore columnFamily)
+      throws IOException {
+    int entryCount = 0;
+    long sectionLength = 0;
+    final Iterator<Map.Entry<Bytes, Bytes>> lengthIterator = columnFamily.iterator(null, null);
+    while (lengthIterator.hasNext()) {
+      final Map.Entry<Bytes, Bytes> entry = lengthIterator.next();
+      entryCount++;
+      sectionLength += ENTRY_HEADER_LENGTH + entry.getKey().length() + entry.getValue().length();
+    }
+
+    if (sectionLength > Integer.MAX_VALUE) {
+      throw new IOException(
+          String.format(
+              "Expected column family %d to be smaller than 2 GB, but it has %d bytes",
+              columnFamilyIndex, sectionLength));
+    }
+
+    return new Section(columnFamilyIndex, entryCount, sectionLength);
+  }
+
+  private static void writeSection(
+      final DataOutputStream output,
+      final Section section,
+      final InMemoryDbColumnFamilyStore columnFamily)
+      throws IOException {
+    output.writeInt(section.columnFamilyIndex());
+    output.writeInt(section.entryCount());
+    output.writeLong(section.length());
+
+    final Iterator<Map.Entry<Bytes, Bytes>> iterator = columnFamily.iterator(null, null);
+    while (iterator.hasNext()) {
+      final Map.Entry<Bytes, Bytes> entry = iterator.next();
+      final Bytes key = entry.getKey();
+      final Bytes value = entry.getValue();
+      output.writeInt(key.length());
+      output.writeInt(value.length());
+      output.write(key.toBytes(), 0, key.length());
+      output.write(value.toBytes(), 0, value.length());
+    }
+  }
+
+  private static ByteBuffer readFully(
+      final FileChannel channel, final long position, final int length) throws IOException {
+    final ByteBuffer buffer = ByteBuffer.allocate(length);
+    while (buffer.hasRemaining()) {
+      if (channel.read(buffer, position + buffer.position()) < 0) {
+        throw new IOException("Unexpected end of the in memory database snapshot");
+      }
+    }
+    return buffer.flip();
+  }
+
+  private record Section(int columnFamilyIndex, int entryCount, long length) {}
+}
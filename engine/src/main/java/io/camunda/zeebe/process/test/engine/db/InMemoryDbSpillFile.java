@@ -0,0 +1,112 @@
+/*
+ * Copyright Camunda Services GmbH and/or licensed to Camunda Services GmbH under
+ * one or more contributor license agreements. See the NOTICE file distributed
+ * with this work for additional information regarding copyright ownership.
+ * Licensed under the Zeebe Community License 1.1. You may not use this file
+ * except in compliance with the Zeebe Community License 1.1.
+ */
+package io.camunda.zeebe.process.test.engine.db;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import org.agrona.IoUtil;
+import org.agrona.concurrent.UnsafeBuffer;
+
+/**
+ * Append only file for values which are spilled from the heap. The file is memory mapped in
+ * segments, a value never spans two segments. Space of values which are no longer needed is not
+ * reclaimed by the file itself, {@link InMemoryDbTiering} rewrites the live values into a new file
+ * instead. The file is deleted when it is closed.
+ */
+final class InMemoryDbSpillFile implements AutoCloseable {
+
+  private static final int SEGMENT_SIZE = 64 * 1024 * 1024;
+
+  private final Path path;
+  private final FileChannel channel;
+  private final List<UnsafeBuffer> segments = new ArrayList<>();
+  private final List<MappedByteBuffer> mappedSegments = new ArrayList<>();
+  private long fileLength;
+  private int segmentOffset;
+
+  InMemoryDbSpillFile(final Path path) {
+    this.path = path;
+    try {
+      channel =
+          FileChannel.open(
+              path,
+              StandardOpenOption.CREATE_NEW,
+              StandardOpenOption.READ,
+              StandardOpenOption.WRITE);
+    } catch (final IOException e) {
+      throw new UncheckedIOException("Failed to create spill file " + path, e);
+    }
+  }
+
+  /**
+   * Appends the value to the file.
+   *
+   * @return the position of the value, see {@link #read(long, int)}
+   */
+  long append(final Bytes value) {
+    final int length = value.length();
+    if (segments.isEmpty() || segmentOffset + length > currentSegment().capacity()) {
+      mapSegment(Math.max(SEGMENT_SIZE, length));
+    }
+
+    final int segmentIndex = segments.size() - 1;
+    final int offset = segmentOffset;
+    currentSegment().putBytes(offset, value.toBytes(), 0, length);
+    segmentOffset += length;
+    return ((long) segmentIndex << Integer.SIZE) | offset;
+  }
+
+  /**
+   * @param position the position returned when the value was appended
+   * @param length the length of the value
+   * @return a copy of the value on the heap
+   */
+  Bytes read(final long position, final int length) {
+    final UnsafeBuffer segment = segments.get((int) (position >>> Integer.SIZE));
+    final byte[] value = new byte[length];
+    segment.getBytes((int) position, value);
+    return Bytes.wrapArray(value);
+  }
+
+  @Override
+  public void close() {
+    mappedSegments.forEach(IoUtil::unmap);
+    mappedSegments.clear();
+    segments.clear();
+    try {
+      channel.close();
+      Files.deleteIfExists(path);
+    } catch (final IOException e) {
+      throw new UncheckedIOException("Failed to delete spill file " + path, e);
+    }
+  }
+
+  private UnsafeBuffer currentSegment() {
+    return segments.get(segments.size() - 1);
+  }
+
+  private void mapSegment(final int size) {
+    try {
+      final MappedByteBuffer segment = channel.map(MapMode.READ_WRITE, fileLength, size);
+      mappedSegments.add(segment);
+      segments.add(new UnsafeBuffer(segment));
+      fileLength += size;
+      segmentOffset = 0;
+    } catch (final IOException e) {
+      throw new UncheckedIOException("Failed to extend spill file " + path, e);
+    }
+  }
+}
@@ -12,11 +12,31 @@ import io.camunda.zeebe.db.DbValue;
 interface InMemoryDbState {
   void put(FullyQualifiedKey fullyQualifiedKey, DbValue value);
 
+  /**
+   * Writes the value of a key whose existence the caller looked up before, so that it isn't looked
+   * up again.
+   *
+   * @param exists whether the key is visible to the transaction before the put
+   */
+  void put(FullyQualifiedKey fullyQualifiedKey, DbValue value, boolean exists);
+
   byte[] get(FullyQualifiedKey fullyQualifiedKey);
 
   void delete(FullyQualifiedKey fullyQualifiedKey);
 
-  InMemoryDbIterator newIterator();
+  /**
+   * Deletes a key whose existence the caller looked up before, so that it isn't looked up again.
+   *
+   * @param exists whether the key is visible to the transaction before the delete
+   */
+  void delete(FullyQualifiedKey fullyQualifiedKey, boolean exists);
+
+  InMemoryDbIterator newIterator(int columnFamilyIndex);
 
   boolean contains(FullyQualifiedKey fullyQualifiedKey);
+
+  /**
+   * @return the number of entries in the given column family, including the uncommitted changes
+   */
+  long count(int columnFamilyIndex);
 }
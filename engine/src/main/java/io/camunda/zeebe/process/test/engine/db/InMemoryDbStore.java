@@ -0,0 +1,175 @@
+/*
+ * Copyright Camunda Services GmbH and/or licensed to Camunda Services GmbH under
+ * one or more contributor license agreements. See the NOTICE file distributed
+ * with this work for additional information regarding copyright ownership.
+ * Licensed under the Zeebe Community License 1.1. You may not use this file
+ * except in compliance with the Zeebe Community License 1.1.
+ */
+package io.camunda.zeebe.process.test.engine.db;
+
+import io.camunda.zeebe.db.DbKey;
+import java.util.Arrays;
+
+/**
+ * The committed state of the in memory database. Every column family is stored in its own {@link
+ * InMemoryDbColumnFamilyStore}, the stores are indexed by the ordinal of the column family. Keys
+ * are stored without a column family prefix.
+ *
+ * <p>The kind of store is chosen by a {@link InMemoryDbColumnFamilyStoreFactory} when a column
+ * family is created. Should a store not accept a key, e.g. a long keyed column family which is used
+ * with a key of a different length, its entries are moved to a tree map store.
+ *
+ * <p>If the stores are {@link InMemoryDbColumnFamilyStoreFactory#isVersioned() versioned}, a new
+ * version of the state is published after every commit. Other threads can check out the last
+ * published version, without locking and without seeing later commits.
+ */
+final class InMemoryDbStore {
+
+  private final InMemoryDbColumnFamilyStoreFactory storeFactory;
+  private InMemoryDbColumnFamilyStore[] columnFamilies = new InMemoryDbColumnFamilyStore[0];
+  private volatile InMemoryDbVersionedStore[] publishedVersion = new InMemoryDbVersionedStore[0];
+
+  InMemoryDbStore(final InMemoryDbColumnFamilyStoreFactory storeFactory) {
+    this.storeFactory = storeFactory;
+  }
+
+  /**
+   * Creates the store of the given column family, if it doesn't exist yet. The kind of store
+   * depends on the given key instance.
+   *
+   * @param columnFamilyIndex the ordinal of the column family
+   * @param keyInstance the key instance the column family is created with
+   */
+  void createColumnFamily(final int columnFamilyIndex, final DbKey keyInstance) {
+    ensureCapacity(columnFamilyIndex);
+    if (columnFamilies[columnFamilyIndex] == null) {
+      columnFamilies[columnFamilyIndex] = storeFactory.create(keyInstance);
+    }
+  }
+
+  /**
+   * Returns the store of the given column family. If the column family wasn't created before, it
+   * is created without knowing its key type.
+   *
+   * @param columnFamilyIndex the ordinal of the column family
+   * @return the committed entries of the column family
+   */
+  InMemoryDbColumnFamilyStore columnFamily(final int columnFamilyIndex) {
+    ensureCapacity(columnFamilyIndex);
+
+    InMemoryDbColumnFamilyStore columnFamily = columnFamilies[columnFamilyIndex];
+    if (columnFamily == null) {
+      columnFamily = storeFactory.create(DbNullKey.INSTANCE);
+      columnFamilies[columnFamilyIndex] = columnFamily;
+    }
+    return columnFamily;
+  }
+
+  /**
+   * @param columnFamilyIndex the ordinal of the column family
+   * @return the store of the given column family, or {@code null} if it doesn't exist
+   */
+  InMemoryDbColumnFamilyStore existingColumnFamily(final int columnFamilyIndex) {
+    return columnFamilyIndex < columnFamilies.length ? columnFamilies[columnFamilyIndex] : null;
+  }
+
+  /**
+   * Replaces the store of the given column family, e.g. by one restored from a snapshot. If the
+   * stores are versioned, the entries are copied into a versioned store.
+   */
+  void restoreColumnFamily(
+      final int columnFamilyIndex, final InMemoryDbColumnFamilyStore columnFamily) {
+    ensureCapacity(columnFamilyIndex);
+    if (columnFamilies[columnFamilyIndex] != null) {
+      columnFamilies[columnFamilyIndex].close();
+    }
+
+    if (storeFactory.isVersioned()) {
+      final InMemoryDbColumnFamilyStore copy = storeFactory.create(DbNullKey.INSTANCE);
+      columnFamily.iterator(null, null).forEachRemaining(e -> copy.put(e.getKey(), e.getValue()));
+      columnFamily.close();
+      columnFamilies[columnFamilyIndex] = copy;
+    } else {
+      columnFamilies[columnFamilyIndex] = columnFamily;
+    }
+  }
+
+  /**
+   * Publishes the current state as the new version, which is returned by {@link
+   * #checkoutPublishedVersion()}. Does nothing if the stores are not versioned.
+   */
+  void publishVersion() {
+    if (!storeFactory.isVersioned()) {
+      return;
+    }
+
+    // a versioned factory only creates versioned stores, and they accept every key
+    final InMemoryDbVersionedStore[] version = new InMemoryDbVersionedStore[columnFamilies.length];
+    for (int i = 0; i < columnFamilies.length; i++) {
+      if (columnFamilies[i] != null) {
+        version[i] = ((InMemoryDbVersionedStore) columnFamilies[i]).fork();
+      }
+    }
+    publishedVersion = version;
+  }
+
+  /**
+   * Can be called from any thread.
+   *
+   * @return a new store with the state of the last published version, which is not affected by
+   *     later commits to this store; writes to the returned store are not visible to this store
+   * @throws IllegalStateException if the stores are not versioned
+   */
+  InMemoryDbStore checkoutPublishedVersion() {
+    if (!storeFactory.isVersioned()) {
+      throw new IllegalStateException(
+          "Expected a versioned in memory database, but its stores are not versioned");
+    }
+
+    final InMemoryDbVersionedStore[] version = publishedVersion;
+    final InMemoryDbStore checkout = new InMemoryDbStore(storeFactory);
+    checkout.columnFamilies = new InMemoryDbColumnFamilyStore[version.length];
+    for (int i = 0; i < version.length; i++) {
+      if (version[i] != null) {
+        checkout.columnFamilies[i] = version[i].fork();
+      }
+    }
+    return checkout;
+  }
+
+  int columnFamilyCount() {
+    return columnFamilies.length;
+  }
+
+  void put(final int columnFamilyIndex, final Bytes key, final Bytes value) {
+    InMemoryDbColumnFamilyStore columnFamily = columnFamily(columnFamilyIndex);
+    if (!columnFamily.accepts(key)) {
+      final InMemoryDbColumnFamilyStore previous = columnFamily;
+      columnFamily = InMemoryDbTreeMapStore.copyOf(previous);
+      previous.close();
+      columnFamilies[columnFamilyIndex] = columnFamily;
+    }
+    columnFamily.put(key, value);
+  }
+
+  void remove(final int columnFamilyIndex, final Bytes key) {
+    columnFamily(columnFamilyIndex).remove(key);
+  }
+
+  /** Closes all stores and releases the resources they share. */
+  void close() {
+    for (final InMemoryDbColumnFamilyStore columnFamily : columnFamilies) {
+      if (columnFamily != null) {
+        columnFamily.close();
+      }
+    }
+    Arrays.fill(columnFamilies, null);
+    storeFactory.close();
+  }
+
+  private void ensureCapacity(final int columnFamilyIndex) {
+    if (columnFamilyIndex >= columnFamilies.length) {
+      columnFamilies = Arrays.copyOf(columnFamilies, columnFamilyIndex + 1);
+    }
+  }
+}
@@ -0,0 +1,138 @@
+/*
+ * Copyright Camunda Services GmbH and/or licensed to Camunda Services GmbH under
+ * one or more contributor license agreements. See the NOTICE file distributed
+ * with this work for additional information regarding copyright ownership.
+ * Licensed under the Zeebe Community License 1.1. You may not use this file
+ * except in compliance with the Zeebe Community License 1.1.
+ */
+package io.camunda.zeebe.process.test.engine.db;
+
+import io.camunda.zeebe.process.test.engine.db.InMemoryDbTiering.Entry;
+import java.util.AbstractMap.SimpleImmutableEntry;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.NoSuchElementException;
+import java.util.TreeMap;
+
+/**
+ * Column family store which keeps its keys and the recently used values on the heap. Values which
+ * weren't used for a while are spilled to a memory mapped file, see {@link InMemoryDbTiering}. The
+ * sorted keys stay on the heap as the index into the file, so point lookups and iterations never
+ * have to search the file.
+ *
+ * <p>Only the values are spilled, every entry keeps a fixed part on the heap: the node of the tree
+ * map, the {@link Entry} with its links and the key. Measured on a 64 bit JVM with compressed
+ * references and keys of 8 bytes, an entry takes about 135 bytes of heap once its value is
+ * spilled, while it takes 183 bytes with a hot value of 8 bytes, 239 bytes with 64 bytes and 687
+ * bytes with 512 bytes. Spilling saves most of the heap of column families with large values, like
+ * variables and messages, but only about a quarter for the many small values of Zeebe, like {@code
+ * DbLong}s. The heap still grows with the number of keys.
+ *
+ * <p>Iterating doesn't count as using a value, a cold value which is visited by an iteration is
+ * read from the file without moving it back onto the heap.
+ */
+final class InMemoryDbTieredStore implements InMemoryDbColumnFamilyStore {
+
+  private final TreeMap<Bytes, Entry> entries = new TreeMap<>();
+  private final InMemoryDbTiering tiering;
+  private long liveBytes;
+
+  InMemoryDbTieredStore(final InMemoryDbTiering tiering) {
+    this.tiering = tiering;
+  }
+
+  @Override
+  public Bytes get(final Bytes key) {
+    final Entry entry = entries.get(key);
+    return entry != null ? tiering.access(entry) : null;
+  }
+
+  @Override
+  public boolean containsKey(final Bytes key) {
+    return entries.containsKey(key);
+  }
+
+  @Override
+  public void put(final Bytes key, final Bytes value) {
+    final Entry entry = entries.get(key);
+    if (entry != null) {
+      liveBytes += value.length() - entry.length();
+      tiering.update(entry, value);
+    } else {
+      liveBytes += key.length() + value.length();
+      final Entry newEntry = new Entry(value);
+      entries.put(key, newEntry);
+      tiering.add(newEntry);
+    }
+  }
+
+  @Override
+  public void remove(final Bytes key) {
+    final Entry entry = entries.remove(key);
+    if (entry != null) {
+      liveBytes -= key.length() + entry.length();
+      tiering.remove(entry);
+    }
+  }
+
+  @Override
+  public Iterator<Map.Entry<Bytes, Bytes>> iterator(final Bytes startKey, final Bytes endKey) {
+    return new PeekingIterator(range(startKey, endKey).entrySet().iterator());
+  }
+
+  @Override
+  public int size() {
+    return entries.size();
+  }
+
+  @Override
+  public long liveBytes() {
+    return liveBytes;
+  }
+
+  @Override
+  public void close() {
+    // the spill file isn't compacted while the database shuts down
+    entries.values().forEach(tiering::forget);
+    entries.clear();
+    liveBytes = 0;
+  }
+
+  private NavigableMap<Bytes, Entry> range(final Bytes startKey, final Bytes endKey) {
+    if (startKey != null && endKey != null) {
+      return startKey.compareTo(endKey) < 0
+          ? entries.subMap(startKey, true, endKey, false)
+          : Collections.emptyNavigableMap();
+    } else if (startKey != null) {
+      return entries.tailMap(startKey, true);
+    } else if (endKey != null) {
+      return entries.headMap(endKey, false);
+    }
+    return entries;
+  }
+
+  private final class PeekingIterator implements Iterator<Map.Entry<Bytes, Bytes>> {
+
+    private final Iterator<Map.Entry<Bytes, Entry>> delegate;
+
+    private PeekingIterator(final Iterator<Map.Entry<Bytes, Entry>> delegate) {
+      this.delegate = delegate;
+    }
+
+    @Override
+    public boolean hasNext() {
+      return delegate.hasNext();
+    }
+
+    @Override
+    public Map.Entry<Bytes, Bytes> next() {
+      if (!hasNext()) {
+        throw new NoSuchElementException();
+      }
+      final Map.Entry<Bytes, Entry> entry = delegate.next();
+      return new SimpleImmutableEntry<>(entry.getKey(), tiering.peek(entry.getValue()));
+    }
+  }
+}
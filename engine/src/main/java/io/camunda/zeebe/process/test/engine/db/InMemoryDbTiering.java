@@ -0,0 +1,305 @@
+/*
+ * Copyright Camunda Services GmbH and/or licensed to Camunda Services GmbH under
+ * one or more contributor license agreements. See the NOTICE file distributed
+ * with this work for additional information regarding copyright ownership.
+ * Licensed under the Zeebe Community License 1.1. You may not use this file
+ * except in compliance with the Zeebe Community License 1.1.
+ */
+package io.camunda.zeebe.process.test.engine.db;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Decides which values of the {@link InMemoryDbTieredStore tiered stores} of a database stay on the
+ * heap. All stores of a database share one budget for the bytes of their hot values, once it is
+ * exceeded the least recently used values are spilled to a {@link InMemoryDbSpillFile}.
+ *
+ * <p>The hot entries are kept in an intrusive doubly linked list, ordered from the most to the
+ * least recently used entry, so that accessing an entry doesn't allocate.
+ *
+ * <p>The spill file is append only. Entries which have a copy in the file are kept in a second
+ * intrusive list, and the bytes of copies which are no longer needed, because the entry was updated
+ * or removed, are counted as dead. Once the dead bytes exceed the live bytes of the file, the live
+ * copies are rewritten into a new file and the old one is deleted, which keeps the file at most
+ * about twice as large as the spilled values.
+ */
+final class InMemoryDbTiering implements AutoCloseable {
+
+  private static final String SPILL_DIRECTORY_PREFIX = "in-memory-db";
+  private static final String SPILL_FILE_PREFIX = "in-memory-db-";
+  private static final String SPILL_FILE_SUFFIX = ".spill";
+  private static final long MIN_COMPACTION_BYTES = 64 * 1024;
+
+  private final long hotBytesLimit;
+  private final Path spillParentDirectory;
+  private Path spillDirectory;
+  private InMemoryDbSpillFile spillFile;
+  private int spillFileGeneration;
+
+  private final Entry head = new Entry(null);
+  private long hotBytes;
+
+  private final Entry spilledHead = new Entry(null);
+  private long spilledBytes;
+  private long deadBytes;
+
+  /**
+   * @param hotBytesLimit the number of value bytes which are kept on the heap
+   * @param spillParentDirectory the directory to create the temporary directory of the spill file
+   *     in, once the first value is spilled, or {@code null} to use the default temporary directory
+   */
+  InMemoryDbTiering(final long hotBytesLimit, final Path spillParentDirectory) {
+    this.hotBytesLimit = hotBytesLimit;
+    this.spillParentDirectory = spillParentDirectory;
+    head.previous = head;
+    head.next = head;
+    spilledHead.spilledPrevious = spilledHead;
+    spilledHead.spilledNext = spilledHead;
+  }
+
+  /** Adds a new entry as the most recently used one, which may spill other entries. */
+  void add(final Entry entry) {
+    link(entry);
+    spillIfNecessary();
+  }
+
+  /** Replaces the value of the entry and marks it as the most recently used one. */
+  void update(final Entry entry, final Bytes value) {
+    if (entry.isHot()) {
+      unlink(entry);
+    }
+    entry.value = value;
+    discardSpilledCopy(entry);
+    link(entry);
+    spillIfNecessary();
+    compactIfNecessary();
+  }
+
+  /**
+   * Returns the value of the entry and marks it as the most recently used one. A spilled value is
+   * read back onto the heap.
+   */
+  Bytes access(final Entry entry) {
+    if (entry.isHot()) {
+      if (head.next != entry) {
+        unlink(entry);
+        link(entry);
+      }
+      return entry.value;
+    }
+
+    entry.value = spillFile.read(entry.spilledPosition, entry.spilledLength);
+    link(entry);
+    spillIfNecessary();
+    return entry.value;
+  }
+
+  /**
+   * Returns the value of the entry without changing its recency, e.g. to not evict the working set
+   * while iterating over a column family.
+   */
+  Bytes peek(final Entry entry) {
+    return entry.isHot()
+        ? entry.value
+        : spillFile.read(entry.spilledPosition, entry.spilledLength);
+  }
+
+  /** Forgets the entry, after it was removed from its store. */
+  void remove(final Entry entry) {
+    forget(entry);
+    compactIfNecessary();
+  }
+
+  /**
+   * Forgets the entry without compacting the spill file, e.g. while its store is closed. The dead
+   * bytes are reclaimed by a later compaction, or when the file is deleted on close.
+   */
+  void forget(final Entry entry) {
+    if (entry.isHot()) {
+      unlink(entry);
+    }
+    discardSpilledCopy(entry);
+  }
+
+  long hotBytes() {
+    return hotBytes;
+  }
+
+  /**
+   * @return the bytes of the values in the spill file, including the ones which are no longer
+   *     needed
+   */
+  long spillFileBytes() {
+    return spilledBytes + deadBytes;
+  }
+
+  @Override
+  public void close() {
+    head.previous = head;
+    head.next = head;
+    hotBytes = 0;
+    spilledHead.spilledPrevious = spilledHead;
+    spilledHead.spilledNext = spilledHead;
+    spilledBytes = 0;
+    deadBytes = 0;
+    if (spillFile != null) {
+      spillFile.close();
+      spillFile = null;
+    }
+    if (spillDirectory != null) {
+      try {
+        Files.deleteIfExists(spillDirectory);
+      } catch (final IOException e) {
+        throw new UncheckedIOException("Failed to delete spill directory " + spillDirectory, e);
+      }
+    }
+    spillDirectory = null;
+  }
+
+  private void spillIfNecessary() {
+    // the most recently used entry stays on the heap, even if it exceeds the budget on its own
+    while (hotBytes > hotBytesLimit && head.previous != head.next) {
+      final Entry coldest = head.previous;
+      unlink(coldest);
+      if (coldest.spilledPosition == Entry.NOT_SPILLED) {
+        // a value which was read back and not changed since is still part of the spill file
+        writeSpilledCopy(coldest, spillFile(), coldest.value);
+        linkSpilled(coldest);
+      }
+      coldest.value = null;
+    }
+  }
+
+  /** Forgets the copy of the entry in the spill file, if it has one. */
+  private void discardSpilledCopy(final Entry entry) {
+    if (entry.spilledPosition != Entry.NOT_SPILLED) {
+      unlinkSpilled(entry);
+      deadBytes += entry.spilledLength;
+      entry.spilledPosition = Entry.NOT_SPILLED;
+    }
+  }
+
+  /**
+   * Rewrites the copies of the cold entries into a new spill file, once more than half of the
+   * current file is dead. Hot entries drop their copy instead, they are written again if they are
+   * spilled again.
+   */
+  private void compactIfNecessary() {
+    if (deadBytes < MIN_COMPACTION_BYTES || deadBytes <= spilledBytes) {
+      return;
+    }
+
+    final InMemoryDbSpillFile previousFile = spillFile;
+    Entry entry = spilledHead.spilledNext;
+    spillFile = null;
+    spilledHead.spilledPrevious = spilledHead;
+    spilledHead.spilledNext = spilledHead;
+    spilledBytes = 0;
+    deadBytes = 0;
+
+    while (entry != spilledHead) {
+      final Entry next = entry.spilledNext;
+      entry.spilledPrevious = null;
+      entry.spilledNext = null;
+      if (entry.isHot()) {
+        entry.spilledPosition = Entry.NOT_SPILLED;
+      } else {
+        final Bytes value = previousFile.read(entry.spilledPosition, entry.spilledLength);
+        writeSpilledCopy(entry, spillFile(), value);
+        linkSpilled(entry);
+      }
+      entry = next;
+    }
+
+    previousFile.close();
+  }
+
+  private static void writeSpilledCopy(
+      final Entry entry, final InMemoryDbSpillFile file, final Bytes value) {
+    entry.spilledPosition = file.append(value);
+    entry.spilledLength = value.length();
+  }
+
+  private InMemoryDbSpillFile spillFile() {
+    if (spillDirectory == null) {
+      try {
+        spillDirectory =
+            spillParentDirectory == null
+                ? Files.createTempDirectory(SPILL_DIRECTORY_PREFIX)
+                : Files.createTempDirectory(
+                    Files.createDirectories(spillParentDirectory), SPILL_DIRECTORY_PREFIX);
+      } catch (final IOException e) {
+        throw new UncheckedIOException("Failed to create spill directory", e);
+      }
+    }
+    if (spillFile == null) {
+      final String fileName = SPILL_FILE_PREFIX + spillFileGeneration++ + SPILL_FILE_SUFFIX;
+      spillFile = new InMemoryDbSpillFile(spillDirectory.resolve(fileName));
+    }
+    return spillFile;
+  }
+
+  private void link(final Entry entry) {
+    entry.previous = head;
+    entry.next = head.next;
+    head.next.previous = entry;
+    head.next = entry;
+    hotBytes += entry.value.length();
+  }
+
+  private void unlink(final Entry entry) {
+    entry.previous.next = entry.next;
+    entry.next.previous = entry.previous;
+    entry.previous = null;
+    entry.next = null;
+    hotBytes -= entry.value.length();
+  }
+
+  private void linkSpilled(final Entry entry) {
+    entry.spilledPrevious = spilledHead;
+    entry.spilledNext = spilledHead.spilledNext;
+    spilledHead.spilledNext.spilledPrevious = entry;
+    spilledHead.spilledNext = entry;
+    spilledBytes += entry.spilledLength;
+  }
+
+  private void unlinkSpilled(final Entry entry) {
+    entry.spilledPrevious.spilledNext = entry.spilledNext;
+    entry.spilledNext.spilledPrevious = entry.spilledPrevious;
+    entry.spilledPrevious = null;
+    entry.spilledNext = null;
+    spilledBytes -= entry.spilledLength;
+  }
+
+  /** The value of a key in a tiered store, which is either on the heap or in the spill file. */
+  static final class Entry {
+
+    private static final long NOT_SPILLED = -1;
+
+    private Bytes value;
+    private long spilledPosition = NOT_SPILLED;
+    private int spilledLength;
+    private Entry previous;
+    private Entry next;
+    private Entry spilledPrevious;
+    private Entry spilledNext;
+
+    Entry(final Bytes value) {
+      this.value = value;
+    }
+
+    /**
+     * @return the length of the value, without reading it if it was spilled
+     */
+    int length() {
+      return isHot() ? value.length() : spilledLength;
+    }
+
+    private boolean isHot() {
+      return value != null;
+    }
+  }
+}
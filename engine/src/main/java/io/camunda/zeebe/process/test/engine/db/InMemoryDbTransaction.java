@@ -10,26 +10,28 @@ package io.camunda.zeebe.process.test.engine.db;
 import io.camunda.zeebe.db.DbValue;
 import io.camunda.zeebe.db.TransactionOperation;
 import io.camunda.zeebe.db.ZeebeDbTransaction;
-import java.util.HashSet;
-import java.util.TreeMap;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 
 /**
  * In memory implementation of {@code ZeebeDbTransaction}
  *
- * <p>This implementation maintains a transaction cache and a list of deleted keys to capture the
- * changes performed during the transaction. Upon commit, the changes of this transaction are
+ * <p>This implementation captures the changes performed during the transaction per column family,
+ * see {@link InMemoryDbColumnFamilyChanges}. Upon commit, the changes of this transaction are
  * written into the database, This transaction reads with "read committed" isolation level.
  *
  * <p>There is no locking mechanism between transactions.
  */
 final class InMemoryDbTransaction implements ZeebeDbTransaction, InMemoryDbState {
 
-  private final TreeMap<Bytes, Bytes> database;
-  private final TreeMap<Bytes, Bytes> transactionCache = new TreeMap<>();
-  private final HashSet<Bytes> deletedKeys = new HashSet<>();
+  private final InMemoryDbStore database;
+  private final List<InMemoryDbColumnFamilyChanges> changedColumnFamilies = new ArrayList<>();
+  private InMemoryDbColumnFamilyChanges[] columnFamilyChanges =
+      new InMemoryDbColumnFamilyChanges[0];
   private boolean inCurrentTransaction = false;
 
-  InMemoryDbTransaction(final TreeMap<Bytes, Bytes> database) {
+  InMemoryDbTransaction(final InMemoryDbStore database) {
     this.database = database;
   }
 
@@ -50,40 +52,48 @@ final class InMemoryDbTransaction implements ZeebeDbTransaction, InMemoryDbState
   @Override
   public void commit() {
     inCurrentTransaction = false;
-    database.putAll(transactionCache);
-    deletedKeys.forEach(database::remove);
-    deletedKeys.clear();
-    transactionCache.clear();
+    if (changedColumnFamilies.isEmpty()) {
+      return;
+    }
+
+    for (final InMemoryDbColumnFamilyChanges changes : changedColumnFamilies) {
+      changes.applyTo(database);
+      changes.clear();
+    }
+    changedColumnFamilies.clear();
+    database.publishVersion();
   }
 
   @Override
   public void rollback() {
     inCurrentTransaction = false;
-    deletedKeys.clear();
-    transactionCache.clear();
+    changedColumnFamilies.forEach(InMemoryDbColumnFamilyChanges::clear);
+    changedColumnFamilies.clear();
   }
 
   @Override
   public void put(final FullyQualifiedKey fullyQualifiedKey, final DbValue value) {
-    deletedKeys.remove(fullyQualifiedKey.getKeyBytes());
-    transactionCache.put(fullyQualifiedKey.getKeyBytes(), Bytes.fromDbValue(value));
+    put(fullyQualifiedKey, value, contains(fullyQualifiedKey));
+  }
+
+  @Override
+  public void put(
+      final FullyQualifiedKey fullyQualifiedKey, final DbValue value, final boolean exists) {
+    changesForWrite(fullyQualifiedKey.getColumnFamilyIndex())
+        .put(fullyQualifiedKey, Bytes.fromDbValue(value), exists);
   }
 
   @Override
   public byte[] get(final FullyQualifiedKey fullyQualifiedKey) {
     final Bytes key = fullyQualifiedKey.getKeyBytes();
-
-    if (deletedKeys.contains(key)) {
-      return null;
-    }
-
-    final Bytes valueInCache = transactionCache.get(key);
+    final Bytes valueInCache = changes(fullyQualifiedKey.getColumnFamilyIndex()).get(key);
 
     if (valueInCache != null) {
-      return valueInCache.toBytes();
+      return valueInCache == InMemoryDbColumnFamilyChanges.DELETED ? null : valueInCache.toBytes();
     }
 
-    final Bytes valueInDatabase = database.get(key);
+    final Bytes valueInDatabase =
+        database.columnFamily(fullyQualifiedKey.getColumnFamilyIndex()).get(key);
 
     if (valueInDatabase != null) {
       return valueInDatabase.toBytes();
@@ -94,25 +104,54 @@ final class InMemoryDbTransaction implements ZeebeDbTransaction, InMemoryDbState
 
   @Override
   public void delete(final FullyQualifiedKey fullyQualifiedKey) {
-    final Bytes keyBytes = fullyQualifiedKey.getKeyBytes();
-    transactionCache.remove(keyBytes);
-    deletedKeys.add(keyBytes);
+    delete(fullyQualifiedKey, contains(fullyQualifiedKey));
   }
 
   @Override
-  public InMemoryDbIterator newIterator() {
-    final TreeMap<Bytes, Bytes> snapshot = new TreeMap<>();
-    snapshot.putAll(database);
-    snapshot.putAll(transactionCache);
-    deletedKeys.forEach(snapshot::remove);
+  public void delete(final FullyQualifiedKey fullyQualifiedKey, final boolean exists) {
+    changesForWrite(fullyQualifiedKey.getColumnFamilyIndex()).delete(fullyQualifiedKey, exists);
+  }
 
-    return new InMemoryDbIterator(snapshot);
+  @Override
+  public InMemoryDbIterator newIterator(final int columnFamilyIndex) {
+    return new InMemoryDbIterator(
+        database.columnFamily(columnFamilyIndex), changes(columnFamilyIndex));
   }
 
   @Override
   public boolean contains(final FullyQualifiedKey fullyQualifiedKey) {
     final Bytes keyBytes = fullyQualifiedKey.getKeyBytes();
-    return !deletedKeys.contains(keyBytes)
-        && (transactionCache.containsKey(keyBytes) || database.containsKey(keyBytes));
+    final Bytes valueInCache = changes(fullyQualifiedKey.getColumnFamilyIndex()).get(keyBytes);
+
+    if (valueInCache != null) {
+      return valueInCache != InMemoryDbColumnFamilyChanges.DELETED;
+    }
+    return database.columnFamily(fullyQualifiedKey.getColumnFamilyIndex()).containsKey(keyBytes);
+  }
+
+  @Override
+  public long count(final int columnFamilyIndex) {
+    return database.columnFamily(columnFamilyIndex).size() + changes(columnFamilyIndex).sizeDelta();
+  }
+
+  private InMemoryDbColumnFamilyChanges changes(final int columnFamilyIndex) {
+    if (columnFamilyIndex >= columnFamilyChanges.length) {
+      columnFamilyChanges = Arrays.copyOf(columnFamilyChanges, columnFamilyIndex + 1);
+    }
+
+    InMemoryDbColumnFamilyChanges changes = columnFamilyChanges[columnFamilyIndex];
+    if (changes == null) {
+      changes = new InMemoryDbColumnFamilyChanges(columnFamilyIndex);
+      columnFamilyChanges[columnFamilyIndex] = changes;
+    }
+    return changes;
+  }
+
+  private InMemoryDbColumnFamilyChanges changesForWrite(final int columnFamilyIndex) {
+    final InMemoryDbColumnFamilyChanges changes = changes(columnFamilyIndex);
+    if (changes.markChanged()) {
+      changedColumnFamilies.add(changes);
+    }
+    return changes;
   }
 }
@@ -11,12 +11,13 @@ import io.camunda.zeebe.db.TransactionContext;
 import io.camunda.zeebe.db.TransactionOperation;
 import io.camunda.zeebe.db.ZeebeDbInconsistentException;
 import io.camunda.zeebe.db.ZeebeDbTransaction;
-import java.util.TreeMap;
 
 class InMemoryDbTransactionContext implements TransactionContext {
+  private final InMemoryDbStore database;
   private final InMemoryDbTransaction transaction;
 
-  public InMemoryDbTransactionContext(final TreeMap<Bytes, Bytes> database) {
+  public InMemoryDbTransactionContext(final InMemoryDbStore database) {
+    this.database = database;
     transaction = new InMemoryDbTransaction(database);
   }
 
@@ -36,6 +37,22 @@ class InMemoryDbTransactionContext implements TransactionContext {
     }
   }
 
+  /**
+   * Returns the state of the transaction without opening it. Outside of a transaction there are no
+   * uncommitted changes, so reading from the returned state reads the committed data.
+   */
+  InMemoryDbState getState() {
+    return transaction;
+  }
+
+  /**
+   * @return the committed state the transactions of this context read from and write to, which is
+   *     a checked out version for read contexts
+   */
+  InMemoryDbStore getDatabase() {
+    return database;
+  }
+
   @Override
   public ZeebeDbTransaction getCurrentTransaction() {
     if (!transaction.isInCurrentTransaction()) {
@@ -0,0 +1,80 @@
+/*
+ * Copyright Camunda Services GmbH and/or licensed to Camunda Services GmbH under
+ * one or more contributor license agreements. See the NOTICE file distributed
+ * with this work for additional information regarding copyright ownership.
+ * Licensed under the Zeebe Community License 1.1. You may not use this file
+ * except in compliance with the Zeebe Community License 1.1.
+ */
+package io.camunda.zeebe.process.test.engine.db;
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+/** Column family store for arbitrary keys, backed by a tree map */
+final class InMemoryDbTreeMapStore implements InMemoryDbColumnFamilyStore {
+
+  private final TreeMap<Bytes, Bytes> entries = new TreeMap<>();
+  private long liveBytes;
+
+  static InMemoryDbTreeMapStore copyOf(final InMemoryDbColumnFamilyStore store) {
+    final InMemoryDbTreeMapStore copy = new InMemoryDbTreeMapStore();
+    store.iterator(null, null).forEachRemaining(e -> copy.put(e.getKey(), e.getValue()));
+    return copy;
+  }
+
+  @Override
+  public Bytes get(final Bytes key) {
+    return entries.get(key);
+  }
+
+  @Override
+  public boolean containsKey(final Bytes key) {
+    return entries.containsKey(key);
+  }
+
+  @Override
+  public void put(final Bytes key, final Bytes value) {
+    final Bytes previous = entries.put(key, value);
+    liveBytes +=
+        previous != null ? value.length() - previous.length() : key.length() + value.length();
+  }
+
+  @Override
+  public void remove(final Bytes key) {
+    final Bytes previous = entries.remove(key);
+    if (previous != null) {
+      liveBytes -= key.length() + previous.length();
+    }
+  }
+
+  @Override
+  public Iterator<Map.Entry<Bytes, Bytes>> iterator(final Bytes startKey, final Bytes endKey) {
+    return range(startKey, endKey).entrySet().iterator();
+  }
+
+  @Override
+  public int size() {
+    return entries.size();
+  }
+
+  @Override
+  public long liveBytes() {
+    return liveBytes;
+  }
+
+  private NavigableMap<Bytes, Bytes> range(final Bytes startKey, final Bytes endKey) {
+    if (startKey != null && endKey != null) {
+      return startKey.compareTo(endKey) < 0
+          ? entries.subMap(startKey, true, endKey, false)
+          : Collections.emptyNavigableMap();
+    } else if (startKey != null) {
+      return entries.tailMap(startKey, true);
+    } else if (endKey != null) {
+      return entries.headMap(endKey, false);
+    }
+    return entries;
+  }
+}
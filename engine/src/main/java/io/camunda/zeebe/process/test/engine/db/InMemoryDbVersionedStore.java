@@ -0,0 +1,22 @@
+/*
+ * Copyright Camunda Services GmbH and/or licensed to Camunda Services GmbH under
+ * one or more contributor license agreements. See the NOTICE file distributed
+ * with this work for additional information regarding copyright ownership.
+ * Licensed under the Zeebe Community License 1.1. You may not use this file
+ * except in compliance with the Zeebe Community License 1.1.
+ */
+package io.camunda.zeebe.process.test.engine.db;
+
+/**
+ * Column family store which can be forked, to publish versions of the state. Only the stores of a
+ * {@link InMemoryDbColumnFamilyStoreFactory#isVersioned() versioned} factory implement this.
+ */
+interface InMemoryDbVersionedStore extends InMemoryDbColumnFamilyStore {
+
+  /**
+   * Creates an independent copy of this store, which can be read on another thread.
+   *
+   * @return a copy of this store, which doesn't see later writes to this store and vice versa
+   */
+  InMemoryDbVersionedStore fork();
+}
@@ -0,0 +1,37 @@
+/*
+ * Copyright Camunda Services GmbH and/or licensed to Camunda Services GmbH under
+ * one or more contributor license agreements. See the NOTICE file distributed
+ * with this work for additional information regarding copyright ownership.
+ * Licensed under the Zeebe Community License 1.1. You may not use this file
+ * except in compliance with the Zeebe Community License 1.1.
+ */
+package io.camunda.zeebe.process.test.engine.db;
+
+import io.camunda.zeebe.db.ZeebeDb;
+import io.camunda.zeebe.db.ZeebeDbFactory;
+import io.camunda.zeebe.protocol.EnumValue;
+import java.io.File;
+
+/**
+ * Creates in memory databases which keep their keys and values in off heap buffers instead of heap
+ * objects. This reduces the garbage collection pressure of engines with a large state. The memory
+ * is released when the database is closed.
+ */
+public class OffHeapInMemoryDbFactory<
+        ColumnFamilyType extends Enum<? extends EnumValue> & EnumValue>
+    implements ZeebeDbFactory<ColumnFamilyType> {
+
+  public ZeebeDb<ColumnFamilyType> createDb() {
+    return createDb(null);
+  }
+
+  @Override
+  public ZeebeDb<ColumnFamilyType> createDb(final File pathName) {
+    return new InMemoryDb<>(InMemoryDbColumnFamilyStoreFactory.OFF_HEAP);
+  }
+
+  @Override
+  public ZeebeDb<ColumnFamilyType> openSnapshotOnlyDb(final File path) {
+    return InMemoryDb.openSnapshot(path, InMemoryDbColumnFamilyStoreFactory.OFF_HEAP);
+  }
+}
@@ -0,0 +1,151 @@
+/*
+ * Copyright Camunda Services GmbH and/or licensed to Camunda Services GmbH under
+ * one or more contributor license agreements. See the NOTICE file distributed
+ * with this work for additional information regarding copyright ownership.
+ * Licensed under the Zeebe Community License 1.1. You may not use this file
+ * except in compliance with the Zeebe Community License 1.1.
+ */
+package io.camunda.zeebe.process.test.engine.db;
+
+import io.camunda.zeebe.db.AccessMetricsConfiguration;
+import io.camunda.zeebe.db.AccessMetricsConfiguration.Kind;
+import io.camunda.zeebe.db.ColumnFamily;
+import io.camunda.zeebe.db.ConsistencyChecksSettings;
+import io.camunda.zeebe.db.DbKey;
+import io.camunda.zeebe.db.DbValue;
+import io.camunda.zeebe.db.TransactionContext;
+import io.camunda.zeebe.db.ZeebeDb;
+import io.camunda.zeebe.db.ZeebeDbFactory;
+import io.camunda.zeebe.db.impl.rocksdb.RocksDbConfiguration;
+import io.camunda.zeebe.db.impl.rocksdb.ZeebeRocksDbFactory;
+import io.camunda.zeebe.protocol.EnumValue;
+import io.camunda.zeebe.util.FileUtil;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Optional;
+
+/**
+ * Creates RocksDB backed databases, as used by Zeebe, in a temporary directory. The directory is
+ * deleted when the database is closed. Use this instead of an in memory database if the state of a
+ * test doesn't fit comfortably on the heap.
+ *
+ * <p>The defaults are tuned for tests: the write ahead log is disabled, as the state is never
+ * recovered, and the memory is limited to 64 MB.
+ */
+public class TemporaryRocksDbFactory<
+        ColumnFamilyType extends Enum<? extends EnumValue> & EnumValue>
+    implements ZeebeDbFactory<ColumnFamilyType> {
+
+  private static final long MEMORY_LIMIT_BYTES = 64 * 1024 * 1024;
+  private static final String DIRECTORY_PREFIX = "zeebe-process-test-state";
+
+  private final ZeebeDbFactory<ColumnFamilyType> delegate;
+  private final Path parentDirectory;
+
+  /** Creates the databases in the default temporary directory of the system. */
+  public TemporaryRocksDbFactory() {
+    this(null);
+  }
+
+  /**
+   * @param parentDirectory the directory in which the temporary directories of the databases are
+   *     created, or {@code null} for the default temporary directory of the system
+   */
+  public TemporaryRocksDbFactory(final Path parentDirectory) {
+    this.parentDirectory = parentDirectory;
+
+    final RocksDbConfiguration configuration = new RocksDbConfiguration();
+    configuration.setWalDisabled(true);
+    configuration.setMemoryLimit(MEMORY_LIMIT_BYTES);
+
+    delegate =
+        new ZeebeRocksDbFactory<>(
+            configuration,
+            new ConsistencyChecksSettings(false, false),
+            new AccessMetricsConfiguration(Kind.NONE, 1),
+            SimpleMeterRegistry::new);
+  }
+
+  public ZeebeDb<ColumnFamilyType> createDb() {
+    return createDb(null);
+  }
+
+  /**
+   * @param pathName ignored, the database is always created in a new temporary directory
+   */
+  @Override
+  public ZeebeDb<ColumnFamilyType> createDb(final File pathName) {
+    final Path directory;
+    try {
+      directory =
+          parentDirectory == null
+              ? Files.createTempDirectory(DIRECTORY_PREFIX)
+              : Files.createTempDirectory(parentDirectory, DIRECTORY_PREFIX);
+    } catch (final IOException e) {
+      throw new UncheckedIOException("Failed to create a directory for the database", e);
+    }
+    return new TemporaryDb<>(delegate.createDb(directory.toFile()), directory);
+  }
+
+  @Override
+  public ZeebeDb<ColumnFamilyType> openSnapshotOnlyDb(final File path) {
+    return delegate.openSnapshotOnlyDb(path);
+  }
+
+  /** Deletes the directory of the database after closing it */
+  private static final class TemporaryDb<
+          ColumnFamilyType extends Enum<? extends EnumValue> & EnumValue>
+      implements ZeebeDb<ColumnFamilyType> {
+
+    private final ZeebeDb<ColumnFamilyType> delegate;
+    private final Path directory;
+
+    private TemporaryDb(final ZeebeDb<ColumnFamilyType> delegate, final Path directory) {
+      this.delegate = delegate;
+      this.directory = directory;
+    }
+
+    @Override
+    public <KeyType extends DbKey, ValueType extends DbValue>
+        ColumnFamily<KeyType, ValueType> createColumnFamily(
+            final ColumnFamilyType columnFamily,
+            final TransactionContext context,
+            final KeyType keyInstance,
+            final ValueType valueInstance) {
+      return delegate.createColumnFamily(columnFamily, context, keyInstance, valueInstance);
+    }
+
+    @Override
+    public void createSnapshot(final File snapshotDir) {
+      delegate.createSnapshot(snapshotDir);
+    }
+
+    @Override
+    public Optional<String> getProperty(final String propertyName) {
+      return delegate.getProperty(propertyName);
+    }
+
+    @Override
+    public TransactionContext createContext() {
+      return delegate.createContext();
+    }
+
+    @Override
+    public boolean isEmpty(final ColumnFamilyType column, final TransactionContext context) {
+      return delegate.isEmpty(column, context);
+    }
+
+    @Override
+    public void close() throws Exception {
+      try {
+        delegate.close();
+      } finally {
+        FileUtil.deleteFolderIfExists(directory);
+      }
+    }
+  }
+}
@@ -0,0 +1,70 @@
+/*
+ * Copyright Camunda Services GmbH and/or licensed to Camunda Services GmbH under
+ * one or more contributor license agreements. See the NOTICE file distributed
+ * with this work for additional information regarding copyright ownership.
+ * Licensed under the Zeebe Community License 1.1. You may not use this file
+ * except in compliance with the Zeebe Community License 1.1.
+ */
+package io.camunda.zeebe.process.test.engine.db;
+
+import io.camunda.zeebe.db.ZeebeDb;
+import io.camunda.zeebe.db.ZeebeDbFactory;
+import io.camunda.zeebe.protocol.EnumValue;
+import java.io.File;
+import java.nio.file.Path;
+
+/**
+ * Creates in memory databases which keep only the recently used values on the heap. Once the
+ * values exceed the configured number of bytes, the least recently used ones are spilled to a
+ * memory mapped file, which lets the values of long running tests outgrow the heap. The file is
+ * deleted when the database is closed.
+ *
+ * <p>The keys and about 135 bytes of bookkeeping per entry stay on the heap, see {@link
+ * InMemoryDbTieredStore}. This pays off for states with large values, for states of many entries
+ * with small values a {@link OffHeapInMemoryDbFactory} or a {@link TemporaryRocksDbFactory} keeps
+ * more of the state off the heap.
+ */
+public class TieredInMemoryDbFactory<
+        ColumnFamilyType extends Enum<? extends EnumValue> & EnumValue>
+    implements ZeebeDbFactory<ColumnFamilyType> {
+
+  /** The default number of value bytes which are kept on the heap */
+  public static final long DEFAULT_HOT_BYTES_LIMIT = 64L * 1024 * 1024;
+
+  private final long hotBytesLimit;
+  private final Path spillParentDirectory;
+
+  public TieredInMemoryDbFactory() {
+    this(DEFAULT_HOT_BYTES_LIMIT, null);
+  }
+
+  /**
+   * @param hotBytesLimit the number of value bytes which are kept on the heap
+   * @param spillParentDirectory the directory to create the spill files in, or {@code null} to use
+   *     the default temporary directory
+   */
+  public TieredInMemoryDbFactory(final long hotBytesLimit, final Path spillParentDirectory) {
+    if (hotBytesLimit < 0) {
+      throw new IllegalArgumentException(
+          "Expected the hot bytes limit to be non-negative, but was " + hotBytesLimit);
+    }
+    this.hotBytesLimit = hotBytesLimit;
+    this.spillParentDirectory = spillParentDirectory;
+  }
+
+  public ZeebeDb<ColumnFamilyType> createDb() {
+    return createDb(null);
+  }
+
+  @Override
+  public ZeebeDb<ColumnFamilyType> createDb(final File pathName) {
+    return new InMemoryDb<>(
+        InMemoryDbColumnFamilyStoreFactory.tiered(hotBytesLimit, spillParentDirectory));
+  }
+
+  @Override
+  public ZeebeDb<ColumnFamilyType> openSnapshotOnlyDb(final File path) {
+    return InMemoryDb.openSnapshot(
+        path, InMemoryDbColumnFamilyStoreFactory.tiered(hotBytesLimit, spillParentDirectory));
+  }
+}
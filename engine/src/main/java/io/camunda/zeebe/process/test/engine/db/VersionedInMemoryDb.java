@@ -0,0 +1,45 @@
+/*
+ * Copyright Camunda Services GmbH and/or licensed to Camunda Services GmbH under
+ * one or more contributor license agreements. See the NOTICE file distributed
+ * with this work for additional information regarding copyright ownership.
+ * Licensed under the Zeebe Community License 1.1. You may not use this file
+ * except in compliance with the Zeebe Community License 1.1.
+ */
+package io.camunda.zeebe.process.test.engine.db;
+
+import io.camunda.zeebe.db.TransactionContext;
+import io.camunda.zeebe.protocol.EnumValue;
+import java.io.File;
+
+/**
+ * In memory database backed by versioned stores, which publishes a new version of its state after
+ * every commit. Only this kind of database supports read contexts, the other stores can't be read
+ * concurrently.
+ *
+ * @param <ColumnFamilyType>
+ */
+final class VersionedInMemoryDb<ColumnFamilyType extends Enum<? extends EnumValue> & EnumValue>
+    extends InMemoryDb<ColumnFamilyType> implements VersionedZeebeDb<ColumnFamilyType> {
+
+  VersionedInMemoryDb() {
+    super(InMemoryDbColumnFamilyStoreFactory.VERSIONED);
+  }
+
+  /**
+   * Opens the snapshot in the given directory. The entries of the snapshot are copied into
+   * versioned stores.
+   *
+   * @param snapshotDir the directory of a snapshot taken by {@link #createSnapshot(File)}
+   * @return the database with the state of the snapshot
+   */
+  static <ColumnFamilyType extends Enum<? extends EnumValue> & EnumValue>
+      VersionedInMemoryDb<ColumnFamilyType> openSnapshot(final File snapshotDir) {
+    final VersionedInMemoryDb<ColumnFamilyType> db = new VersionedInMemoryDb<>();
+    return restoreSnapshot(db, snapshotDir);
+  }
+
+  @Override
+  public TransactionContext createReadContext() {
+    return new InMemoryDbTransactionContext(database.checkoutPublishedVersion());
+  }
+}
@@ -0,0 +1,36 @@
+/*
+ * Copyright Camunda Services GmbH and/or licensed to Camunda Services GmbH under
+ * one or more contributor license agreements. See the NOTICE file distributed
+ * with this work for additional information regarding copyright ownership.
+ * Licensed under the Zeebe Community License 1.1. You may not use this file
+ * except in compliance with the Zeebe Community License 1.1.
+ */
+package io.camunda.zeebe.process.test.engine.db;
+
+import io.camunda.zeebe.db.ZeebeDbFactory;
+import io.camunda.zeebe.protocol.EnumValue;
+import java.io.File;
+
+/**
+ * Creates in memory databases which keep every column family in a persistent sorted map. Each
+ * commit publishes a new version of the state, which can be read on other threads through {@link
+ * VersionedZeebeDb#createReadContext()}.
+ */
+public class VersionedInMemoryDbFactory<
+        ColumnFamilyType extends Enum<? extends EnumValue> & EnumValue>
+    implements ZeebeDbFactory<ColumnFamilyType> {
+
+  public VersionedZeebeDb<ColumnFamilyType> createDb() {
+    return createDb(null);
+  }
+
+  @Override
+  public VersionedZeebeDb<ColumnFamilyType> createDb(final File pathName) {
+    return new VersionedInMemoryDb<>();
+  }
+
+  @Override
+  public VersionedZeebeDb<ColumnFamilyType> openSnapshotOnlyDb(final File path) {
+    return VersionedInMemoryDb.openSnapshot(path);
+  }
+}
@@ -0,0 +1,32 @@
+/*
+ * Copyright Camunda Services GmbH and/or licensed to Camunda Services GmbH under
+ * one or more contributor license agreements. See the NOTICE file distributed
+ * with this work for additional information regarding copyright ownership.
+ * Licensed under the Zeebe Community License 1.1. You may not use this file
+ * except in compliance with the Zeebe Community License 1.1.
+ */
+package io.camunda.zeebe.process.test.engine.db;
+
+import io.camunda.zeebe.db.TransactionContext;
+import io.camunda.zeebe.db.ZeebeDb;
+import io.camunda.zeebe.protocol.EnumValue;
+
+/**
+ * A {@code ZeebeDb} which publishes an immutable version of its state with every commit. This
+ * allows to read the state on other threads while the stream processor keeps committing.
+ *
+ * @param <ColumnFamilyType>
+ */
+public interface VersionedZeebeDb<ColumnFamilyType extends Enum<? extends EnumValue> & EnumValue>
+    extends ZeebeDb<ColumnFamilyType> {
+
+  /**
+   * Creates a context which reads the state as of the last commit. Column families which are
+   * created with this context can be used on any thread, but only by one thread at a time. Later
+   * commits are not visible to the context. Changes done within the context are never visible to
+   * the database.
+   *
+   * @return a context pinned to the last committed version of the state
+   */
+  TransactionContext createReadContext();
+}
@@ -0,0 +1,96 @@
+/*
+ * Copyright Camunda Services GmbH and/or licensed to Camunda Services GmbH under
+ * one or more contributor license agreements. See the NOTICE file distributed
+ * with this work for additional information regarding copyright ownership.
+ * Licensed under the Zeebe Community License 1.1. You may not use this file
+ * except in compliance with the Zeebe Community License 1.1.
+ */
+package io.camunda.zeebe.process.test.engine;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.camunda.zeebe.logstreams.storage.LogStorage.CommitListener;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.awaitility.Awaitility;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+class CommitNotifierTest {
+
+  private final CommitNotifier commitNotifier = new CommitNotifier();
+
+  @AfterEach
+  void afterEach() {
+    commitNotifier.close();
+  }
+
+  @Test
+  void shouldNotifyListenersOffTheSignallingThread() {
+    // given
+    final CountDownLatch releaseListener = new CountDownLatch(1);
+    final AtomicInteger notifications = new AtomicInteger();
+    commitNotifier.addListener(
+        () -> {
+          awaitQuietly(releaseListener);
+          notifications.incrementAndGet();
+        });
+
+    // when
+    commitNotifier.signal();
+
+    // then
+    assertThat(notifications).hasValue(0);
+    releaseListener.countDown();
+    Awaitility.await().untilAsserted(() -> assertThat(notifications).hasValue(1));
+  }
+
+  @Test
+  void shouldCoalesceSignalsWhileNotificationIsPending() {
+    // given
+    final CountDownLatch releaseListener = new CountDownLatch(1);
+    final AtomicInteger notifications = new AtomicInteger();
+    commitNotifier.addListener(
+        () -> {
+          awaitQuietly(releaseListener);
+          notifications.incrementAndGet();
+        });
+
+    // when
+    for (int i = 0; i < 1_000; i++) {
+      commitNotifier.signal();
+    }
+    releaseListener.countDown();
+
+    // then
+    Awaitility.await().untilAsserted(() -> assertThat(notifications).hasPositiveValue());
+    assertThat(notifications.get()).isLessThanOrEqualTo(2);
+  }
+
+  @Test
+  void shouldNotNotifyRemovedListener() {
+    // given
+    final AtomicInteger removedNotifications = new AtomicInteger();
+    final AtomicInteger notifications = new AtomicInteger();
+    final CommitListener removedListener = removedNotifications::incrementAndGet;
+    commitNotifier.addListener(removedListener);
+    commitNotifier.addListener(notifications::incrementAndGet);
+
+    // when
+    commitNotifier.removeListener(removedListener);
+    commitNotifier.signal();
+
+    // then
+    Awaitility.await().untilAsserted(() -> assertThat(notifications).hasValue(1));
+    assertThat(removedNotifications).hasValue(0);
+  }
+
+  private static void awaitQuietly(final CountDownLatch latch) {
+    try {
+      latch.await(10, TimeUnit.SECONDS);
+    } catch (final InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+}
@@ -31,6 +31,8 @@ import io.camunda.client.api.response.ProcessInstanceResult;
 import io.camunda.client.api.response.SetVariablesResponse;
 import io.camunda.client.api.response.Topology;
 import io.camunda.zeebe.model.bpmn.Bpmn;
+import io.camunda.zeebe.process.test.api.RecordListener;
+import io.camunda.zeebe.process.test.api.RecordSubscription;
 import io.camunda.zeebe.process.test.api.ZeebeTestEngine;
 import io.camunda.zeebe.process.test.filters.JobRecordStreamFilter;
 import io.camunda.zeebe.process.test.filters.RecordStream;
@@ -179,6 +181,183 @@ class EngineClientTest {
         .containsEntry("message", "correlated");
   }
 
+  @Test
+  void shouldPushRecordsToSubscription() {
+    // given
+    final List<Record<?>> records = new CopyOnWriteArrayList<>();
+    final RecordSubscription subscription =
+        zeebeEngine.getRecordStreamSource().subscribe(-1, records::add);
+
+    // when
+    zeebeClient
+        .newDeployResourceCommand()
+        .addProcessModel(
+            Bpmn.createExecutableProcess("simpleProcess").startEvent().endEvent().done(),
+            "simpleProcess.bpmn")
+        .send()
+        .join();
+    zeebeClient
+        .newCreateInstanceCommand()
+        .bpmnProcessId("simpleProcess")
+        .latestVersion()
+        .withResult()
+        .send()
+        .join();
+
+    // then
+    Awaitility.await()
+        .untilAsserted(
+            () ->
+                assertThat(records)
+                    .extracting(Record::getIntent)
+                    .contains(ProcessInstanceIntent.ELEMENT_COMPLETED));
+    subscription.close();
+    assertThat(records)
+        .extracting(Record::getPosition)
+        .isSorted()
+        .doesNotHaveDuplicates()
+        .containsExactlyElementsOf(
+            StreamSupport.stream(
+                    zeebeEngine.getRecordStreamSource().getRecords().spliterator(), false)
+                .map(Record::getPosition)
+                .limit(records.size())
+                .toList());
+  }
+
+  @Test
+  void shouldPushPublishedRecordsOnThreadOfSource() throws Exception {
+    // given
+    zeebeClient
+        .newDeployResourceCommand()
+        .addProcessModel(
+            Bpmn.createExecutableProcess("simpleProcess").startEvent().endEvent().done(),
+            "simpleProcess.bpmn")
+        .send()
+        .join();
+    zeebeEngine.waitForIdleState(Duration.ofSeconds(5));
+    final List<Thread> listenerThreads = new CopyOnWriteArrayList<>();
+
+    // when
+    final RecordSubscription subscription =
+        zeebeEngine
+            .getRecordStreamSource()
+            .subscribe(-1, record -> listenerThreads.add(Thread.currentThread()));
+
+    // then
+    try {
+      Awaitility.await().until(() -> !listenerThreads.isEmpty());
+      assertThat(listenerThreads).doesNotContain(Thread.currentThread());
+    } finally {
+      subscription.close();
+    }
+  }
+
+  @Test
+  void shouldPassFailureOfListenerToSubscription() {
+    // given
+    final RuntimeException listenerFailure = new RuntimeException("expected");
+    final List<Throwable> failures = new CopyOnWriteArrayList<>();
+
+    // when
+    zeebeEngine
+        .getRecordStreamSource()
+        .subscribe(
+            -1,
+            new RecordListener() {
+              @Override
+              public void onRecord(final Record<?> record) {
+                throw listenerFailure;
+              }
+
+              @Override
+              public void onFailure(final Throwable failure) {
+                failures.add(failure);
+              }
+            });
+    zeebeClient
+        .newDeployResourceCommand()
+        .addProcessModel(
+            Bpmn.createExecutableProcess("simpleProcess").startEvent().endEvent().done(),
+            "simpleProcess.bpmn")
+        .send()
+        .join();
+
+    // then
+    Awaitility.await().untilAsserted(() -> assertThat(failures).containsExactly(listenerFailure));
+  }
+
+  @Test
+  void shouldNotPushRecordsAfterSubscriptionIsClosed() throws Exception {
+    // given
+    final List<Record<?>> records = new CopyOnWriteArrayList<>();
+    final RecordSubscription subscription =
+        zeebeEngine
+            .getRecordStreamSource()
+            .subscribe(
+                -1,
+                record -> {
+                  Uninterruptibles.sleepUninterruptibly(Duration.ofMillis(5));
+                  records.add(record);
+                });
+    zeebeClient
+        .newDeployResourceCommand()
+        .addProcessModel(
+            Bpmn.createExecutableProcess("simpleProcess").startEvent().endEvent().done(),
+            "simpleProcess.bpmn")
+        .send()
+        .join();
+    Awaitility.await().until(() -> !records.isEmpty());
+
+    // when
+    subscription.close();
+    final int recordsOnClose = records.size();
+    zeebeClient
+        .newCreateInstanceCommand()
+        .bpmnProcessId("simpleProcess")
+        .latestVersion()
+        .withResult()
+        .send()
+        .join();
+    zeebeEngine.waitForIdleState(Duration.ofSeconds(5));
+
+    // then
+    assertThat(records).hasSize(recordsOnClose);
+  }
+
+  @Test
+  void shouldReachIdleStateWhileSubscriptionIsBlocked() throws Exception {
+    // given
+    final Thread testThread = Thread.currentThread();
+    final CountDownLatch releaseListener = new CountDownLatch(1);
+    final RecordSubscription subscription =
+        zeebeEngine
+            .getRecordStreamSource()
+            .subscribe(
+                -1,
+                record -> {
+                  if (Thread.currentThread() != testThread) {
+                    Uninterruptibles.awaitUninterruptibly(releaseListener);
+                  }
+                });
+
+    // when
+    zeebeClient
+        .newDeployResourceCommand()
+        .addProcessModel(
+            Bpmn.createExecutableProcess("simpleProcess").startEvent().endEvent().done(),
+            "simpleProcess.bpmn")
+        .send()
+        .join();
+
+    // then
+    try {
+      zeebeEngine.waitForIdleState(Duration.ofSeconds(5));
+    } finally {
+      releaseListener.countDown();
+      subscription.close();
+    }
+  }
+
   @Test
   void shouldDeployProcess() {
     // given
@@ -0,0 +1,216 @@
+/*
+ * Copyright Camunda Services GmbH and/or licensed to Camunda Services GmbH under
+ * one or more contributor license agreements. See the NOTICE file distributed
+ * with this work for additional information regarding copyright ownership.
+ * Licensed under the Zeebe Community License 1.1. You may not use this file
+ * except in compliance with the Zeebe Community License 1.1.
+ */
+package io.camunda.zeebe.process.test.engine;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import io.camunda.client.CamundaClient;
+import io.camunda.client.api.response.ActivatedJob;
+import io.camunda.zeebe.db.impl.DbLong;
+import io.camunda.zeebe.db.impl.DbNil;
+import io.camunda.zeebe.model.bpmn.Bpmn;
+import io.camunda.zeebe.process.test.engine.db.InMemoryDbFactory;
+import io.camunda.zeebe.process.test.engine.db.TemporaryRocksDbFactory;
+import io.camunda.zeebe.process.test.engine.db.VersionedInMemoryDbFactory;
+import io.camunda.zeebe.protocol.ZbColumnFamilies;
+import io.camunda.zeebe.protocol.record.intent.ProcessInstanceIntent;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class InMemoryEngineTest {
+
+  @Test
+  void shouldReadStateWhileProcessing() throws Exception {
+    // given
+    final InMemoryEngine engine = EngineFactory.create(new VersionedInMemoryDbFactory<>());
+    engine.start();
+    final AtomicBoolean isProcessing = new AtomicBoolean(true);
+    final List<Long> elementInstanceCounts = new CopyOnWriteArrayList<>();
+
+    try (final CamundaClient client = engine.createClient()) {
+      client
+          .newDeployResourceCommand()
+          .addProcessModel(
+              Bpmn.createExecutableProcess("process")
+                  .startEvent()
+                  .serviceTask("task", task -> task.zeebeJobType("work"))
+                  .done(),
+              "process.bpmn")
+          .send()
+          .join();
+      final CompletableFuture<Void> reading =
+          CompletableFuture.runAsync(
+              () -> {
+                while (isProcessing.get()) {
+                  elementInstanceCounts.add(countElementInstances(engine));
+                }
+              });
+
+      // when
+      for (int i = 0; i < 20; i++) {
+        client.newCreateInstanceCommand().bpmnProcessId("process").latestVersion().send().join();
+      }
+      engine.waitForIdleState(Duration.ofSeconds(5));
+      isProcessing.set(false);
+      reading.join();
+
+      // then
+      assertThat(elementInstanceCounts).isNotEmpty();
+      // every process instance waits in its service task
+      assertThat(countElementInstances(engine)).isEqualTo(40);
+    } finally {
+      engine.stop();
+    }
+  }
+
+  @Test
+  void shouldRejectReadingStateOfDatabaseWithoutVersions() {
+    // given
+    final InMemoryEngine engine = EngineFactory.create(new InMemoryDbFactory<>());
+    engine.start();
+
+    // then
+    try {
+      assertThatThrownBy(() -> countElementInstances(engine))
+          .isInstanceOf(IllegalStateException.class);
+    } finally {
+      engine.stop();
+    }
+  }
+
+  @Test
+  void shouldRegisterDatabaseMetricsPerColumnFamily() {
+    // given
+    final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    final InMemoryEngine engine = EngineFactory.create(new InMemoryDbFactory<>(), meterRegistry);
+
+    // when
+    engine.start();
+
+    // then
+    try {
+      assertThat(
+              meterRegistry
+                  .get("zeebe.process.test.db.keys")
+                  .tag("columnFamily", ZbColumnFamilies.KEY.name())
+                  .gauge()
+                  .value())
+          .isNotNaN();
+      assertThat(meterRegistry.get("zeebe.process.test.db.memory.size").gauge().value())
+          .isNotNaN();
+    } finally {
+      engine.stop();
+    }
+  }
+
+  @Test
+  void shouldNotRegisterUnsupportedDatabaseMetrics() {
+    // given
+    final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    final InMemoryEngine engine =
+        EngineFactory.create(new TemporaryRocksDbFactory<>(), meterRegistry);
+
+    // when
+    engine.start();
+
+    // then
+    try {
+      assertThat(meterRegistry.find("zeebe.process.test.db.keys").meters()).isEmpty();
+      assertThat(meterRegistry.find("zeebe.process.test.db.live.data.size").meters()).isEmpty();
+      assertThat(meterRegistry.get("zeebe.process.test.db.memory.size").gauge().value())
+          .isNotNaN();
+    } finally {
+      engine.stop();
+    }
+  }
+
+  @Test
+  void shouldRemoveDatabaseMetricsWhenStopped() {
+    // given
+    final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    final InMemoryEngine engine = EngineFactory.create(new InMemoryDbFactory<>(), meterRegistry);
+    engine.start();
+
+    // when
+    engine.stop();
+
+    // then
+    assertThat(meterRegistry.getMeters())
+        .noneMatch(meter -> meter.getId().getName().startsWith("zeebe.process.test.db."));
+  }
+
+  @Test
+  void shouldProcessOnRocksDbAndDeleteItsDirectoryWhenStopped(@TempDir final Path tempDir) {
+    // given
+    final InMemoryEngine engine = EngineFactory.create(new TemporaryRocksDbFactory<>(tempDir));
+    engine.start();
+
+    try (final CamundaClient client = engine.createClient()) {
+      client
+          .newDeployResourceCommand()
+          .addProcessModel(
+              Bpmn.createExecutableProcess("process")
+                  .startEvent()
+                  .serviceTask("task", task -> task.zeebeJobType("work"))
+                  .endEvent()
+                  .done(),
+              "process.bpmn")
+          .send()
+          .join();
+      final long processInstanceKey =
+          client
+              .newCreateInstanceCommand()
+              .bpmnProcessId("process")
+              .latestVersion()
+              .send()
+              .join()
+              .getProcessInstanceKey();
+
+      // when
+      final List<ActivatedJob> jobs =
+          client
+              .newActivateJobsCommand()
+              .jobType("work")
+              .maxJobsToActivate(1)
+              .send()
+              .join()
+              .getJobs();
+      client.newCompleteCommand(jobs.get(0).getKey()).send().join();
+      engine.waitForIdleState(Duration.ofSeconds(5));
+
+      // then
+      assertThat(tempDir).isNotEmptyDirectory();
+      assertThat(jobs).hasSize(1);
+      assertThat(engine.getRecordStreamSource().getRecords())
+          .anyMatch(
+              record ->
+                  record.getKey() == processInstanceKey
+                      && record.getIntent() == ProcessInstanceIntent.ELEMENT_COMPLETED);
+    } finally {
+      engine.stop();
+    }
+    assertThat(tempDir).isEmptyDirectory();
+  }
+
+  private static long countElementInstances(final InMemoryEngine engine) {
+    return engine.readState(
+        (database, context) ->
+            database
+                .createColumnFamily(
+                    ZbColumnFamilies.ELEMENT_INSTANCE_KEY, context, new DbLong(), DbNil.INSTANCE)
+                .count());
+  }
+}
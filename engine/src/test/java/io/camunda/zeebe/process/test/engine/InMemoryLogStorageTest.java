@@ -0,0 +1,188 @@
+/*
+ * Copyright Camunda Services GmbH and/or licensed to Camunda Services GmbH under
+ * one or more contributor license agreements. See the NOTICE file distributed
+ * with this work for additional information regarding copyright ownership.
+ * Licensed under the Zeebe Community License 1.1. You may not use this file
+ * except in compliance with the Zeebe Community License 1.1.
+ */
+package io.camunda.zeebe.process.test.engine;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+import io.camunda.zeebe.logstreams.storage.LogStorage.AppendListener;
+import io.camunda.zeebe.logstreams.storage.LogStorageReader;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import org.agrona.DirectBuffer;
+import org.junit.jupiter.api.Test;
+
+class InMemoryLogStorageTest {
+
+  private final InMemoryLogStorage logStorage = new InMemoryLogStorage();
+  private final AppendListener listener = mock(AppendListener.class);
+
+  @Test
+  void shouldReadBlocksAcrossSegments() {
+    // given
+    final int blockCount = 100;
+    for (int i = 0; i < blockCount; i++) {
+      // large enough to fill several segments
+      appendBlock(i * 10L + 1, (byte) i, 8 * 1024);
+    }
+
+    // when
+    final List<Byte> blocks = new ArrayList<>();
+    try (final LogStorageReader reader = logStorage.newReader()) {
+      reader.forEachRemaining(block -> blocks.add(firstByteOf(block)));
+    }
+
+    // then
+    assertThat(blocks).hasSize(blockCount);
+    for (int i = 0; i < blockCount; i++) {
+      assertThat(blocks.get(i)).isEqualTo((byte) i);
+    }
+  }
+
+  @Test
+  void shouldReadBlockLargerThanSegment() {
+    // given
+    appendBlock(1, (byte) 1, 32 * 1024 * 1024);
+    appendBlock(2, (byte) 2, 16);
+
+    // when
+    final LogStorageReader reader = logStorage.newReader();
+    final DirectBuffer largeBlock = reader.next();
+    final int largeBlockLength = largeBlock.capacity();
+    final DirectBuffer smallBlock = reader.next();
+
+    // then
+    assertThat(largeBlockLength).isEqualTo(32 * 1024 * 1024);
+    assertThat(firstByteOf(smallBlock)).isEqualTo((byte) 2);
+    assertThat(smallBlock.capacity()).isEqualTo(16);
+  }
+
+  @Test
+  void shouldSeekToBlockBeforePosition() {
+    // given
+    appendBlock(1, (byte) 1, 16);
+    appendBlock(11, (byte) 2, 16);
+    appendBlock(21, (byte) 3, 16);
+
+    // when
+    final LogStorageReader reader = logStorage.newReader();
+    reader.seek(15);
+
+    // then
+    assertThat(firstByteOf(reader.next())).isEqualTo((byte) 2);
+  }
+
+  @Test
+  void shouldSeekToBlockOfExactPosition() {
+    // given
+    appendBlock(1, (byte) 1, 16);
+    appendBlock(11, (byte) 2, 16);
+    appendBlock(21, (byte) 3, 16);
+
+    // when
+    final LogStorageReader reader = logStorage.newReader();
+    reader.seek(11);
+
+    // then
+    assertThat(firstByteOf(reader.next())).isEqualTo((byte) 2);
+  }
+
+  @Test
+  void shouldSeekToFirstBlockIfPositionIsTooLow() {
+    // given
+    appendBlock(10, (byte) 1, 16);
+    appendBlock(20, (byte) 2, 16);
+
+    // when
+    final LogStorageReader reader = logStorage.newReader();
+    reader.seek(5);
+
+    // then
+    assertThat(firstByteOf(reader.next())).isEqualTo((byte) 1);
+  }
+
+  @Test
+  void shouldDropSegmentsBeforeRetainedPosition() {
+    // given
+    for (int i = 0; i < 100; i++) {
+      appendBlock(i * 10L + 1, (byte) i, 8 * 1024);
+    }
+
+    // when
+    logStorage.compact(501);
+    for (int i = 100; i < 200; i++) {
+      appendBlock(i * 10L + 1, (byte) i, 8 * 1024);
+    }
+
+    // then
+    final LogStorageReader reader = logStorage.newReader();
+    reader.seek(1);
+    final byte firstRetainedBlock = firstByteOf(reader.next());
+    assertThat(firstRetainedBlock).isPositive().isLessThanOrEqualTo((byte) 50);
+    assertThat(logStorage.lastPosition()).isEqualTo(1_999);
+  }
+
+  @Test
+  void shouldRetainBlocksOfSlowestReader() {
+    // given
+    final LogStorageReader slowReader = logStorage.newReader();
+    for (int i = 0; i < 100; i++) {
+      appendBlock(i * 10L + 1, (byte) i, 8 * 1024);
+    }
+    slowReader.next();
+
+    // when
+    logStorage.compact(501);
+    for (int i = 100; i < 200; i++) {
+      appendBlock(i * 10L + 1, (byte) i, 8 * 1024);
+    }
+
+    // then
+    assertThat(firstByteOf(slowReader.next())).isEqualTo((byte) 1);
+  }
+
+  @Test
+  void shouldReadBlocksWhileAppending() {
+    // given
+    final int blockCount = 10_000;
+    final CompletableFuture<Void> writer =
+        CompletableFuture.runAsync(
+            () -> {
+              for (int i = 0; i < blockCount; i++) {
+                appendBlock(i * 10L + 1, (byte) i, 64 + i % 1024);
+              }
+            });
+
+    // when
+    final List<Byte> blocks = new ArrayList<>();
+    try (final LogStorageReader reader = logStorage.newReader()) {
+      while (blocks.size() < blockCount) {
+        reader.forEachRemaining(block -> blocks.add(firstByteOf(block)));
+        Thread.onSpinWait();
+      }
+    }
+    writer.join();
+
+    // then
+    for (int i = 0; i < blockCount; i++) {
+      assertThat(blocks.get(i)).isEqualTo((byte) i);
+    }
+  }
+
+  private void appendBlock(final long lowestPosition, final byte content, final int length) {
+    final ByteBuffer block = ByteBuffer.allocate(length);
+    block.put(0, content);
+    logStorage.append(lowestPosition, lowestPosition + 9, block, listener);
+  }
+
+  private static byte firstByteOf(final DirectBuffer block) {
+    return block.getByte(0);
+  }
+}
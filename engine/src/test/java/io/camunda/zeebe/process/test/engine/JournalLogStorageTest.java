@@ -0,0 +1,184 @@
+/*
+ * Copyright Camunda Services GmbH and/or licensed to Camunda Services GmbH under
+ * one or more contributor license agreements. See the NOTICE file distributed
+ * with this work for additional information regarding copyright ownership.
+ * Licensed under the Zeebe Community License 1.1. You may not use this file
+ * except in compliance with the Zeebe Community License 1.1.
+ */
+package io.camunda.zeebe.process.test.engine;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+import io.camunda.zeebe.logstreams.storage.LogStorage.AppendListener;
+import io.camunda.zeebe.logstreams.storage.LogStorageReader;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class JournalLogStorageTest {
+
+  private final AppendListener listener = mock(AppendListener.class);
+  @TempDir private Path directory;
+  private JournalLogStorage journal;
+
+  @AfterEach
+  void tearDown() {
+    journal.close();
+  }
+
+  @Test
+  void shouldReadBlocksAfterReopening() {
+    // given
+    journal = JournalLogStorage.open(directory, JournalFlushPolicy.ON_EVERY_APPEND);
+    for (int i = 0; i < 100; i++) {
+      appendBlock(i * 10L + 1, i);
+    }
+    journal.close();
+
+    // when
+    journal = JournalLogStorage.open(directory, JournalFlushPolicy.ON_CLOSE);
+
+    // then
+    assertThat(readAll(journal.newReader())).hasSize(100).startsWith(0, 1, 2).endsWith(98, 99);
+  }
+
+  @Test
+  void shouldSeekToBlockBeforePosition() {
+    // given
+    journal = JournalLogStorage.open(directory, JournalFlushPolicy.ON_CLOSE);
+    for (int i = 0; i < 200; i++) {
+      appendBlock(i * 10L + 1, i);
+    }
+
+    // when
+    final LogStorageReader reader = journal.newReader();
+    reader.seek(1_505);
+
+    // then
+    assertThat(reader.next().getInt(0, ByteOrder.BIG_ENDIAN)).isEqualTo(150);
+  }
+
+  @Test
+  void shouldSeekToBlockOfExactPosition() {
+    // given
+    journal = JournalLogStorage.open(directory, JournalFlushPolicy.ON_CLOSE);
+    for (int i = 0; i < 200; i++) {
+      appendBlock(i * 10L + 1, i);
+    }
+
+    // when
+    final LogStorageReader indexedBlockReader = journal.newReader();
+    indexedBlockReader.seek(641);
+    final LogStorageReader scannedBlockReader = journal.newReader();
+    scannedBlockReader.seek(1_501);
+
+    // then
+    assertThat(indexedBlockReader.next().getInt(0, ByteOrder.BIG_ENDIAN)).isEqualTo(64);
+    assertThat(scannedBlockReader.next().getInt(0, ByteOrder.BIG_ENDIAN)).isEqualTo(150);
+  }
+
+  @Test
+  void shouldSeekToFirstBlockIfPositionIsTooLow() {
+    // given
+    journal = JournalLogStorage.open(directory, JournalFlushPolicy.ON_CLOSE);
+    appendBlock(10, 1);
+    appendBlock(20, 2);
+
+    // when
+    final LogStorageReader reader = journal.newReader();
+    reader.seek(5);
+
+    // then
+    assertThat(reader.next().getInt(0, ByteOrder.BIG_ENDIAN)).isEqualTo(1);
+  }
+
+  @Test
+  void shouldDiscardPartiallyWrittenBlock() throws IOException {
+    // given
+    journal = JournalLogStorage.open(directory, JournalFlushPolicy.ON_CLOSE);
+    appendBlock(1, 1);
+    appendBlock(2, 2);
+    journal.close();
+    corruptLastByteOfSecondBlock();
+
+    // when
+    journal = JournalLogStorage.open(directory, JournalFlushPolicy.ON_CLOSE);
+    appendBlock(3, 3);
+
+    // then
+    assertThat(readAll(journal.newReader())).containsExactly(1, 3);
+  }
+
+  @Test
+  void shouldReadBlocksWhileAppending() throws Exception {
+    // given
+    journal = JournalLogStorage.open(directory, JournalFlushPolicy.ON_CLOSE);
+    final int blockCount = 10_000;
+
+    // when
+    final CompletableFuture<List<Integer>> read =
+        CompletableFuture.supplyAsync(
+            () -> {
+              final LogStorageReader reader = journal.newReader();
+              final List<Integer> contents = new ArrayList<>();
+              while (contents.size() < blockCount) {
+                reader.forEachRemaining(
+                    block -> contents.add(block.getInt(0, ByteOrder.BIG_ENDIAN)));
+              }
+              return contents;
+            });
+    for (int i = 0; i < blockCount; i++) {
+      appendBlock(i + 1, i);
+    }
+
+    // then
+    final List<Integer> contents = read.get(30, TimeUnit.SECONDS);
+    assertThat(contents).hasSize(blockCount).startsWith(0, 1).endsWith(blockCount - 1);
+  }
+
+  @Test
+  void shouldKeepBlocksReadableAfterClose() {
+    // given
+    journal = JournalLogStorage.open(directory, JournalFlushPolicy.ON_CLOSE);
+    appendBlock(1, 1);
+    appendBlock(2, 2);
+    final LogStorageReader reader = journal.newReader();
+
+    // when
+    journal.close();
+
+    // then
+    assertThat(readAll(reader)).containsExactly(1, 2);
+  }
+
+  private void appendBlock(final long lowestPosition, final int content) {
+    final ByteBuffer block = ByteBuffer.allocate(Integer.BYTES * 4);
+    block.putInt(0, content);
+    journal.append(lowestPosition, lowestPosition, block, listener);
+  }
+
+  private void corruptLastByteOfSecondBlock() throws IOException {
+    // every block has a header of 24 bytes and 16 bytes of content
+    try (final RandomAccessFile file =
+        new RandomAccessFile(directory.resolve("journal-1.log").toFile(), "rw")) {
+      file.seek(2 * (24 + 16) - 1);
+      file.write(0xFF);
+    }
+  }
+
+  private static List<Integer> readAll(final LogStorageReader reader) {
+    final List<Integer> contents = new ArrayList<>();
+    reader.forEachRemaining(block -> contents.add(block.getInt(0, ByteOrder.BIG_ENDIAN)));
+    return contents;
+  }
+}
@@ -0,0 +1,144 @@
+/*
+ * Copyright Camunda Services GmbH and/or licensed to Camunda Services GmbH under
+ * one or more contributor license agreements. See the NOTICE file distributed
+ * with this work for additional information regarding copyright ownership.
+ * Licensed under the Zeebe Community License 1.1. You may not use this file
+ * except in compliance with the Zeebe Community License 1.1.
+ */
+package io.camunda.zeebe.process.test.engine;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import io.camunda.zeebe.protocol.impl.record.CopiedRecord;
+import io.camunda.zeebe.protocol.impl.record.UnifiedRecordValue;
+import io.camunda.zeebe.protocol.record.Record;
+import java.util.NoSuchElementException;
+import java.util.concurrent.CompletableFuture;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class LazyRecordListTest {
+
+  private final RecordDecoder decoder = mock(RecordDecoder.class);
+  private final LazyRecordList records = new LazyRecordList(decoder);
+
+  @BeforeEach
+  void beforeEach() {
+    when(decoder.read(anyLong()))
+        .thenAnswer(invocation -> recordAt(invocation.getArgument(0, Long.class)));
+  }
+
+  @Test
+  void shouldNotDecodeRecordsWhichAreNotAccessed() {
+    // given
+    for (int i = 1; i <= 100; i++) {
+      records.addPosition(i);
+    }
+
+    // when
+    final long position = records.position(50);
+
+    // then
+    assertThat(records).hasSize(100);
+    assertThat(position).isEqualTo(51);
+    verify(decoder, never()).read(anyLong());
+  }
+
+  @Test
+  void shouldDecodeRecordOnceWhenAccessedRepeatedly() {
+    // given
+    records.addPosition(1);
+    records.addPosition(2);
+
+    // when
+    final Record<?> firstAccess = records.get(1);
+    final Record<?> secondAccess = records.get(1);
+
+    // then
+    assertThat(firstAccess.getPosition()).isEqualTo(2);
+    assertThat(secondAccess).isSameAs(firstAccess);
+    verify(decoder, times(1)).read(2);
+  }
+
+  @Test
+  void shouldKeepRecordsFromIndexInTail() {
+    // given
+    for (int i = 1; i <= 100; i++) {
+      records.addPosition(i);
+    }
+
+    // when
+    final LazyRecordList tail = records.tail(64);
+    tail.addPosition(101);
+
+    // then
+    assertThat(records).hasSize(100);
+    assertThat(tail).hasSize(37);
+    assertThat(tail.position(0)).isEqualTo(65);
+    assertThat(tail.get(36).getPosition()).isEqualTo(101);
+  }
+
+  @Test
+  void shouldReturnPinnedRecordsAfterTheyWereDropped() {
+    // given
+    for (int i = 1; i <= 100; i++) {
+      records.addPosition(i);
+    }
+    final Record<?> cachedRecord = records.get(10);
+
+    // when
+    records.pinRecordsBefore(64);
+    doThrow(new NoSuchElementException("dropped")).when(decoder).read(anyLong());
+
+    // then
+    assertThat(records.get(10)).isSameAs(cachedRecord);
+    for (int index = 0; index < 64; index++) {
+      assertThat(records.get(index).getPosition()).isEqualTo(index + 1);
+    }
+    assertThatThrownBy(() -> records.get(64)).isInstanceOf(NoSuchElementException.class);
+  }
+
+  @Test
+  void shouldDecodeRecordsOnceWhenIteratingRepeatedlyWhileAppending() {
+    // given
+    final int recordCount = 5_000;
+    final CompletableFuture<Void> appending =
+        CompletableFuture.runAsync(
+            () -> {
+              for (int i = 1; i <= recordCount; i++) {
+                records.addPosition(i);
+              }
+            });
+
+    // when
+    for (int index = 0; index < recordCount; ) {
+      if (index < records.size()) {
+        assertThat(records.indexOfPosition(index + 1)).isEqualTo(index);
+        assertThat(records.get(index).getPosition()).isEqualTo(index + 1);
+        index++;
+      }
+    }
+    appending.join();
+    for (int index = 0; index < recordCount; index++) {
+      assertThat(records.get(index).getPosition()).isEqualTo(index + 1);
+    }
+
+    // then
+    verify(decoder, times(recordCount)).read(anyLong());
+  }
+
+  private static Record<?> recordAt(final long position) {
+    @SuppressWarnings("unchecked")
+    final CopiedRecord<UnifiedRecordValue> record = mock(CopiedRecord.class);
+    when(record.getPosition()).thenReturn(position);
+    return record;
+  }
+}
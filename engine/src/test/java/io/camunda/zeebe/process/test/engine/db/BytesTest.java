@@ -138,4 +138,42 @@ public class BytesTest {
     // when represented as bytes array
     Assertions.assertTrue(result < 0);
   }
+
+  @Test
+  public void shouldIncrementLastByteForUpperBound() {
+    // given
+    final Bytes prefix = Bytes.fromByteArray(new byte[] {1, 2, 3});
+
+    // when
+    final Bytes upperBound = prefix.exclusiveUpperBound();
+
+    // then
+    Assertions.assertArrayEquals(new byte[] {1, 2, 4}, upperBound.toBytes());
+    Assertions.assertTrue(
+        Bytes.fromByteArray(new byte[] {1, 2, 3, (byte) 0xFF}).compareTo(upperBound) < 0);
+  }
+
+  @Test
+  public void shouldDropTrailingMaxBytesForUpperBound() {
+    // given
+    final Bytes prefix = Bytes.fromByteArray(new byte[] {1, (byte) 0xFF, (byte) 0xFF});
+
+    // when
+    final Bytes upperBound = prefix.exclusiveUpperBound();
+
+    // then
+    Assertions.assertArrayEquals(new byte[] {2}, upperBound.toBytes());
+  }
+
+  @Test
+  public void shouldHaveNoUpperBoundIfAllBytesAreMax() {
+    // given
+    final Bytes prefix = Bytes.fromByteArray(new byte[] {(byte) 0xFF, (byte) 0xFF});
+
+    // when
+    final Bytes upperBound = prefix.exclusiveUpperBound();
+
+    // then
+    Assertions.assertNull(upperBound);
+  }
 }
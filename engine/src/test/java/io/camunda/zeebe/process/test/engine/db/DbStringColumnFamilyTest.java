@@ -8,7 +8,6 @@
 package io.camunda.zeebe.process.test.engine.db;
 
 import static org.assertj.core.api.Assertions.assertThat;
-import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
 import io.camunda.zeebe.db.ColumnFamily;
 import io.camunda.zeebe.db.ZeebeDb;
@@ -197,27 +196,26 @@ public final class DbStringColumnFamilyTest {
   }
 
   @Test
-  void shouldThrowExceptionOnMultipleNestedWhileEqualPrefix() {
+  void shouldAllowMultipleNestedWhileEqualPrefix() {
     // given
     putKeyValuePair("and", "be good");
+    putKeyValuePair("andy", "be nice");
     key.wrapString("and");
+    final List<String> innermostKeys = new ArrayList<>();
 
     // when
-    assertThatThrownBy(
-            () ->
-                columnFamily.whileEqualPrefix(
-                    key,
-                    (key, value) -> {
-                      columnFamily.whileEqualPrefix(
-                          key,
-                          (k, v) -> {
-                            columnFamily.whileEqualPrefix(key, (k2, v2) -> {});
-                          });
-                    }))
-        .hasRootCauseInstanceOf(IllegalStateException.class)
-        .hasMessage("Unexpected error occurred during zeebe db transaction operation.")
-        .hasStackTraceContaining(
-            "Currently nested prefix iterations of this depth are not supported! This will cause unexpected behavior.");
+    columnFamily.whileEqualPrefix(
+        key,
+        (key, value) -> {
+          columnFamily.whileEqualPrefix(
+              key,
+              (k, v) -> {
+                columnFamily.whileEqualPrefix(key, (k2, v2) -> innermostKeys.add(k2.toString()));
+              });
+        });
+
+    // then
+    assertThat(innermostKeys).containsExactly("and");
   }
 
   private void putKeyValuePair(final String key, final String value) {
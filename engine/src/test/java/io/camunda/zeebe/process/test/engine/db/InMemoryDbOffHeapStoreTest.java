@@ -0,0 +1,121 @@
+/*
+ * Copyright Camunda Services GmbH and/or licensed to Camunda Services GmbH under
+ * one or more contributor license agreements. See the NOTICE file distributed
+ * with this work for additional information regarding copyright ownership.
+ * Licensed under the Zeebe Community License 1.1. You may not use this file
+ * except in compliance with the Zeebe Community License 1.1.
+ */
+package io.camunda.zeebe.process.test.engine.db;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+class InMemoryDbOffHeapStoreTest {
+
+  private final InMemoryDbOffHeapStore store = new InMemoryDbOffHeapStore();
+
+  @AfterEach
+  void tearDown() {
+    store.close();
+  }
+
+  @Test
+  void shouldIterateInKeyOrder() {
+    // given
+    store.put(bytes("b"), bytes("2"));
+    store.put(bytes("c"), bytes("3"));
+    store.put(bytes("a"), bytes("1"));
+
+    // when
+    final List<String> keys = keys(store.iterator(null, null));
+
+    // then
+    assertThat(keys).containsExactly("a", "b", "c");
+  }
+
+  @Test
+  void shouldIterateOverRange() {
+    // given
+    store.put(bytes("a"), bytes("1"));
+    store.put(bytes("b"), bytes("2"));
+    store.put(bytes("c"), bytes("3"));
+
+    // when
+    final List<String> keys = keys(store.iterator(bytes("b"), bytes("c")));
+
+    // then
+    assertThat(keys).containsExactly("b");
+  }
+
+  @Test
+  void shouldUpdateValueWithDifferentLength() {
+    // given
+    store.put(bytes("a"), bytes("1"));
+
+    // when
+    store.put(bytes("a"), bytes("longer value"));
+
+    // then
+    assertThat(store.get(bytes("a"))).isEqualTo(bytes("longer value"));
+    assertThat(store.size()).isOne();
+  }
+
+  @Test
+  void shouldKeepEntriesWhenReclaimingSpace() {
+    // given
+    final byte[] value = new byte[1024];
+    for (int i = 0; i < 1_000; i++) {
+      store.put(bytes("key-" + i), Bytes.fromByteArray(value));
+    }
+
+    // when
+    for (int i = 0; i < 1_000; i += 2) {
+      store.remove(bytes("key-" + i));
+    }
+    store.put(bytes("key-0"), bytes("new"));
+
+    // then
+    assertThat(store.size()).isEqualTo(501);
+    assertThat(store.get(bytes("key-0"))).isEqualTo(bytes("new"));
+    assertThat(store.get(bytes("key-1"))).isEqualTo(Bytes.fromByteArray(value));
+    assertThat(store.containsKey(bytes("key-2"))).isFalse();
+    assertThat(store.get(bytes("key-999"))).isEqualTo(Bytes.fromByteArray(value));
+  }
+
+  @Test
+  void shouldCapArenaCapacityToLargestBuffer() {
+    // when
+    final int capacity = InMemoryDbOffHeapStore.arenaCapacity(1_500_000_000L);
+
+    // then
+    assertThat(capacity).isEqualTo(Integer.MAX_VALUE);
+    assertThat(InMemoryDbOffHeapStore.arenaCapacity(1_000)).isEqualTo(1_024);
+  }
+
+  @Test
+  void shouldRejectArenaLargerThanLargestBuffer() {
+    // when + then
+    assertThatThrownBy(() -> InMemoryDbOffHeapStore.arenaCapacity(Integer.MAX_VALUE + 1L))
+        .isInstanceOf(IllegalStateException.class)
+        .hasMessageContaining("Expected column family to fit into");
+  }
+
+  private static List<String> keys(final Iterator<Map.Entry<Bytes, Bytes>> iterator) {
+    final List<String> keys = new ArrayList<>();
+    iterator.forEachRemaining(
+        entry -> keys.add(new String(entry.getKey().toBytes(), StandardCharsets.UTF_8)));
+    return keys;
+  }
+
+  private static Bytes bytes(final String value) {
+    return Bytes.fromByteArray(value.getBytes(StandardCharsets.UTF_8));
+  }
+}
@@ -0,0 +1,80 @@
+/*
+ * Copyright Camunda Services GmbH and/or licensed to Camunda Services GmbH under
+ * one or more contributor license agreements. See the NOTICE file distributed
+ * with this work for additional information regarding copyright ownership.
+ * Licensed under the Zeebe Community License 1.1. You may not use this file
+ * except in compliance with the Zeebe Community License 1.1.
+ */
+package io.camunda.zeebe.process.test.engine.db;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import org.junit.jupiter.api.Test;
+
+class InMemoryDbPersistentStoreTest {
+
+  private final InMemoryDbPersistentStore store = new InMemoryDbPersistentStore();
+
+  @Test
+  void shouldBehaveLikeSortedMap() {
+    // given
+    final TreeMap<Bytes, Bytes> expected = new TreeMap<>();
+    final Random random = new Random(42);
+
+    // when
+    for (int i = 0; i < 10_000; i++) {
+      final Bytes key = bytes(random.nextInt(1_000));
+      if (random.nextInt(3) == 0) {
+        store.remove(key);
+        expected.remove(key);
+      } else {
+        store.put(key, bytes(i));
+        expected.put(key, bytes(i));
+      }
+    }
+
+    // then
+    assertThat(store.size()).isEqualTo(expected.size());
+    assertThat(entries(store, null, null)).containsExactlyElementsOf(expected.entrySet());
+    assertThat(entries(store, bytes(100), bytes(200)))
+        .containsExactlyElementsOf(expected.subMap(bytes(100), bytes(200)).entrySet());
+  }
+
+  @Test
+  void shouldNotSeeWritesAfterFork() {
+    // given
+    store.put(bytes(1), bytes(10));
+    store.put(bytes(2), bytes(20));
+
+    // when
+    final InMemoryDbColumnFamilyStore fork = store.fork();
+    store.put(bytes(1), bytes(11));
+    store.remove(bytes(2));
+    fork.put(bytes(3), bytes(30));
+
+    // then
+    assertThat(fork.get(bytes(1))).isEqualTo(bytes(10));
+    assertThat(fork.get(bytes(2))).isEqualTo(bytes(20));
+    assertThat(fork.size()).isEqualTo(3);
+    assertThat(store.get(bytes(1))).isEqualTo(bytes(11));
+    assertThat(store.containsKey(bytes(3))).isFalse();
+    assertThat(store.size()).isOne();
+  }
+
+  private static List<Map.Entry<Bytes, Bytes>> entries(
+      final InMemoryDbColumnFamilyStore store, final Bytes startKey, final Bytes endKey) {
+    final List<Map.Entry<Bytes, Bytes>> entries = new ArrayList<>();
+    store.iterator(startKey, endKey).forEachRemaining(entries::add);
+    return entries;
+  }
+
+  private static Bytes bytes(final int value) {
+    return Bytes.fromByteArray(ByteBuffer.allocate(Integer.BYTES).putInt(value).array());
+  }
+}
@@ -0,0 +1,90 @@
+/*
+ * Copyright Camunda Services GmbH and/or licensed to Camunda Services GmbH under
+ * one or more contributor license agreements. See the NOTICE file distributed
+ * with this work for additional information regarding copyright ownership.
+ * Licensed under the Zeebe Community License 1.1. You may not use this file
+ * except in compliance with the Zeebe Community License 1.1.
+ */
+package io.camunda.zeebe.process.test.engine.db;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.camunda.zeebe.db.ColumnFamily;
+import io.camunda.zeebe.db.ZeebeDb;
+import io.camunda.zeebe.db.impl.DbLong;
+import io.camunda.zeebe.db.impl.DefaultColumnFamily;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class InMemoryDbPropertiesTest {
+
+  private final InMemoryDbFactory<DefaultColumnFamily> dbFactory = new InMemoryDbFactory<>();
+  private ZeebeDb<DefaultColumnFamily> zeebeDb;
+  private ColumnFamily<DbLong, DbLong> columnFamily;
+  private final DbLong key = new DbLong();
+  private final DbLong value = new DbLong();
+
+  @BeforeEach
+  void setup() {
+    zeebeDb = dbFactory.createDb();
+    columnFamily =
+        zeebeDb.createColumnFamily(
+            DefaultColumnFamily.DEFAULT, zeebeDb.createContext(), key, value);
+  }
+
+  @AfterEach
+  void tearDown() {
+    zeebeDb.close();
+  }
+
+  @Test
+  void shouldEstimateNumberOfKeys() {
+    // given
+    upsert(1, 10);
+    upsert(2, 20);
+    upsert(2, 21);
+
+    // when
+    final var total = zeebeDb.getProperty("rocksdb.estimate-num-keys");
+    final var columnFamilyKeys = zeebeDb.getProperty("rocksdb.estimate-num-keys.DEFAULT");
+
+    // then
+    assertThat(total).contains("2");
+    assertThat(columnFamilyKeys).contains("2");
+  }
+
+  @Test
+  void shouldEstimateLiveDataSize() {
+    // given
+    upsert(1, 10);
+    upsert(2, 20);
+    key.wrapLong(1);
+    columnFamily.deleteExisting(key);
+
+    // when
+    final var liveDataSize = zeebeDb.getProperty("rocksdb.estimate-live-data-size.DEFAULT");
+    final var memTableSize = zeebeDb.getProperty("rocksdb.cur-size-all-mem-tables");
+
+    // then
+    assertThat(liveDataSize).contains(String.valueOf(2 * Long.BYTES));
+    assertThat(memTableSize).contains(String.valueOf(2 * Long.BYTES));
+  }
+
+  @Test
+  void shouldNotReturnUnknownProperties() {
+    // when
+    final var unknownProperty = zeebeDb.getProperty("rocksdb.estimate-table-readers-mem");
+    final var unknownColumnFamily = zeebeDb.getProperty("rocksdb.estimate-num-keys.UNKNOWN");
+
+    // then
+    assertThat(unknownProperty).isEmpty();
+    assertThat(unknownColumnFamily).isEmpty();
+  }
+
+  private void upsert(final long k, final long v) {
+    key.wrapLong(k);
+    value.wrapLong(v);
+    columnFamily.upsert(key, value);
+  }
+}
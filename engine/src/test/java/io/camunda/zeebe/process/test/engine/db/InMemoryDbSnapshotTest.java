@@ -0,0 +1,182 @@
+/*
+ * Copyright Camunda Services GmbH and/or licensed to Camunda Services GmbH under
+ * one or more contributor license agreements. See the NOTICE file distributed
+ * with this work for additional information regarding copyright ownership.
+ * Licensed under the Zeebe Community License 1.1. You may not use this file
+ * except in compliance with the Zeebe Community License 1.1.
+ */
+package io.camunda.zeebe.process.test.engine.db;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import io.camunda.zeebe.db.ColumnFamily;
+import io.camunda.zeebe.db.ZeebeDb;
+import io.camunda.zeebe.db.impl.DbLong;
+import io.camunda.zeebe.db.impl.DefaultColumnFamily;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+class InMemoryDbSnapshotTest {
+
+  // the header of the snapshot is followed by the header of the first section
+  private static final int ENTRY_COUNT_POSITION = 3 * Integer.BYTES + Integer.BYTES;
+  private static final int SECTION_LENGTH_POSITION = ENTRY_COUNT_POSITION + Integer.BYTES;
+
+  private final InMemoryDbFactory<DefaultColumnFamily> dbFactory = new InMemoryDbFactory<>();
+  private final List<ZeebeDb<DefaultColumnFamily>> openDbs = new ArrayList<>();
+  private final DbLong key = new DbLong();
+  private final DbLong value = new DbLong();
+
+  @TempDir private Path tempDir;
+
+  @AfterEach
+  void tearDown() {
+    openDbs.forEach(ZeebeDb::close);
+  }
+
+  @Test
+  void shouldRestoreCommittedState() {
+    // given
+    final ZeebeDb<DefaultColumnFamily> zeebeDb = track(dbFactory.createDb());
+    final ColumnFamily<DbLong, DbLong> columnFamily = columnFamily(zeebeDb);
+    upsert(columnFamily, 3, 30);
+    upsert(columnFamily, 1, 10);
+    upsert(columnFamily, 2, 20);
+
+    final File snapshotDir = tempDir.resolve("snapshot").toFile();
+
+    // when
+    zeebeDb.createSnapshot(snapshotDir);
+    final ZeebeDb<DefaultColumnFamily> snapshotDb =
+        track(dbFactory.openSnapshotOnlyDb(snapshotDir));
+
+    // then
+    final List<Long> values = new ArrayList<>();
+    columnFamily(snapshotDb).forEach((k, v) -> values.add(v.getValue()));
+    assertThat(values).containsExactly(10L, 20L, 30L);
+  }
+
+  @Test
+  void shouldNotChangeSnapshotWhenWritingToRestoredState() {
+    // given
+    final ZeebeDb<DefaultColumnFamily> zeebeDb = track(dbFactory.createDb());
+    upsert(columnFamily(zeebeDb), 1, 10);
+
+    final File snapshotDir = tempDir.resolve("snapshot").toFile();
+    zeebeDb.createSnapshot(snapshotDir);
+
+    // when
+    final ColumnFamily<DbLong, DbLong> restored =
+        columnFamily(track(dbFactory.openSnapshotOnlyDb(snapshotDir)));
+    upsert(restored, 1, 11);
+    upsert(restored, 2, 20);
+
+    // then
+    key.wrapLong(1);
+    assertThat(restored.get(key).getValue()).isEqualTo(11);
+    assertThat(restored.count()).isEqualTo(2);
+
+    final ColumnFamily<DbLong, DbLong> reopened =
+        columnFamily(track(dbFactory.openSnapshotOnlyDb(snapshotDir)));
+    assertThat(reopened.get(key).getValue()).isEqualTo(10);
+    assertThat(reopened.count()).isEqualTo(1);
+  }
+
+  @Test
+  void shouldMoveCompleteSnapshotIntoPlace() {
+    // given
+    final ZeebeDb<DefaultColumnFamily> zeebeDb = track(dbFactory.createDb());
+    upsert(columnFamily(zeebeDb), 1, 10);
+
+    final File snapshotDir = tempDir.resolve("snapshot").toFile();
+
+    // when
+    zeebeDb.createSnapshot(snapshotDir);
+
+    // then
+    assertThat(snapshotDir.list()).containsExactly(InMemoryDbSnapshot.SNAPSHOT_FILE_NAME);
+  }
+
+  @ParameterizedTest
+  @ValueSource(longs = {-1, 1024 * 1024, 17})
+  void shouldRejectSnapshotWithCorruptSectionLength(final long sectionLength) throws IOException {
+    // given
+    final File snapshotDir = createSnapshotOfTwoEntries();
+    overwriteSnapshot(snapshotDir, SECTION_LENGTH_POSITION, Long.BYTES, sectionLength);
+
+    // then
+    assertThatThrownBy(() -> dbFactory.openSnapshotOnlyDb(snapshotDir))
+        .isInstanceOf(UncheckedIOException.class)
+        .hasCauseInstanceOf(IOException.class);
+  }
+
+  @ParameterizedTest
+  @ValueSource(ints = {-1, 1, 3, Integer.MAX_VALUE})
+  void shouldRejectSnapshotWithCorruptEntryCount(final int entryCount) throws IOException {
+    // given
+    final File snapshotDir = createSnapshotOfTwoEntries();
+    overwriteSnapshot(snapshotDir, ENTRY_COUNT_POSITION, Integer.BYTES, entryCount);
+
+    // then
+    assertThatThrownBy(() -> dbFactory.openSnapshotOnlyDb(snapshotDir))
+        .isInstanceOf(UncheckedIOException.class)
+        .hasCauseInstanceOf(IOException.class);
+  }
+
+  private File createSnapshotOfTwoEntries() {
+    final ZeebeDb<DefaultColumnFamily> zeebeDb = track(dbFactory.createDb());
+    upsert(columnFamily(zeebeDb), 1, 10);
+    upsert(columnFamily(zeebeDb), 2, 20);
+
+    final File snapshotDir = tempDir.resolve("snapshot").toFile();
+    zeebeDb.createSnapshot(snapshotDir);
+    return snapshotDir;
+  }
+
+  private static void overwriteSnapshot(
+      final File snapshotDir, final int position, final int length, final long value)
+      throws IOException {
+    final ByteBuffer buffer = ByteBuffer.allocate(length);
+    if (length == Long.BYTES) {
+      buffer.putLong(value);
+    } else {
+      buffer.putInt((int) value);
+    }
+
+    try (final FileChannel channel =
+        FileChannel.open(
+            snapshotDir.toPath().resolve(InMemoryDbSnapshot.SNAPSHOT_FILE_NAME),
+            StandardOpenOption.WRITE)) {
+      channel.write(buffer.flip(), position);
+    }
+  }
+
+  private ZeebeDb<DefaultColumnFamily> track(final ZeebeDb<DefaultColumnFamily> zeebeDb) {
+    openDbs.add(zeebeDb);
+    return zeebeDb;
+  }
+
+  private ColumnFamily<DbLong, DbLong> columnFamily(final ZeebeDb<DefaultColumnFamily> zeebeDb) {
+    return zeebeDb.createColumnFamily(
+        DefaultColumnFamily.DEFAULT, zeebeDb.createContext(), key, value);
+  }
+
+  private void upsert(final ColumnFamily<DbLong, DbLong> columnFamily, final long k, final long v) {
+    key.wrapLong(k);
+    value.wrapLong(v);
+    columnFamily.upsert(key, value);
+  }
+}
@@ -0,0 +1,172 @@
+/*
+ * Copyright Camunda Services GmbH and/or licensed to Camunda Services GmbH under
+ * one or more contributor license agreements. See the NOTICE file distributed
+ * with this work for additional information regarding copyright ownership.
+ * Licensed under the Zeebe Community License 1.1. You may not use this file
+ * except in compliance with the Zeebe Community License 1.1.
+ */
+package io.camunda.zeebe.process.test.engine.db;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class InMemoryDbTieredStoreTest {
+
+  private static final int HOT_BYTES_LIMIT = 10;
+
+  @TempDir private Path spillParentDirectory;
+  private InMemoryDbTiering tiering;
+  private InMemoryDbTieredStore store;
+
+  @BeforeEach
+  void setUp() {
+    tiering = new InMemoryDbTiering(HOT_BYTES_LIMIT, spillParentDirectory);
+    store = new InMemoryDbTieredStore(tiering);
+  }
+
+  @AfterEach
+  void tearDown() {
+    store.close();
+    tiering.close();
+  }
+
+  @Test
+  void shouldSpillLeastRecentlyUsedValues() {
+    // given
+    for (int i = 0; i < 10; i++) {
+      store.put(bytes("key-" + i), bytes("value-" + i));
+    }
+
+    // when
+    final Bytes value = store.get(bytes("key-0"));
+
+    // then
+    assertThat(value).isEqualTo(bytes("value-0"));
+    assertThat(tiering.hotBytes()).isLessThanOrEqualTo(HOT_BYTES_LIMIT);
+    assertThat(store.size()).isEqualTo(10);
+    for (int i = 0; i < 10; i++) {
+      assertThat(store.get(bytes("key-" + i))).isEqualTo(bytes("value-" + i));
+    }
+  }
+
+  @Test
+  void shouldIterateOverSpilledValues() {
+    // given
+    for (int i = 0; i < 10; i++) {
+      store.put(bytes("key-" + i), bytes("value-" + i));
+    }
+    final long hotBytes = tiering.hotBytes();
+
+    // when
+    final List<String> values = new ArrayList<>();
+    store
+        .iterator(bytes("key-2"), bytes("key-5"))
+        .forEachRemaining(entry -> values.add(string(entry.getValue())));
+
+    // then
+    assertThat(values).containsExactly("value-2", "value-3", "value-4");
+    assertThat(tiering.hotBytes()).isEqualTo(hotBytes);
+  }
+
+  @Test
+  void shouldUpdateSpilledValue() {
+    // given
+    for (int i = 0; i < 10; i++) {
+      store.put(bytes("key-" + i), bytes("value-" + i));
+    }
+
+    // when
+    store.put(bytes("key-0"), bytes("new"));
+
+    // then
+    assertThat(store.get(bytes("key-0"))).isEqualTo(bytes("new"));
+    assertThat(store.size()).isEqualTo(10);
+  }
+
+  @Test
+  void shouldRemoveSpilledValue() {
+    // given
+    for (int i = 0; i < 10; i++) {
+      store.put(bytes("key-" + i), bytes("value-" + i));
+    }
+
+    // when
+    store.remove(bytes("key-0"));
+
+    // then
+    assertThat(store.containsKey(bytes("key-0"))).isFalse();
+    assertThat(store.get(bytes("key-0"))).isNull();
+    assertThat(store.size()).isEqualTo(9);
+  }
+
+  @Test
+  void shouldReclaimSpaceOfUpdatedValues() {
+    // given
+    final byte[] value = new byte[1024];
+    for (int i = 0; i < 10; i++) {
+      store.put(bytes("key-" + i), Bytes.fromByteArray(value));
+    }
+
+    // when
+    for (int round = 0; round < 200; round++) {
+      value[0] = (byte) round;
+      for (int i = 0; i < 10; i++) {
+        store.put(bytes("key-" + i), Bytes.fromByteArray(value));
+      }
+    }
+
+    // then
+    assertThat(tiering.spillFileBytes()).isLessThan(128 * 1024);
+    for (int i = 0; i < 10; i++) {
+      assertThat(store.get(bytes("key-" + i))).isEqualTo(Bytes.fromByteArray(value));
+    }
+  }
+
+  @Test
+  void shouldNotCompactSpillFileWhenClosingStore() {
+    // given
+    final byte[] value = new byte[1024];
+    for (int i = 0; i < 100; i++) {
+      store.put(bytes("key-" + i), Bytes.fromByteArray(value));
+    }
+    final long spillFileBytes = tiering.spillFileBytes();
+
+    // when
+    store.close();
+
+    // then
+    assertThat(spillFileBytes).isGreaterThan(64 * 1024);
+    assertThat(tiering.spillFileBytes()).isEqualTo(spillFileBytes);
+  }
+
+  @Test
+  void shouldDeleteSpillFileOnClose() {
+    // given
+    for (int i = 0; i < 10; i++) {
+      store.put(bytes("key-" + i), bytes("value-" + i));
+    }
+
+    // when
+    store.close();
+    tiering.close();
+
+    // then
+    assertThat(spillParentDirectory).isEmptyDirectory();
+  }
+
+  private static Bytes bytes(final String value) {
+    return Bytes.fromByteArray(value.getBytes(StandardCharsets.UTF_8));
+  }
+
+  private static String string(final Bytes bytes) {
+    return new String(bytes.toBytes(), StandardCharsets.UTF_8);
+  }
+}
@@ -424,6 +424,45 @@ public final class InMemoryZeebeDbColumnFamilyTest {
     assertThat(columnFamily.isEmpty()).isTrue();
   }
 
+  @Test
+  void shouldIterateInByteOrderOfKeys() {
+    // given
+    for (final long longKey : new long[] {-1L, Long.MIN_VALUE, 0L, Long.MAX_VALUE, 42L}) {
+      key.wrapLong(longKey);
+      value.wrapLong(longKey);
+      columnFamily.insert(key, value);
+    }
+
+    // when
+    final List<Long> keys = new ArrayList<>();
+    columnFamily.forEach((key, value) -> keys.add(key.getValue()));
+
+    // then - the keys are serialized big endian, so negative keys come last
+    assertThat(keys).containsExactly(0L, 42L, Long.MAX_VALUE, Long.MIN_VALUE, -1L);
+  }
+
+  @Test
+  void shouldStartIterationAtKey() {
+    // given
+    insertKeyValuePair(4567, 123);
+    insertKeyValuePair(6734, 921);
+    insertKeyValuePair(1213, 255);
+    insertKeyValuePair(1, Short.MAX_VALUE);
+
+    // when
+    final List<Long> keys = new ArrayList<>();
+    key.wrapLong(1214);
+    columnFamily.whileTrue(
+        key,
+        (key, value) -> {
+          keys.add(key.getValue());
+          return true;
+        });
+
+    // then
+    assertThat(keys).containsExactly(4567L, 6734L);
+  }
+
   private void insertKeyValuePair(final int key, final int value) {
     this.key.wrapLong(key);
     this.value.wrapLong(value);
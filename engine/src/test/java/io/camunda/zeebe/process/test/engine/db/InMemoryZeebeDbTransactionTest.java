@@ -16,7 +16,9 @@ import io.camunda.zeebe.db.ZeebeDb;
 import io.camunda.zeebe.db.ZeebeDbTransaction;
 import io.camunda.zeebe.db.impl.DbLong;
 import io.camunda.zeebe.protocol.EnumValue;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.atomic.AtomicLong;
 import org.junit.jupiter.api.BeforeEach;
@@ -556,6 +558,156 @@ public final class InMemoryZeebeDbTransactionTest {
         });
   }
 
+  @Test
+  void shouldIterateInKeyOrderOverCommittedAndUncommittedValues() {
+    // given
+    upsertOne(1, -1);
+    upsertOne(3, -3);
+    upsertOne(5, -5);
+
+    final List<Long> keys = new ArrayList<>();
+    final List<Long> values = new ArrayList<>();
+
+    // when
+    transactionContext.runInTransaction(
+        () -> {
+          upsertOne(2, -2);
+          upsertOne(4, -4);
+          upsertOne(5, -50);
+          oneKey.wrapLong(3);
+          oneColumnFamily.deleteExisting(oneKey);
+
+          oneColumnFamily.forEach(
+              (k, v) -> {
+                keys.add(k.getValue());
+                values.add(v.getValue());
+              });
+        });
+
+    // then
+    assertThat(keys).containsExactly(1L, 2L, 4L, 5L);
+    assertThat(values).containsExactly(-1L, -2L, -4L, -50L);
+  }
+
+  @Test
+  void shouldIterateInKeyOrderWhenWritingBetweenIterations() {
+    // given
+    upsertOne(4, -4);
+    final List<List<Long>> iterations = new ArrayList<>();
+
+    // when
+    transactionContext.runInTransaction(
+        () -> {
+          for (final long key : new long[] {5, 1, 3, 2}) {
+            upsertOne(key, -key);
+            final List<Long> keys = new ArrayList<>();
+            oneColumnFamily.forEach((k, v) -> keys.add(k.getValue()));
+            iterations.add(keys);
+          }
+        });
+
+    // then
+    assertThat(iterations)
+        .containsExactly(
+            List.of(4L, 5L),
+            List.of(1L, 4L, 5L),
+            List.of(1L, 3L, 4L, 5L),
+            List.of(1L, 2L, 3L, 4L, 5L));
+  }
+
+  @Test
+  void shouldCommitLastChangeOfRepeatedlyChangedKeys() {
+    // given
+    upsertOne(2, -2);
+
+    // when
+    transactionContext.runInTransaction(
+        () -> {
+          upsertOne(1, -1);
+          oneKey.wrapLong(1);
+          oneColumnFamily.deleteExisting(oneKey);
+          upsertOne(1, -10);
+
+          upsertOne(2, -20);
+          oneKey.wrapLong(2);
+          oneColumnFamily.deleteExisting(oneKey);
+        });
+
+    // then
+    oneKey.wrapLong(1);
+    assertThat(oneColumnFamily.get(oneKey).getValue()).isEqualTo(-10);
+    oneKey.wrapLong(2);
+    assertThat(oneColumnFamily.exists(oneKey)).isFalse();
+    assertThat(oneColumnFamily.count()).isOne();
+  }
+
+  @Test
+  void shouldCountUncommittedChanges() throws Exception {
+    // given
+    upsertOne(1, -1);
+    upsertOne(2, -2);
+    final ZeebeDbTransaction transaction = transactionContext.getCurrentTransaction();
+
+    // when
+    final List<Long> counts = new ArrayList<>();
+    transaction.run(
+        () -> {
+          upsertOne(2, -20);
+          upsertOne(3, -3);
+          counts.add(oneColumnFamily.count());
+
+          oneKey.wrapLong(1);
+          oneColumnFamily.deleteExisting(oneKey);
+          oneColumnFamily.deleteIfExists(oneKey);
+          counts.add(oneColumnFamily.count());
+        });
+    transaction.rollback();
+
+    // then
+    assertThat(counts).containsExactly(3L, 2L);
+    assertThat(oneColumnFamily.count()).isEqualTo(2);
+    assertThat(twoColumnFamily.isEmpty()).isTrue();
+  }
+
+  @Test
+  void shouldCountInsertedUpdatedAndDeletedKeys() throws Exception {
+    // given
+    upsertOne(1, -1);
+    final ZeebeDbTransaction transaction = transactionContext.getCurrentTransaction();
+
+    // when
+    final List<Long> counts = new ArrayList<>();
+    transaction.run(
+        () -> {
+          oneKey.wrapLong(2);
+          oneValue.wrapLong(-2);
+          oneColumnFamily.insert(oneKey, oneValue);
+          counts.add(oneColumnFamily.count());
+
+          oneValue.wrapLong(-20);
+          oneColumnFamily.update(oneKey, oneValue);
+          oneKey.wrapLong(1);
+          oneColumnFamily.update(oneKey, oneValue);
+          counts.add(oneColumnFamily.count());
+
+          oneColumnFamily.deleteExisting(oneKey);
+          counts.add(oneColumnFamily.count());
+        });
+    transaction.commit();
+
+    // then
+    assertThat(counts).containsExactly(2L, 2L, 1L);
+    assertThat(oneColumnFamily.count()).isOne();
+    oneKey.wrapLong(2);
+    assertThat(oneColumnFamily.get(oneKey).getValue()).isEqualTo(-20);
+  }
+
+  private void upsertOne(final long key, final long value) {
+    oneKey.wrapLong(key);
+    oneValue.wrapLong(value);
+    oneColumnFamily.upsert(oneKey, oneValue);
+  }
+
   private enum ColumnFamilies implements EnumValue {
     DEFAULT(0), // rocksDB needs a default column family
     ONE(1),
@@ -0,0 +1,114 @@
+/*
+ * Copyright Camunda Services GmbH and/or licensed to Camunda Services GmbH under
+ * one or more contributor license agreements. See the NOTICE file distributed
+ * with this work for additional information regarding copyright ownership.
+ * Licensed under the Zeebe Community License 1.1. You may not use this file
+ * except in compliance with the Zeebe Community License 1.1.
+ */
+package io.camunda.zeebe.process.test.engine.db;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.camunda.zeebe.db.ColumnFamily;
+import io.camunda.zeebe.db.TransactionContext;
+import io.camunda.zeebe.db.ZeebeDb;
+import io.camunda.zeebe.db.impl.DbLong;
+import io.camunda.zeebe.db.impl.DefaultColumnFamily;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class VersionedInMemoryDbTest {
+
+  private final VersionedInMemoryDbFactory<DefaultColumnFamily> dbFactory =
+      new VersionedInMemoryDbFactory<>();
+  private VersionedZeebeDb<DefaultColumnFamily> zeebeDb;
+  private ColumnFamily<DbLong, DbLong> columnFamily;
+  private final DbLong key = new DbLong();
+  private final DbLong value = new DbLong();
+
+  @BeforeEach
+  void setup() {
+    zeebeDb = dbFactory.createDb();
+    columnFamily = columnFamily(zeebeDb.createContext());
+  }
+
+  @AfterEach
+  void tearDown() {
+    zeebeDb.close();
+  }
+
+  @Test
+  void shouldReadCommittedVersionOnOtherThread() {
+    // given
+    upsert(1, 10);
+    final TransactionContext readContext = zeebeDb.createReadContext();
+
+    // when
+    upsert(1, 11);
+    upsert(2, 20);
+
+    // then
+    final long count =
+        CompletableFuture.supplyAsync(
+                () -> {
+                  final DbLong readerKey = new DbLong();
+                  final ColumnFamily<DbLong, DbLong> readerColumnFamily =
+                      zeebeDb.createColumnFamily(
+                          DefaultColumnFamily.DEFAULT, readContext, readerKey, new DbLong());
+                  readerKey.wrapLong(1);
+                  assertThat(readerColumnFamily.get(readerKey).getValue()).isEqualTo(10);
+                  return readerColumnFamily.count();
+                })
+            .join();
+    assertThat(count).isOne();
+  }
+
+  @Test
+  void shouldNotSeeUncommittedChanges() {
+    // given
+    upsert(1, 10);
+    final TransactionContext context = zeebeDb.createContext();
+    final ColumnFamily<DbLong, DbLong> writerColumnFamily = columnFamily(context);
+
+    // when
+    context.getCurrentTransaction();
+    key.wrapLong(2);
+    value.wrapLong(20);
+    writerColumnFamily.upsert(key, value);
+    final ColumnFamily<DbLong, DbLong> readerColumnFamily =
+        columnFamily(zeebeDb.createReadContext());
+
+    // then
+    assertThat(readerColumnFamily.count()).isOne();
+  }
+
+  @Test
+  void shouldOnlyOfferReadContextsOnVersionedStores() {
+    // given
+    final List<ZeebeDb<DefaultColumnFamily>> nonVersionedDbs =
+        List.of(
+            new InMemoryDbFactory<DefaultColumnFamily>().createDb(),
+            new OffHeapInMemoryDbFactory<DefaultColumnFamily>().createDb(),
+            new TieredInMemoryDbFactory<DefaultColumnFamily>().createDb());
+
+    // then
+    try {
+      assertThat(nonVersionedDbs).noneMatch(VersionedZeebeDb.class::isInstance);
+    } finally {
+      nonVersionedDbs.forEach(ZeebeDb::close);
+    }
+  }
+
+  private ColumnFamily<DbLong, DbLong> columnFamily(final TransactionContext context) {
+    return zeebeDb.createColumnFamily(DefaultColumnFamily.DEFAULT, context, key, value);
+  }
+
+  private void upsert(final long k, final long v) {
+    key.wrapLong(k);
+    value.wrapLong(v);
+    columnFamily.upsert(key, value);
+  }
+}
@@ -58,6 +58,13 @@ public class ContainerizedEngine implements ZeebeTestEngine {
   private final String host;
   private final int containerPort;
   private final int channelPort;
+  private final ObjectMapper recordMapper =
+      new ObjectMapper().registerModule(new ZeebeProtocolModule());
+
+  /** The records which were fetched from the engine so far, in the order of their positions. */
+  private final List<Record<?>> records = new ArrayList<>();
+
+  private RecordStringDictionary stringDictionary = new RecordStringDictionary();
 
   public ContainerizedEngine(final String host, final int containerPort, final int channelPort) {
     this.host = host;
@@ -173,6 +180,11 @@ public class ContainerizedEngine implements ZeebeTestEngine {
     stub.resetEngine(request);
 
     closeChannel(channel);
+
+    synchronized (records) {
+      records.clear();
+      stringDictionary = new RecordStringDictionary();
+    }
   }
 
   /**
@@ -181,27 +193,53 @@ public class ContainerizedEngine implements ZeebeTestEngine {
    * @return a list of records
    */
   public List<Record<?>> getRecords() {
+    return getRecords(0);
+  }
+
+  /**
+   * Gets the records that have occurred on the test engine from the given position on. Only the
+   * records which were not fetched before are requested from the engine, the others are kept, so
+   * that every record is mapped and its strings are interned only once.
+   *
+   * @param fromPosition the position of the first record to return
+   * @return a list of records, which doesn't change when more records are fetched
+   */
+  public List<Record<?>> getRecords(final long fromPosition) {
+    synchronized (records) {
+      fetchNewRecords();
+
+      int fromIndex = records.size();
+      while (fromIndex > 0 && records.get(fromIndex - 1).getPosition() >= fromPosition) {
+        fromIndex--;
+      }
+      return List.copyOf(records.subList(fromIndex, records.size()));
+    }
+  }
+
+  private void fetchNewRecords() {
+    final long nextPosition =
+        records.isEmpty() ? 0 : records.get(records.size() - 1).getPosition() + 1;
+
     final ManagedChannel channel = getChannel();
     final EngineControlBlockingStub stub = getStub(channel);
-    final ObjectMapper mapper = new ObjectMapper().registerModule(new ZeebeProtocolModule());
-    final List<Record<?>> mappedRecords = new ArrayList<>();
 
-    final GetRecordsRequest request = GetRecordsRequest.newBuilder().build();
+    final GetRecordsRequest request =
+        GetRecordsRequest.newBuilder().setFromPosition(nextPosition).build();
     final Iterator<RecordResponse> response = stub.getRecords(request);
 
     while (response.hasNext()) {
       final RecordResponse recordResponse = response.next();
       try {
         final Record<?> record =
-            mapper.readValue(recordResponse.getRecordJson(), new TypeReference<Record<?>>() {});
-        mappedRecords.add(record);
+            recordMapper.readValue(
+                recordResponse.getRecordJson(), new TypeReference<Record<?>>() {});
+        records.add(stringDictionary.intern(record));
       } catch (final JsonProcessingException e) {
         throw new RuntimeException(e);
       }
     }
 
     closeChannel(channel);
-    return mappedRecords;
   }
 
   private ManagedChannel getChannel() {
@@ -15,7 +15,10 @@
  */
 package io.camunda.zeebe.process.test.extension.testcontainer;
 
+import io.camunda.zeebe.process.test.api.PollingRecordSubscription;
+import io.camunda.zeebe.process.test.api.RecordListener;
 import io.camunda.zeebe.process.test.api.RecordStreamSource;
+import io.camunda.zeebe.process.test.api.RecordSubscription;
 import io.camunda.zeebe.protocol.record.Record;
 import java.util.ArrayList;
 
@@ -45,6 +48,17 @@ public class RecordStreamSourceImpl implements RecordStreamSource {
     return records;
   }
 
+  /**
+   * {@inheritDoc}
+   *
+   * <p>The engine can't push its records to the client, so the subscription polls it. Each poll
+   * only requests the records after the last record which was passed to the listener.
+   */
+  @Override
+  public RecordSubscription subscribe(final long fromPosition, final RecordListener listener) {
+    return new PollingRecordSubscription(engine::getRecords, fromPosition, listener);
+  }
+
   private void updateWithNewRecords() {
     records = engine.getRecords();
   }
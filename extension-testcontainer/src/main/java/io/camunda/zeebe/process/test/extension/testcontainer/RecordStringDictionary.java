@@ -0,0 +1,98 @@
+/*
+ * Copyright © 2021 camunda services GmbH (info@camunda.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.camunda.zeebe.process.test.extension.testcontainer;
+
+import io.camunda.zeebe.protocol.record.ImmutableRecord;
+import io.camunda.zeebe.protocol.record.Record;
+import io.camunda.zeebe.protocol.record.RecordValue;
+import io.camunda.zeebe.protocol.record.value.ImmutableJobRecordValue;
+import io.camunda.zeebe.protocol.record.value.ImmutableProcessInstanceRecordValue;
+import io.camunda.zeebe.protocol.record.value.ImmutableVariableRecordValue;
+import io.camunda.zeebe.protocol.record.value.JobRecordValue;
+import io.camunda.zeebe.protocol.record.value.ProcessInstanceRecordValue;
+import io.camunda.zeebe.protocol.record.value.VariableRecordValue;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Dictionary of the strings which repeat across the records of an engine, like BPMN process ids,
+ * element ids, job types, workers and tenant ids. Records which are read from the engine share a
+ * single instance of each of these strings, instead of carrying their own copies.
+ *
+ * <p>The {@link ContainerizedEngine} interns every record once, when it is fetched from the engine,
+ * and keeps the interned record.
+ */
+final class RecordStringDictionary {
+
+  private final Map<String, String> strings = new ConcurrentHashMap<>();
+
+  /**
+   * @param record the record read from the engine
+   * @return the record with the repeating strings of its value replaced by their shared instances
+   */
+  @SuppressWarnings({"unchecked", "rawtypes"})
+  Record<?> intern(final Record<?> record) {
+    final RecordValue value = record.getValue();
+    final RecordValue internedValue;
+    if (value instanceof final ProcessInstanceRecordValue processInstance) {
+      internedValue = intern(processInstance);
+    } else if (value instanceof final JobRecordValue job) {
+      internedValue = intern(job);
+    } else if (value instanceof final VariableRecordValue variable) {
+      internedValue = intern(variable);
+    } else {
+      return record;
+    }
+    return ImmutableRecord.builder().from((Record) record).withValue(internedValue).build();
+  }
+
+  private ProcessInstanceRecordValue intern(final ProcessInstanceRecordValue value) {
+    return ImmutableProcessInstanceRecordValue.builder()
+        .from(value)
+        .withBpmnProcessId(intern(value.getBpmnProcessId()))
+        .withElementId(intern(value.getElementId()))
+        .withTenantId(intern(value.getTenantId()))
+        .build();
+  }
+
+  private JobRecordValue intern(final JobRecordValue value) {
+    return ImmutableJobRecordValue.builder()
+        .from(value)
+        .withType(intern(value.getType()))
+        .withWorker(intern(value.getWorker()))
+        .withBpmnProcessId(intern(value.getBpmnProcessId()))
+        .withElementId(intern(value.getElementId()))
+        .withTenantId(intern(value.getTenantId()))
+        .build();
+  }
+
+  private VariableRecordValue intern(final VariableRecordValue value) {
+    return ImmutableVariableRecordValue.builder()
+        .from(value)
+        .withName(intern(value.getName()))
+        .withBpmnProcessId(intern(value.getBpmnProcessId()))
+        .withTenantId(intern(value.getTenantId()))
+        .build();
+  }
+
+  private String intern(final String string) {
+    if (string == null) {
+      return null;
+    }
+    final String internedString = strings.putIfAbsent(string, string);
+    return internedString != null ? internedString : string;
+  }
+}
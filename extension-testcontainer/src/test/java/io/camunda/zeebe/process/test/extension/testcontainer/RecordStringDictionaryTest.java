@@ -0,0 +1,179 @@
+/*
+ * Copyright © 2021 camunda services GmbH (info@camunda.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.camunda.zeebe.process.test.extension.testcontainer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.camunda.zeebe.protocol.record.ImmutableRecord;
+import io.camunda.zeebe.protocol.record.Record;
+import io.camunda.zeebe.protocol.record.RecordType;
+import io.camunda.zeebe.protocol.record.RecordValue;
+import io.camunda.zeebe.protocol.record.ValueType;
+import io.camunda.zeebe.protocol.record.intent.IncidentIntent;
+import io.camunda.zeebe.protocol.record.intent.Intent;
+import io.camunda.zeebe.protocol.record.intent.JobIntent;
+import io.camunda.zeebe.protocol.record.intent.ProcessInstanceIntent;
+import io.camunda.zeebe.protocol.record.intent.VariableIntent;
+import io.camunda.zeebe.protocol.record.value.ImmutableIncidentRecordValue;
+import io.camunda.zeebe.protocol.record.value.ImmutableJobRecordValue;
+import io.camunda.zeebe.protocol.record.value.ImmutableProcessInstanceRecordValue;
+import io.camunda.zeebe.protocol.record.value.ImmutableVariableRecordValue;
+import io.camunda.zeebe.protocol.record.value.JobRecordValue;
+import io.camunda.zeebe.protocol.record.value.ProcessInstanceRecordValue;
+import org.junit.jupiter.api.Test;
+
+class RecordStringDictionaryTest {
+
+  private final RecordStringDictionary dictionary = new RecordStringDictionary();
+
+  @Test
+  void shouldShareEqualStringsAcrossRecords() {
+    // given
+    final Record<?> elementActivated =
+        processInstanceRecord(1, ProcessInstanceIntent.ELEMENT_ACTIVATED);
+    final Record<?> elementCompleted =
+        processInstanceRecord(2, ProcessInstanceIntent.ELEMENT_COMPLETED);
+
+    // when
+    final ProcessInstanceRecordValue activatedValue =
+        (ProcessInstanceRecordValue) dictionary.intern(elementActivated).getValue();
+    final ProcessInstanceRecordValue completedValue =
+        (ProcessInstanceRecordValue) dictionary.intern(elementCompleted).getValue();
+
+    // then
+    assertThat(completedValue.getBpmnProcessId()).isSameAs(activatedValue.getBpmnProcessId());
+    assertThat(completedValue.getElementId()).isSameAs(activatedValue.getElementId());
+    assertThat(completedValue.getTenantId()).isSameAs(activatedValue.getTenantId());
+  }
+
+  @Test
+  void shouldShareStringsAcrossValueTypes() {
+    // given
+    final Record<?> processInstance =
+        processInstanceRecord(1, ProcessInstanceIntent.ELEMENT_ACTIVATED);
+    final Record<?> job = jobRecord(2);
+
+    // when
+    final ProcessInstanceRecordValue processInstanceValue =
+        (ProcessInstanceRecordValue) dictionary.intern(processInstance).getValue();
+    final JobRecordValue jobValue = (JobRecordValue) dictionary.intern(job).getValue();
+
+    // then
+    assertThat(jobValue.getBpmnProcessId()).isSameAs(processInstanceValue.getBpmnProcessId());
+    assertThat(jobValue.getElementId()).isSameAs(processInstanceValue.getElementId());
+  }
+
+  @Test
+  void shouldKeepInternedRecordsEqualToOriginals() {
+    // given
+    final Record<?> processInstance =
+        processInstanceRecord(1, ProcessInstanceIntent.ELEMENT_ACTIVATED);
+    final Record<?> job = jobRecord(2);
+    final Record<?> variable = variableRecord(3);
+
+    // when
+    final Record<?> internedProcessInstance = dictionary.intern(processInstance);
+    final Record<?> internedJob = dictionary.intern(job);
+    final Record<?> internedVariable = dictionary.intern(variable);
+
+    // then
+    assertThat(internedProcessInstance).isEqualTo(processInstance);
+    assertThat(internedJob).isEqualTo(job);
+    assertThat(internedVariable).isEqualTo(variable);
+  }
+
+  @Test
+  void shouldReturnRecordsOfOtherValueTypesUnchanged() {
+    // given
+    final Record<?> incident =
+        record(
+            1,
+            ValueType.INCIDENT,
+            IncidentIntent.CREATED,
+            ImmutableIncidentRecordValue.builder()
+                .withBpmnProcessId(copyOf("process"))
+                .withElementId(copyOf("task"))
+                .build());
+
+    // when
+    final Record<?> internedIncident = dictionary.intern(incident);
+
+    // then
+    assertThat(internedIncident).isSameAs(incident);
+  }
+
+  private static Record<?> processInstanceRecord(
+      final long position, final ProcessInstanceIntent intent) {
+    return record(
+        position,
+        ValueType.PROCESS_INSTANCE,
+        intent,
+        ImmutableProcessInstanceRecordValue.builder()
+            .withProcessInstanceKey(1)
+            .withBpmnProcessId(copyOf("process"))
+            .withElementId(copyOf("task"))
+            .withTenantId(copyOf("<default>"))
+            .build());
+  }
+
+  private static Record<?> jobRecord(final long position) {
+    return record(
+        position,
+        ValueType.JOB,
+        JobIntent.CREATED,
+        ImmutableJobRecordValue.builder()
+            .withProcessInstanceKey(1)
+            .withType(copyOf("work"))
+            .withWorker(copyOf("worker"))
+            .withBpmnProcessId(copyOf("process"))
+            .withElementId(copyOf("task"))
+            .withTenantId(copyOf("<default>"))
+            .build());
+  }
+
+  private static Record<?> variableRecord(final long position) {
+    return record(
+        position,
+        ValueType.VARIABLE,
+        VariableIntent.CREATED,
+        ImmutableVariableRecordValue.builder()
+            .withProcessInstanceKey(1)
+            .withName(copyOf("variable"))
+            .withValue("1")
+            .withBpmnProcessId(copyOf("process"))
+            .withTenantId(copyOf("<default>"))
+            .build());
+  }
+
+  private static Record<?> record(
+      final long position,
+      final ValueType valueType,
+      final Intent intent,
+      final RecordValue value) {
+    return ImmutableRecord.builder()
+        .withPosition(position)
+        .withRecordType(RecordType.EVENT)
+        .withValueType(valueType)
+        .withIntent(intent)
+        .withValue(value)
+        .build();
+  }
+
+  /** Returns an equal string which is not the same instance, like a string read from JSON. */
+  private static String copyOf(final String string) {
+    return new String(string.toCharArray());
+  }
+}
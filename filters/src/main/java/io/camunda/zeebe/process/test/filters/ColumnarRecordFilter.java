@@ -0,0 +1,216 @@
+/*
+ * Copyright © 2021 camunda services GmbH (info@camunda.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.camunda.zeebe.process.test.filters;
+
+import io.camunda.zeebe.process.test.filters.ColumnarRecordStore.Columns;
+import io.camunda.zeebe.process.test.filters.ColumnarRecordStore.Snapshot;
+import io.camunda.zeebe.protocol.record.Record;
+import io.camunda.zeebe.protocol.record.ValueType;
+import io.camunda.zeebe.protocol.record.intent.Intent;
+import java.util.Arrays;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * Filter over all records of a record stream, which is evaluated against a columnar copy of the
+ * records instead of the records themselves. Only the records which match all conditions are
+ * looked up, which makes this filter suited for analyzing long record streams.
+ *
+ * <p>The filter is immutable: every condition returns a new filter. The conditions are evaluated
+ * against the records which exist when {@link #stream()} or {@link #count()} is called.
+ */
+public final class ColumnarRecordFilter {
+
+  private static final int ANY = Integer.MIN_VALUE;
+  private static final int NONE = -2;
+
+  private final RecordStream recordStream;
+  private final int valueType;
+  private final boolean hasKey;
+  private final long key;
+  private final boolean hasProcessInstanceKey;
+  private final long processInstanceKey;
+  private final Intent intent;
+  private final String elementId;
+  private final String bpmnProcessId;
+  private final long fromTimestamp;
+  private final long toTimestamp;
+
+  ColumnarRecordFilter(final RecordStream recordStream) {
+    this(new Builder(recordStream));
+  }
+
+  private ColumnarRecordFilter(final Builder builder) {
+    recordStream = builder.recordStream;
+    valueType = builder.valueType;
+    hasKey = builder.hasKey;
+    key = builder.key;
+    hasProcessInstanceKey = builder.hasProcessInstanceKey;
+    processInstanceKey = builder.processInstanceKey;
+    intent = builder.intent;
+    elementId = builder.elementId;
+    bpmnProcessId = builder.bpmnProcessId;
+    fromTimestamp = builder.fromTimestamp;
+    toTimestamp = builder.toTimestamp;
+  }
+
+  public ColumnarRecordFilter withValueType(final ValueType valueType) {
+    return with(builder -> builder.valueType = valueType.ordinal());
+  }
+
+  public ColumnarRecordFilter withKey(final long key) {
+    return with(
+        builder -> {
+          builder.hasKey = true;
+          builder.key = key;
+        });
+  }
+
+  /**
+   * @param processInstanceKey the key of the process instance
+   * @return a filter for the records whose value is related to the given process instance
+   */
+  public ColumnarRecordFilter withProcessInstanceKey(final long processInstanceKey) {
+    return with(
+        builder -> {
+          builder.hasProcessInstanceKey = true;
+          builder.processInstanceKey = processInstanceKey;
+        });
+  }
+
+  public ColumnarRecordFilter withIntent(final Intent intent) {
+    return with(builder -> builder.intent = intent);
+  }
+
+  public ColumnarRecordFilter withElementId(final String elementId) {
+    return with(builder -> builder.elementId = elementId);
+  }
+
+  public ColumnarRecordFilter withBpmnProcessId(final String bpmnProcessId) {
+    return with(builder -> builder.bpmnProcessId = bpmnProcessId);
+  }
+
+  /**
+   * @param fromTimestamp the lowest timestamp, inclusive
+   * @param toTimestamp the highest timestamp, inclusive
+   * @return a filter for the records with a timestamp between the given ones
+   */
+  public ColumnarRecordFilter withTimestampBetween(
+      final long fromTimestamp, final long toTimestamp) {
+    return with(
+        builder -> {
+          builder.fromTimestamp = fromTimestamp;
+          builder.toTimestamp = toTimestamp;
+        });
+  }
+
+  /**
+   * @return the records which match all conditions, in the order of the record stream
+   */
+  public Stream<Record<?>> stream() {
+    final Snapshot snapshot = recordStream.columnarSnapshot();
+    return Arrays.stream(matchingRows(snapshot)).mapToObj(row -> snapshot.records().get(row));
+  }
+
+  /**
+   * @return the number of records which match all conditions, without looking up the records
+   */
+  public long count() {
+    return matchingRows(recordStream.columnarSnapshot()).length;
+  }
+
+  private int[] matchingRows(final Snapshot snapshot) {
+    final ColumnarRecordStore store = recordStream.columnarStore();
+    final int intentCode = intent == null ? ANY : codeOrNone(store.codeOf(intent));
+    final int elementIdCode = elementId == null ? ANY : codeOrNone(store.codeOf(elementId));
+    final int bpmnProcessIdCode =
+        bpmnProcessId == null ? ANY : codeOrNone(store.codeOf(bpmnProcessId));
+    if (intentCode == NONE || elementIdCode == NONE || bpmnProcessIdCode == NONE) {
+      return new int[0];
+    }
+
+    final Columns columns = snapshot.columns();
+    final int size = snapshot.size();
+    int[] rows = new int[16];
+    int matchCount = 0;
+    for (int row = 0; row < size; row++) {
+      if ((valueType == ANY || columns.valueTypes[row] == valueType)
+          && (!hasKey || columns.keys[row] == key)
+          && (!hasProcessInstanceKey
+              || (columns.hasProcessInstanceKey(row)
+                  && columns.processInstanceKeys[row] == processInstanceKey))
+          && (intentCode == ANY || columns.intents[row] == intentCode)
+          && (elementIdCode == ANY || columns.elementIds[row] == elementIdCode)
+          && (bpmnProcessIdCode == ANY || columns.bpmnProcessIds[row] == bpmnProcessIdCode)
+          && columns.timestamps[row] >= fromTimestamp
+          && columns.timestamps[row] <= toTimestamp) {
+        if (matchCount == rows.length) {
+          rows = Arrays.copyOf(rows, matchCount * 2);
+        }
+        rows[matchCount++] = row;
+      }
+    }
+    return Arrays.copyOf(rows, matchCount);
+  }
+
+  private static int codeOrNone(final int code) {
+    return code == ColumnarRecordStore.NO_VALUE ? NONE : code;
+  }
+
+  /**
+   * @param change sets the conditions which differ from the ones of this filter
+   * @return a new filter with the conditions of this filter and the changed ones
+   */
+  private ColumnarRecordFilter with(final Consumer<Builder> change) {
+    final Builder builder = new Builder(this);
+    change.accept(builder);
+    return new ColumnarRecordFilter(builder);
+  }
+
+  /** The conditions of a filter which is about to be created. */
+  private static final class Builder {
+
+    private final RecordStream recordStream;
+    private int valueType = ANY;
+    private boolean hasKey;
+    private long key;
+    private boolean hasProcessInstanceKey;
+    private long processInstanceKey;
+    private Intent intent;
+    private String elementId;
+    private String bpmnProcessId;
+    private long fromTimestamp = Long.MIN_VALUE;
+    private long toTimestamp = Long.MAX_VALUE;
+
+    private Builder(final RecordStream recordStream) {
+      this.recordStream = recordStream;
+    }
+
+    private Builder(final ColumnarRecordFilter filter) {
+      recordStream = filter.recordStream;
+      valueType = filter.valueType;
+      hasKey = filter.hasKey;
+      key = filter.key;
+      hasProcessInstanceKey = filter.hasProcessInstanceKey;
+      processInstanceKey = filter.processInstanceKey;
+      intent = filter.intent;
+      elementId = filter.elementId;
+      bpmnProcessId = filter.bpmnProcessId;
+      fromTimestamp = filter.fromTimestamp;
+      toTimestamp = filter.toTimestamp;
+    }
+  }
+}
@@ -0,0 +1,250 @@
+/*
+ * Copyright © 2021 camunda services GmbH (info@camunda.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.camunda.zeebe.process.test.filters;
+
+import io.camunda.zeebe.protocol.record.Record;
+import io.camunda.zeebe.protocol.record.RecordValue;
+import io.camunda.zeebe.protocol.record.intent.Intent;
+import io.camunda.zeebe.protocol.record.value.IncidentRecordValue;
+import io.camunda.zeebe.protocol.record.value.JobRecordValue;
+import io.camunda.zeebe.protocol.record.value.ProcessInstanceRecordValue;
+import io.camunda.zeebe.protocol.record.value.ProcessInstanceRelated;
+import io.camunda.zeebe.protocol.record.value.VariableRecordValue;
+import io.camunda.zeebe.protocol.record.value.deployment.Process;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
+
+/**
+ * Copy of the frequently filtered fields of the records of a record stream source, stored by
+ * column in primitive arrays. Intents, element ids and BPMN process ids are dictionary encoded. A
+ * {@link ColumnarRecordFilter} evaluates its conditions against the columns, and only looks up the
+ * records which match.
+ *
+ * <p>Like the {@link RecordStreamIndex}, the store is updated incrementally, refers to the records
+ * by their index in the list of the source, and is rebuilt if records at the start of the list
+ * were dropped. Records of sources which don't return a random access list are copied into one.
+ */
+final class ColumnarRecordStore {
+
+  static final int NO_VALUE = -1;
+
+  private final Map<String, Integer> dictionary = new HashMap<>();
+  private final List<String> dictionaryValues = new ArrayList<>();
+  private final Map<Intent, Integer> intentCodes = new HashMap<>();
+  private Columns columns = new Columns(64);
+  private int size;
+
+  /**
+   * Stores the records which were added since the last update.
+   *
+   * @param records the current records of the source
+   * @return the records and columns which were stored, they don't change
+   */
+  synchronized Snapshot update(final Iterable<Record<?>> records) {
+    final List<Record<?>> recordList;
+    if (records instanceof final List<Record<?>> list && records instanceof RandomAccess) {
+      recordList = list;
+    } else {
+      recordList = new ArrayList<>();
+      records.forEach(recordList::add);
+    }
+
+    if (!isPrefixOf(recordList)) {
+      columns = new Columns(Math.max(recordList.size(), 64));
+      size = 0;
+    }
+
+    final int newSize = recordList.size();
+    if (newSize > columns.positions.length) {
+      columns = columns.resize(Math.max(newSize, columns.positions.length * 2));
+    }
+    for (int row = size; row < newSize; row++) {
+      store(row, recordList.get(row));
+    }
+    size = newSize;
+    return new Snapshot(recordList, columns, size);
+  }
+
+  /**
+   * @param value the string to look up
+   * @return the code of the given string, or {@link #NO_VALUE} if no record contains it
+   */
+  synchronized int codeOf(final String value) {
+    return dictionary.getOrDefault(value, NO_VALUE);
+  }
+
+  /**
+   * @param intent the intent to look up
+   * @return the code of the given intent, or {@link #NO_VALUE} if no record has it
+   */
+  synchronized int codeOf(final Intent intent) {
+    return intentCodes.getOrDefault(intent, NO_VALUE);
+  }
+
+  private boolean isPrefixOf(final List<Record<?>> recordList) {
+    return size == 0
+        || (recordList.size() >= size
+            && recordList.get(0).getPosition() == columns.positions[0]
+            && recordList.get(size - 1).getPosition() == columns.positions[size - 1]);
+  }
+
+  private void store(final int row, final Record<?> record) {
+    final RecordValue value = record.getValue();
+    columns.positions[row] = record.getPosition();
+    columns.keys[row] = record.getKey();
+    columns.timestamps[row] = record.getTimestamp();
+    if (value instanceof final ProcessInstanceRelated processInstanceRelated) {
+      columns.processInstanceKeys[row] = processInstanceRelated.getProcessInstanceKey();
+      columns.processInstanceKeyPresence[row >>> 6] |= 1L << row;
+    }
+    columns.valueTypes[row] = (short) record.getValueType().ordinal();
+    final int intentCode =
+        intentCodes.computeIfAbsent(record.getIntent(), intent -> intentCodes.size());
+    columns.intents[row] = (short) intentCode;
+    columns.elementIds[row] = encode(elementIdOf(value));
+    columns.bpmnProcessIds[row] = encode(bpmnProcessIdOf(value));
+  }
+
+  private int encode(final String value) {
+    if (value == null) {
+      return NO_VALUE;
+    }
+    return dictionary.computeIfAbsent(
+        value,
+        newValue -> {
+          dictionaryValues.add(newValue);
+          return dictionaryValues.size() - 1;
+        });
+  }
+
+  private static String elementIdOf(final RecordValue value) {
+    if (value instanceof final ProcessInstanceRecordValue processInstance) {
+      return processInstance.getElementId();
+    } else if (value instanceof final JobRecordValue job) {
+      return job.getElementId();
+    } else if (value instanceof final IncidentRecordValue incident) {
+      return incident.getElementId();
+    }
+    return null;
+  }
+
+  private static String bpmnProcessIdOf(final RecordValue value) {
+    if (value instanceof final ProcessInstanceRecordValue processInstance) {
+      return processInstance.getBpmnProcessId();
+    } else if (value instanceof final JobRecordValue job) {
+      return job.getBpmnProcessId();
+    } else if (value instanceof final IncidentRecordValue incident) {
+      return incident.getBpmnProcessId();
+    } else if (value instanceof final VariableRecordValue variable) {
+      return variable.getBpmnProcessId();
+    } else if (value instanceof final Process process) {
+      return process.getBpmnProcessId();
+    }
+    return null;
+  }
+
+  /**
+   * The columns of the stored records. Rows are only written once, before they are part of a
+   * snapshot; the arrays are replaced when they grow.
+   *
+   * <p>Only records whose value is related to a process instance have a process instance key, they
+   * are marked in a bitmap. Any key, including {@code -1}, is therefore only matched by those.
+   */
+  static final class Columns {
+
+    final long[] positions;
+    final long[] keys;
+    final long[] timestamps;
+    final long[] processInstanceKeys;
+    final long[] processInstanceKeyPresence;
+    final short[] valueTypes;
+    final short[] intents;
+    final int[] elementIds;
+    final int[] bpmnProcessIds;
+
+    private Columns(final int capacity) {
+      this(
+          new long[capacity],
+          new long[capacity],
+          new long[capacity],
+          new long[capacity],
+          new long[presenceLength(capacity)],
+          new short[capacity],
+          new short[capacity],
+          new int[capacity],
+          new int[capacity]);
+    }
+
+    private Columns(
+        final long[] positions,
+        final long[] keys,
+        final long[] timestamps,
+        final long[] processInstanceKeys,
+        final long[] processInstanceKeyPresence,
+        final short[] valueTypes,
+        final short[] intents,
+        final int[] elementIds,
+        final int[] bpmnProcessIds) {
+      this.positions = positions;
+      this.keys = keys;
+      this.timestamps = timestamps;
+      this.processInstanceKeys = processInstanceKeys;
+      this.processInstanceKeyPresence = processInstanceKeyPresence;
+      this.valueTypes = valueTypes;
+      this.intents = intents;
+      this.elementIds = elementIds;
+      this.bpmnProcessIds = bpmnProcessIds;
+    }
+
+    private Columns resize(final int capacity) {
+      return new Columns(
+          Arrays.copyOf(positions, capacity),
+          Arrays.copyOf(keys, capacity),
+          Arrays.copyOf(timestamps, capacity),
+          Arrays.copyOf(processInstanceKeys, capacity),
+          Arrays.copyOf(processInstanceKeyPresence, presenceLength(capacity)),
+          Arrays.copyOf(valueTypes, capacity),
+          Arrays.copyOf(intents, capacity),
+          Arrays.copyOf(elementIds, capacity),
+          Arrays.copyOf(bpmnProcessIds, capacity));
+    }
+
+    /**
+     * @param row the row of the record
+     * @return whether the value of the record is related to a process instance
+     */
+    boolean hasProcessInstanceKey(final int row) {
+      return (processInstanceKeyPresence[row >>> 6] & (1L << row)) != 0;
+    }
+
+    private static int presenceLength(final int capacity) {
+      return (capacity + Long.SIZE - 1) >>> 6;
+    }
+  }
+
+  /**
+   * The records of the source together with their columns, up to the given size.
+   *
+   * @param records the records of the source
+   * @param columns the columns of the records
+   * @param size the number of stored records
+   */
+  record Snapshot(List<Record<?>> records, Columns columns, int size) {}
+}
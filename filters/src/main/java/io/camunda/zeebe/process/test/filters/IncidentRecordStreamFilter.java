@@ -17,6 +17,7 @@ package io.camunda.zeebe.process.test.filters;
 
 import io.camunda.zeebe.protocol.record.Record;
 import io.camunda.zeebe.protocol.record.RejectionType;
+import io.camunda.zeebe.protocol.record.ValueType;
 import io.camunda.zeebe.protocol.record.intent.IncidentIntent;
 import io.camunda.zeebe.protocol.record.value.IncidentRecordValue;
 import java.util.stream.Stream;
@@ -24,16 +25,32 @@ import java.util.stream.StreamSupport;
 
 public class IncidentRecordStreamFilter {
   private final Stream<Record<IncidentRecordValue>> stream;
+  private final RecordStream recordStream;
 
   public IncidentRecordStreamFilter(final Iterable<Record<IncidentRecordValue>> records) {
     stream = StreamSupport.stream(records.spliterator(), false);
+    recordStream = null;
   }
 
   public IncidentRecordStreamFilter(final Stream<Record<IncidentRecordValue>> stream) {
     this.stream = stream;
+    recordStream = null;
+  }
+
+  /**
+   * Filters the incident records of the given record stream. The first filter which is applied is
+   * answered by the index of the record stream.
+   */
+  IncidentRecordStreamFilter(final RecordStream recordStream) {
+    stream = StreamSupport.stream(recordStream.incidentRecords().spliterator(), false);
+    this.recordStream = recordStream;
   }
 
   public IncidentRecordStreamFilter withIncidentKey(final long incidentKey) {
+    if (recordStream != null) {
+      return new IncidentRecordStreamFilter(
+          recordStream.<IncidentRecordValue>recordsWithKey(ValueType.INCIDENT, incidentKey));
+    }
     return new IncidentRecordStreamFilter(stream.filter(record -> record.getKey() == incidentKey));
   }
 
@@ -43,6 +60,11 @@ public class IncidentRecordStreamFilter {
   }
 
   public IncidentRecordStreamFilter withProcessInstanceKey(final long processInstanceKey) {
+    if (recordStream != null) {
+      return new IncidentRecordStreamFilter(
+          recordStream.<IncidentRecordValue>recordsWithProcessInstanceKey(
+              ValueType.INCIDENT, processInstanceKey));
+    }
     return new IncidentRecordStreamFilter(
         stream.filter(record -> record.getValue().getProcessInstanceKey() == processInstanceKey));
   }
@@ -53,6 +75,10 @@ public class IncidentRecordStreamFilter {
   }
 
   public IncidentRecordStreamFilter withIntent(final IncidentIntent intent) {
+    if (recordStream != null) {
+      return new IncidentRecordStreamFilter(
+          recordStream.<IncidentRecordValue>recordsWithIntent(ValueType.INCIDENT, intent));
+    }
     return new IncidentRecordStreamFilter(stream.filter(record -> record.getIntent() == intent));
   }
 
@@ -16,6 +16,7 @@
 package io.camunda.zeebe.process.test.filters;
 
 import io.camunda.zeebe.protocol.record.Record;
+import io.camunda.zeebe.protocol.record.ValueType;
 import io.camunda.zeebe.protocol.record.intent.JobIntent;
 import io.camunda.zeebe.protocol.record.value.JobRecordValue;
 import java.util.stream.Stream;
@@ -24,24 +25,49 @@ import java.util.stream.StreamSupport;
 public class JobRecordStreamFilter {
 
   private final Stream<Record<JobRecordValue>> stream;
+  private final RecordStream recordStream;
 
   public JobRecordStreamFilter(final Iterable<Record<JobRecordValue>> records) {
     stream = StreamSupport.stream(records.spliterator(), false);
+    recordStream = null;
   }
 
   public JobRecordStreamFilter(final Stream<Record<JobRecordValue>> stream) {
     this.stream = stream;
+    recordStream = null;
+  }
+
+  /**
+   * Filters the job records of the given record stream. The first filter which is applied is
+   * answered by the index of the record stream.
+   */
+  JobRecordStreamFilter(final RecordStream recordStream) {
+    stream = StreamSupport.stream(recordStream.jobRecords().spliterator(), false);
+    this.recordStream = recordStream;
   }
 
   public JobRecordStreamFilter withKey(final long key) {
+    if (recordStream != null) {
+      return new JobRecordStreamFilter(
+          recordStream.<JobRecordValue>recordsWithKey(ValueType.JOB, key));
+    }
     return new JobRecordStreamFilter(stream.filter(record -> record.getKey() == key));
   }
 
   public JobRecordStreamFilter withIntent(final JobIntent intent) {
+    if (recordStream != null) {
+      return new JobRecordStreamFilter(
+          recordStream.<JobRecordValue>recordsWithIntent(ValueType.JOB, intent));
+    }
     return new JobRecordStreamFilter(stream.filter(record -> record.getIntent() == intent));
   }
 
   public JobRecordStreamFilter withElementId(final String elementId) {
+    if (recordStream != null) {
+      return new JobRecordStreamFilter(
+          recordStream.<JobRecordValue>recordsWithElementId(
+              ValueType.JOB, elementId, JobRecordValue::getElementId));
+    }
     return new JobRecordStreamFilter(
         stream.filter(record -> record.getValue().getElementId().equals(elementId)));
   }
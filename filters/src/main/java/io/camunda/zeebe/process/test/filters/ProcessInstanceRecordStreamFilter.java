@@ -18,6 +18,7 @@ package io.camunda.zeebe.process.test.filters;
 import io.camunda.zeebe.protocol.record.Record;
 import io.camunda.zeebe.protocol.record.RecordType;
 import io.camunda.zeebe.protocol.record.RejectionType;
+import io.camunda.zeebe.protocol.record.ValueType;
 import io.camunda.zeebe.protocol.record.intent.ProcessInstanceIntent;
 import io.camunda.zeebe.protocol.record.value.BpmnElementType;
 import io.camunda.zeebe.protocol.record.value.BpmnEventType;
@@ -29,18 +30,35 @@ import java.util.stream.StreamSupport;
 public class ProcessInstanceRecordStreamFilter {
 
   private final Stream<Record<ProcessInstanceRecordValue>> stream;
+  private final RecordStream recordStream;
 
   public ProcessInstanceRecordStreamFilter(
       final Iterable<Record<ProcessInstanceRecordValue>> records) {
     stream = StreamSupport.stream(records.spliterator(), false);
+    recordStream = null;
   }
 
   public ProcessInstanceRecordStreamFilter(
       final Stream<Record<ProcessInstanceRecordValue>> stream) {
     this.stream = stream;
+    recordStream = null;
+  }
+
+  /**
+   * Filters the process instance records of the given record stream. The first filter which is
+   * applied is answered by the index of the record stream.
+   */
+  ProcessInstanceRecordStreamFilter(final RecordStream recordStream) {
+    stream = StreamSupport.stream(recordStream.processInstanceRecords().spliterator(), false);
+    this.recordStream = recordStream;
   }
 
   public ProcessInstanceRecordStreamFilter withProcessInstanceKey(final long processInstanceKey) {
+    if (recordStream != null) {
+      return new ProcessInstanceRecordStreamFilter(
+          recordStream.<ProcessInstanceRecordValue>recordsWithProcessInstanceKey(
+              ValueType.PROCESS_INSTANCE, processInstanceKey));
+    }
     return new ProcessInstanceRecordStreamFilter(
         stream.filter(record -> record.getValue().getProcessInstanceKey() == processInstanceKey));
   }
@@ -68,6 +86,11 @@ public class ProcessInstanceRecordStreamFilter {
   }
 
   public ProcessInstanceRecordStreamFilter withIntent(final ProcessInstanceIntent intent) {
+    if (recordStream != null) {
+      return new ProcessInstanceRecordStreamFilter(
+          recordStream.<ProcessInstanceRecordValue>recordsWithIntent(
+              ValueType.PROCESS_INSTANCE, intent));
+    }
     return new ProcessInstanceRecordStreamFilter(
         stream.filter(record -> record.getIntent() == intent));
   }
@@ -79,6 +102,11 @@ public class ProcessInstanceRecordStreamFilter {
   }
 
   public ProcessInstanceRecordStreamFilter withElementId(final String elementId) {
+    if (recordStream != null) {
+      return new ProcessInstanceRecordStreamFilter(
+          recordStream.<ProcessInstanceRecordValue>recordsWithElementId(
+              ValueType.PROCESS_INSTANCE, elementId, ProcessInstanceRecordValue::getElementId));
+    }
     return new ProcessInstanceRecordStreamFilter(
         stream.filter(record -> record.getValue().getElementId().equals(elementId)));
   }
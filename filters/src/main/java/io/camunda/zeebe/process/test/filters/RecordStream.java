@@ -21,6 +21,7 @@ import io.camunda.zeebe.process.test.filters.logger.RecordStreamLogger;
 import io.camunda.zeebe.protocol.record.Record;
 import io.camunda.zeebe.protocol.record.RecordValue;
 import io.camunda.zeebe.protocol.record.ValueType;
+import io.camunda.zeebe.protocol.record.intent.Intent;
 import io.camunda.zeebe.protocol.record.value.DeploymentRecordValue;
 import io.camunda.zeebe.protocol.record.value.IncidentRecordValue;
 import io.camunda.zeebe.protocol.record.value.JobBatchRecordValue;
@@ -30,25 +31,45 @@ import io.camunda.zeebe.protocol.record.value.MessageRecordValue;
 import io.camunda.zeebe.protocol.record.value.MessageStartEventSubscriptionRecordValue;
 import io.camunda.zeebe.protocol.record.value.MessageSubscriptionRecordValue;
 import io.camunda.zeebe.protocol.record.value.ProcessInstanceRecordValue;
+import io.camunda.zeebe.protocol.record.value.ProcessInstanceRelated;
 import io.camunda.zeebe.protocol.record.value.ProcessMessageSubscriptionRecordValue;
 import io.camunda.zeebe.protocol.record.value.TimerRecordValue;
 import io.camunda.zeebe.protocol.record.value.VariableDocumentRecordValue;
 import io.camunda.zeebe.protocol.record.value.VariableRecordValue;
 import io.camunda.zeebe.protocol.record.value.deployment.FormMetadataValue;
 import io.camunda.zeebe.protocol.record.value.deployment.Process;
+import java.util.Collections;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.function.Function;
+import java.util.function.Predicate;
 import java.util.stream.Stream;
 import java.util.stream.StreamSupport;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+/**
+ * The records of a {@link RecordStreamSource}. The records are indexed as they arrive, so that the
+ * records of a value type, and the typed filters, don't scan all records on every call. The index
+ * is shared by all record streams of the same source.
+ *
+ * <p>For the analysis of long record streams, a columnar copy of the records can be filtered by a
+ * {@link ColumnarRecordFilter}. The copy is only created when it is used for the first time.
+ */
 public class RecordStream {
 
   private static final Logger LOG = LoggerFactory.getLogger("io.camunda.zeebe.process.test");
+  private static final Map<RecordStreamSource, RecordStreamIndex> INDEXES =
+      Collections.synchronizedMap(new WeakHashMap<>());
+  private static final Map<RecordStreamSource, ColumnarRecordStore> COLUMNAR_STORES =
+      Collections.synchronizedMap(new WeakHashMap<>());
 
   private final RecordStreamSource recordStreamSource;
+  private final RecordStreamIndex index;
 
   private RecordStream(final RecordStreamSource recordStreamSource) {
     this.recordStreamSource = recordStreamSource;
+    index = INDEXES.computeIfAbsent(recordStreamSource, source -> new RecordStreamIndex());
   }
 
   public static RecordStream of(final RecordStreamSource recordStreamSource) {
@@ -60,11 +81,73 @@ public class RecordStream {
   }
 
   <T extends RecordValue> Iterable<Record<T>> recordsOfValueType(final ValueType valueType) {
+    return lookup(index -> index.ofValueType(valueType), record -> true, valueType);
+  }
+
+  <T extends RecordValue> Iterable<Record<T>> recordsWithKey(
+      final ValueType valueType, final long key) {
+    return lookup(
+        index -> index.withKey(valueType, key), record -> record.getKey() == key, valueType);
+  }
+
+  <T extends RecordValue> Iterable<Record<T>> recordsWithProcessInstanceKey(
+      final ValueType valueType, final long processInstanceKey) {
+    return lookup(
+        index -> index.withProcessInstanceKey(valueType, processInstanceKey),
+        record ->
+            record.getValue() instanceof final ProcessInstanceRelated processInstanceRelated
+                && processInstanceRelated.getProcessInstanceKey() == processInstanceKey,
+        valueType);
+  }
+
+  <T extends RecordValue> Iterable<Record<T>> recordsWithElementId(
+      final ValueType valueType, final String elementId, final Function<T, String> getElementId) {
+    return lookup(
+        index -> index.withElementId(valueType, elementId),
+        record -> elementId.equals(getElementId.apply(record.getValue())),
+        valueType);
+  }
+
+  <T extends RecordValue> Iterable<Record<T>> recordsWithIntent(
+      final ValueType valueType, final Intent intent) {
+    return lookup(
+        index -> index.withIntent(valueType, intent),
+        record -> record.getIntent() == intent,
+        valueType);
+  }
+
+  /**
+   * @return the columnar store of the source, which is created on first use
+   */
+  ColumnarRecordStore columnarStore() {
+    return COLUMNAR_STORES.computeIfAbsent(recordStreamSource, source -> new ColumnarRecordStore());
+  }
+
+  /**
+   * @return the current records of the source and their columns
+   */
+  ColumnarRecordStore.Snapshot columnarSnapshot() {
+    return columnarStore().update(recordStreamSource.getRecords());
+  }
+
+  /**
+   * Looks the records up in the index. If the records of the source can't be indexed, they are
+   * scanned instead.
+   */
+  private <T extends RecordValue> Iterable<Record<T>> lookup(
+      final Function<RecordStreamIndex, Iterable<Record<T>>> indexLookup,
+      final Predicate<Record<T>> filter,
+      final ValueType valueType) {
+    final Iterable<Record<?>> records = recordStreamSource.getRecords();
+    if (index.update(records)) {
+      return indexLookup.apply(index);
+    }
+
     final Stream<Record<T>> stream =
         (Stream)
-            StreamSupport.stream(recordStreamSource.getRecords().spliterator(), false)
+            StreamSupport.stream(records.spliterator(), false)
                 .filter((record) -> record.getValueType() == valueType);
-    return stream::iterator;
+    return stream.filter(filter)::iterator;
   }
 
   public Iterable<Record<ProcessInstanceRecordValue>> processInstanceRecords() {
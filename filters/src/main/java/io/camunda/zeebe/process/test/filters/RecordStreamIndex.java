@@ -0,0 +1,234 @@
+/*
+ * Copyright © 2021 camunda services GmbH (info@camunda.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.camunda.zeebe.process.test.filters;
+
+import io.camunda.zeebe.protocol.record.Record;
+import io.camunda.zeebe.protocol.record.RecordValue;
+import io.camunda.zeebe.protocol.record.ValueType;
+import io.camunda.zeebe.protocol.record.intent.Intent;
+import io.camunda.zeebe.protocol.record.value.IncidentRecordValue;
+import io.camunda.zeebe.protocol.record.value.JobRecordValue;
+import io.camunda.zeebe.protocol.record.value.ProcessInstanceRecordValue;
+import io.camunda.zeebe.protocol.record.value.ProcessInstanceRelated;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
+
+/**
+ * Indexes of the records of a record stream source, by value type and, within a value type, by
+ * record key, process instance key, element id and intent. The indexes are updated incrementally:
+ * only records which were added to the source since the last lookup are indexed.
+ *
+ * <p>The indexes hold the indexes of the records in the list of the source, not the records. They
+ * are only used for sources which return their records as an append-only list. If the records at
+ * the start of the list change, e.g. because the engine dropped records, the indexes are rebuilt.
+ */
+final class RecordStreamIndex {
+
+  private final Map<ValueType, ValueTypeIndex> valueTypeIndexes = new EnumMap<>(ValueType.class);
+  private List<Record<?>> records = List.of();
+  private int indexedCount;
+  private long firstPosition;
+  private long lastPosition;
+
+  /**
+   * Indexes the records which were added since the last update.
+   *
+   * @param records the current records of the source
+   * @return {@code true} if the records can be looked up in the index, {@code false} if the
+   *     records are not an indexable list
+   */
+  synchronized boolean update(final Iterable<Record<?>> records) {
+    if (!(records instanceof final List<Record<?>> recordList)
+        || !(records instanceof RandomAccess)) {
+      return false;
+    }
+
+    if (!isPrefixOf(recordList)) {
+      valueTypeIndexes.clear();
+      indexedCount = 0;
+    }
+    this.records = recordList;
+
+    final int size = recordList.size();
+    for (int index = indexedCount; index < size; index++) {
+      final Record<?> record = recordList.get(index);
+      valueTypeIndexes
+          .computeIfAbsent(record.getValueType(), valueType -> new ValueTypeIndex())
+          .add(record, index);
+      if (index == 0) {
+        firstPosition = record.getPosition();
+      }
+      lastPosition = record.getPosition();
+    }
+    indexedCount = size;
+    return true;
+  }
+
+  /**
+   * @param valueType the value type of the records
+   * @return the indexed records of the given value type
+   */
+  synchronized <T extends RecordValue> List<Record<T>> ofValueType(final ValueType valueType) {
+    final ValueTypeIndex index = valueTypeIndexes.get(valueType);
+    return index == null ? List.of() : view(index.records);
+  }
+
+  /**
+   * @param valueType the value type of the records
+   * @param key the key of the records
+   * @return the indexed records of the given value type with the given key
+   */
+  synchronized <T extends RecordValue> List<Record<T>> withKey(
+      final ValueType valueType, final long key) {
+    final ValueTypeIndex index = valueTypeIndexes.get(valueType);
+    return index == null ? List.of() : view(index.byKey.get(key));
+  }
+
+  /**
+   * @param valueType the value type of the records
+   * @param processInstanceKey the process instance key of the record values
+   * @return the indexed records of the given value type of the given process instance
+   */
+  synchronized <T extends RecordValue> List<Record<T>> withProcessInstanceKey(
+      final ValueType valueType, final long processInstanceKey) {
+    final ValueTypeIndex index = valueTypeIndexes.get(valueType);
+    return index == null ? List.of() : view(index.byProcessInstanceKey.get(processInstanceKey));
+  }
+
+  /**
+   * @param valueType the value type of the records
+   * @param elementId the element id of the record values
+   * @return the indexed records of the given value type of the given element
+   */
+  synchronized <T extends RecordValue> List<Record<T>> withElementId(
+      final ValueType valueType, final String elementId) {
+    final ValueTypeIndex index = valueTypeIndexes.get(valueType);
+    return index == null ? List.of() : view(index.byElementId.get(elementId));
+  }
+
+  /**
+   * @param valueType the value type of the records
+   * @param intent the intent of the records
+   * @return the indexed records of the given value type with the given intent
+   */
+  synchronized <T extends RecordValue> List<Record<T>> withIntent(
+      final ValueType valueType, final Intent intent) {
+    final ValueTypeIndex index = valueTypeIndexes.get(valueType);
+    return index == null ? List.of() : view(index.byIntent.get(intent));
+  }
+
+  private boolean isPrefixOf(final List<Record<?>> recordList) {
+    return indexedCount == 0
+        || (recordList.size() >= indexedCount
+            && recordList.get(0).getPosition() == firstPosition
+            && recordList.get(indexedCount - 1).getPosition() == lastPosition);
+  }
+
+  /** Must be called while holding the lock, the returned view is a snapshot. */
+  private <T extends RecordValue> List<Record<T>> view(final RecordIndexes indexes) {
+    if (indexes == null) {
+      return List.of();
+    }
+    return new RecordListView<>(records, indexes.values, indexes.size);
+  }
+
+  private static final class ValueTypeIndex {
+
+    private final RecordIndexes records = new RecordIndexes();
+    private final Map<Long, RecordIndexes> byKey = new HashMap<>();
+    private final Map<Long, RecordIndexes> byProcessInstanceKey = new HashMap<>();
+    private final Map<String, RecordIndexes> byElementId = new HashMap<>();
+    private final Map<Intent, RecordIndexes> byIntent = new HashMap<>();
+
+    private void add(final Record<?> record, final int index) {
+      records.add(index);
+      byKey.computeIfAbsent(record.getKey(), key -> new RecordIndexes()).add(index);
+      byIntent.computeIfAbsent(record.getIntent(), intent -> new RecordIndexes()).add(index);
+
+      final RecordValue value = record.getValue();
+      if (value instanceof final ProcessInstanceRelated processInstanceRelated) {
+        byProcessInstanceKey
+            .computeIfAbsent(
+                processInstanceRelated.getProcessInstanceKey(), key -> new RecordIndexes())
+            .add(index);
+      }
+
+      final String elementId = elementIdOf(value);
+      if (elementId != null) {
+        byElementId.computeIfAbsent(elementId, id -> new RecordIndexes()).add(index);
+      }
+    }
+
+    private static String elementIdOf(final RecordValue value) {
+      if (value instanceof final ProcessInstanceRecordValue processInstance) {
+        return processInstance.getElementId();
+      } else if (value instanceof final JobRecordValue job) {
+        return job.getElementId();
+      } else if (value instanceof final IncidentRecordValue incident) {
+        return incident.getElementId();
+      }
+      return null;
+    }
+  }
+
+  /** Growing array of indexes of records, in ascending order. */
+  private static final class RecordIndexes {
+
+    private int[] values = new int[4];
+    private int size;
+
+    private void add(final int index) {
+      if (size == values.length) {
+        values = Arrays.copyOf(values, size * 2);
+      }
+      values[size++] = index;
+    }
+  }
+
+  /**
+   * The records at the given indexes. The indexes are only appended to, and the array is replaced
+   * when it grows, so the view stays unchanged.
+   */
+  private static final class RecordListView<T extends RecordValue> extends AbstractList<Record<T>>
+      implements RandomAccess {
+
+    private final List<Record<?>> records;
+    private final int[] indexes;
+    private final int size;
+
+    private RecordListView(final List<Record<?>> records, final int[] indexes, final int size) {
+      this.records = records;
+      this.indexes = indexes;
+      this.size = size;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public Record<T> get(final int index) {
+      return (Record<T>) records.get(indexes[index]);
+    }
+
+    @Override
+    public int size() {
+      return size;
+    }
+  }
+}
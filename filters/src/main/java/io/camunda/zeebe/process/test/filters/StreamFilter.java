@@ -18,7 +18,7 @@ package io.camunda.zeebe.process.test.filters;
 public class StreamFilter {
 
   public static ProcessInstanceRecordStreamFilter processInstance(final RecordStream recordStream) {
-    return new ProcessInstanceRecordStreamFilter(recordStream.processInstanceRecords());
+    return new ProcessInstanceRecordStreamFilter(recordStream);
   }
 
   public static ProcessMessageSubscriptionRecordStreamFilter processMessageSubscription(
@@ -28,7 +28,7 @@ public class StreamFilter {
   }
 
   public static VariableRecordStreamFilter variable(final RecordStream recordStream) {
-    return new VariableRecordStreamFilter(recordStream.variableRecords());
+    return new VariableRecordStreamFilter(recordStream);
   }
 
   public static MessageRecordStreamFilter message(final RecordStream recordStream) {
@@ -36,7 +36,7 @@ public class StreamFilter {
   }
 
   public static IncidentRecordStreamFilter incident(final RecordStream recordStream) {
-    return new IncidentRecordStreamFilter(recordStream.incidentRecords());
+    return new IncidentRecordStreamFilter(recordStream);
   }
 
   public static MessageStartEventSubscriptionStreamFilter messageStartEventSubscription(
@@ -51,7 +51,7 @@ public class StreamFilter {
   }
 
   public static JobRecordStreamFilter jobRecords(final RecordStream recordStream) {
-    return new JobRecordStreamFilter(recordStream.jobRecords());
+    return new JobRecordStreamFilter(recordStream);
   }
 
   public static TimerRecordStreamFilter timerRecords(final RecordStream recordStream) {
@@ -65,4 +65,12 @@ public class StreamFilter {
   public static FormStreamFilter forms(final RecordStream recordStream) {
     return new FormStreamFilter(recordStream.forms());
   }
+
+  /**
+   * @param recordStream the record stream to filter
+   * @return a filter over all records, which is evaluated against a columnar copy of the records
+   */
+  public static ColumnarRecordFilter columnar(final RecordStream recordStream) {
+    return new ColumnarRecordFilter(recordStream);
+  }
 }
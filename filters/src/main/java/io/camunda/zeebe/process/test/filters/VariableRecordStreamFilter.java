@@ -17,6 +17,7 @@ package io.camunda.zeebe.process.test.filters;
 
 import io.camunda.zeebe.protocol.record.Record;
 import io.camunda.zeebe.protocol.record.RejectionType;
+import io.camunda.zeebe.protocol.record.ValueType;
 import io.camunda.zeebe.protocol.record.value.VariableRecordValue;
 import java.util.stream.Stream;
 import java.util.stream.StreamSupport;
@@ -24,16 +25,33 @@ import java.util.stream.StreamSupport;
 public class VariableRecordStreamFilter {
 
   private Stream<Record<VariableRecordValue>> stream;
+  private final RecordStream recordStream;
 
   public VariableRecordStreamFilter(final Iterable<Record<VariableRecordValue>> records) {
     stream = StreamSupport.stream(records.spliterator(), false);
+    recordStream = null;
   }
 
   public VariableRecordStreamFilter(final Stream<Record<VariableRecordValue>> stream) {
     this.stream = stream;
+    recordStream = null;
+  }
+
+  /**
+   * Filters the variable records of the given record stream. The first filter which is applied is
+   * answered by the index of the record stream.
+   */
+  VariableRecordStreamFilter(final RecordStream recordStream) {
+    stream = StreamSupport.stream(recordStream.variableRecords().spliterator(), false);
+    this.recordStream = recordStream;
   }
 
   public VariableRecordStreamFilter withProcessInstanceKey(final long processInstanceKey) {
+    if (recordStream != null) {
+      return new VariableRecordStreamFilter(
+          recordStream.<VariableRecordValue>recordsWithProcessInstanceKey(
+              ValueType.VARIABLE, processInstanceKey));
+    }
     return new VariableRecordStreamFilter(
         stream.filter(record -> record.getValue().getProcessInstanceKey() == processInstanceKey));
   }
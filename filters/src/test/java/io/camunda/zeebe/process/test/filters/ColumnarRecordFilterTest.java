@@ -0,0 +1,157 @@
+/*
+ * Copyright © 2021 camunda services GmbH (info@camunda.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.camunda.zeebe.process.test.filters;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.camunda.zeebe.process.test.api.RecordStreamSource;
+import io.camunda.zeebe.protocol.record.ImmutableRecord;
+import io.camunda.zeebe.protocol.record.Record;
+import io.camunda.zeebe.protocol.record.RecordType;
+import io.camunda.zeebe.protocol.record.ValueType;
+import io.camunda.zeebe.protocol.record.intent.DeploymentIntent;
+import io.camunda.zeebe.protocol.record.intent.JobIntent;
+import io.camunda.zeebe.protocol.record.intent.ProcessInstanceIntent;
+import io.camunda.zeebe.protocol.record.value.ImmutableDeploymentRecordValue;
+import io.camunda.zeebe.protocol.record.value.ImmutableJobRecordValue;
+import io.camunda.zeebe.protocol.record.value.ImmutableProcessInstanceRecordValue;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class ColumnarRecordFilterTest {
+
+  private final List<Record<?>> records = new ArrayList<>();
+  // not a list, so that the records are copied into the columnar store
+  private final RecordStreamSource source = () -> records::iterator;
+  private final RecordStream recordStream = RecordStream.of(source);
+
+  @Test
+  void shouldFilterRecordsByColumns() {
+    // given
+    addProcessInstanceRecord(1, ProcessInstanceIntent.ELEMENT_ACTIVATED, "start", 100);
+    addJobRecord(1, JobIntent.CREATED, "start", 200);
+    addProcessInstanceRecord(2, ProcessInstanceIntent.ELEMENT_ACTIVATED, "start", 300);
+    addProcessInstanceRecord(1, ProcessInstanceIntent.ELEMENT_COMPLETED, "start", 400);
+
+    // when
+    final ColumnarRecordFilter filter =
+        StreamFilter.columnar(recordStream)
+            .withValueType(ValueType.PROCESS_INSTANCE)
+            .withProcessInstanceKey(1)
+            .withElementId("start")
+            .withBpmnProcessId("process");
+
+    // then
+    assertThat(filter.stream().map(Record::getPosition)).containsExactly(0L, 3L);
+    assertThat(filter.withIntent(ProcessInstanceIntent.ELEMENT_COMPLETED).count()).isEqualTo(1);
+    assertThat(filter.withTimestampBetween(0, 200).count()).isEqualTo(1);
+  }
+
+  @Test
+  void shouldNotMatchUnknownValues() {
+    // given
+    addProcessInstanceRecord(1, ProcessInstanceIntent.ELEMENT_ACTIVATED, "start", 100);
+
+    // when
+    final ColumnarRecordFilter filter = StreamFilter.columnar(recordStream);
+
+    // then
+    assertThat(filter.withElementId("unknown").count()).isZero();
+    assertThat(filter.withIntent(ProcessInstanceIntent.ELEMENT_COMPLETED).count()).isZero();
+    assertThat(filter.withIntent(JobIntent.CREATED).count()).isZero();
+  }
+
+  @Test
+  void shouldFilterRecordsAddedAfterFirstEvaluation() {
+    // given
+    addProcessInstanceRecord(1, ProcessInstanceIntent.ELEMENT_ACTIVATED, "start", 100);
+    final ColumnarRecordFilter filter = StreamFilter.columnar(recordStream).withElementId("end");
+    assertThat(filter.count()).isZero();
+
+    // when
+    addProcessInstanceRecord(1, ProcessInstanceIntent.ELEMENT_ACTIVATED, "end", 200);
+
+    // then
+    assertThat(filter.stream().map(Record::getPosition)).containsExactly(1L);
+  }
+
+  @Test
+  void shouldOnlyMatchProcessInstanceKeyOfRelatedRecords() {
+    // given
+    records.add(
+        ImmutableRecord.builder()
+            .withPosition(records.size())
+            .withRecordType(RecordType.EVENT)
+            .withValueType(ValueType.DEPLOYMENT)
+            .withIntent(DeploymentIntent.CREATED)
+            .withKey(1)
+            .withValue(ImmutableDeploymentRecordValue.builder().build())
+            .build());
+    addJobRecord(-1, JobIntent.CREATED, "task", 100);
+
+    // when
+    final ColumnarRecordFilter filter =
+        StreamFilter.columnar(recordStream).withProcessInstanceKey(-1);
+
+    // then
+    assertThat(filter.stream().map(Record::getPosition)).containsExactly(1L);
+  }
+
+  private void addProcessInstanceRecord(
+      final long processInstanceKey,
+      final ProcessInstanceIntent intent,
+      final String elementId,
+      final long timestamp) {
+    records.add(
+        ImmutableRecord.builder()
+            .withPosition(records.size())
+            .withTimestamp(timestamp)
+            .withRecordType(RecordType.EVENT)
+            .withValueType(ValueType.PROCESS_INSTANCE)
+            .withIntent(intent)
+            .withKey(processInstanceKey)
+            .withValue(
+                ImmutableProcessInstanceRecordValue.builder()
+                    .withProcessInstanceKey(processInstanceKey)
+                    .withBpmnProcessId("process")
+                    .withElementId(elementId)
+                    .build())
+            .build());
+  }
+
+  private void addJobRecord(
+      final long processInstanceKey,
+      final JobIntent intent,
+      final String elementId,
+      final long timestamp) {
+    records.add(
+        ImmutableRecord.builder()
+            .withPosition(records.size())
+            .withTimestamp(timestamp)
+            .withRecordType(RecordType.EVENT)
+            .withValueType(ValueType.JOB)
+            .withIntent(intent)
+            .withKey(100 + records.size())
+            .withValue(
+                ImmutableJobRecordValue.builder()
+                    .withProcessInstanceKey(processInstanceKey)
+                    .withBpmnProcessId("process")
+                    .withElementId(elementId)
+                    .build())
+            .build());
+  }
+}
@@ -0,0 +1,137 @@
+/*
+ * Copyright © 2021 camunda services GmbH (info@camunda.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.camunda.zeebe.process.test.filters;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.camunda.zeebe.process.test.api.RecordStreamSource;
+import io.camunda.zeebe.protocol.record.ImmutableRecord;
+import io.camunda.zeebe.protocol.record.Record;
+import io.camunda.zeebe.protocol.record.RecordType;
+import io.camunda.zeebe.protocol.record.ValueType;
+import io.camunda.zeebe.protocol.record.intent.JobIntent;
+import io.camunda.zeebe.protocol.record.intent.ProcessInstanceIntent;
+import io.camunda.zeebe.protocol.record.value.ImmutableJobRecordValue;
+import io.camunda.zeebe.protocol.record.value.ImmutableProcessInstanceRecordValue;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.StreamSupport;
+import org.junit.jupiter.api.Test;
+
+class RecordStreamTest {
+
+  private final List<Record<?>> records = new ArrayList<>();
+  private final RecordStreamSource source = () -> Collections.unmodifiableList(records);
+
+  @Test
+  void shouldFilterProcessInstanceRecordsByIndex() {
+    // given
+    addProcessInstanceRecord(1, ProcessInstanceIntent.ELEMENT_ACTIVATED, "start");
+    addJobRecord(1, JobIntent.CREATED, "task");
+    addProcessInstanceRecord(2, ProcessInstanceIntent.ELEMENT_ACTIVATED, "start");
+    addProcessInstanceRecord(1, ProcessInstanceIntent.ELEMENT_COMPLETED, "start");
+
+    // when
+    final RecordStream recordStream = RecordStream.of(source);
+
+    // then
+    assertThat(
+            StreamFilter.processInstance(recordStream)
+                .withProcessInstanceKey(1)
+                .withElementId("start")
+                .stream()
+                .map(Record::getIntent))
+        .containsExactly(
+            ProcessInstanceIntent.ELEMENT_ACTIVATED, ProcessInstanceIntent.ELEMENT_COMPLETED);
+    assertThat(StreamFilter.jobRecords(recordStream).withElementId("task").stream()).hasSize(1);
+    assertThat(
+            StreamFilter.processInstance(recordStream)
+                .withIntent(ProcessInstanceIntent.ELEMENT_ACTIVATED)
+                .stream()
+                .map(Record::getPosition))
+        .containsExactly(0L, 2L);
+  }
+
+  @Test
+  void shouldIndexRecordsAddedAfterLookup() {
+    // given
+    final RecordStream recordStream = RecordStream.of(source);
+    addProcessInstanceRecord(1, ProcessInstanceIntent.ELEMENT_ACTIVATED, "start");
+    assertThat(StreamFilter.processInstance(recordStream).withProcessInstanceKey(1).stream())
+        .hasSize(1);
+
+    // when
+    addProcessInstanceRecord(1, ProcessInstanceIntent.ELEMENT_COMPLETED, "start");
+
+    // then
+    assertThat(StreamFilter.processInstance(recordStream).withProcessInstanceKey(1).stream())
+        .hasSize(2);
+    assertThat(RecordStream.of(source).processInstanceRecords()).hasSize(2);
+  }
+
+  @Test
+  void shouldRebuildIndexWhenRecordsWereDropped() {
+    // given
+    final RecordStream recordStream = RecordStream.of(source);
+    addProcessInstanceRecord(1, ProcessInstanceIntent.ELEMENT_ACTIVATED, "start");
+    addProcessInstanceRecord(2, ProcessInstanceIntent.ELEMENT_ACTIVATED, "start");
+    assertThat(recordStream.processInstanceRecords()).hasSize(2);
+
+    // when
+    records.remove(0);
+
+    // then
+    assertThat(
+            StreamSupport.stream(recordStream.processInstanceRecords().spliterator(), false)
+                .map(record -> record.getValue().getProcessInstanceKey()))
+        .containsExactly(2L);
+  }
+
+  private void addProcessInstanceRecord(
+      final long processInstanceKey, final ProcessInstanceIntent intent, final String elementId) {
+    records.add(
+        ImmutableRecord.builder()
+            .withPosition(records.size())
+            .withRecordType(RecordType.EVENT)
+            .withValueType(ValueType.PROCESS_INSTANCE)
+            .withIntent(intent)
+            .withKey(processInstanceKey)
+            .withValue(
+                ImmutableProcessInstanceRecordValue.builder()
+                    .withProcessInstanceKey(processInstanceKey)
+                    .withElementId(elementId)
+                    .build())
+            .build());
+  }
+
+  private void addJobRecord(
+      final long processInstanceKey, final JobIntent intent, final String elementId) {
+    records.add(
+        ImmutableRecord.builder()
+            .withPosition(records.size())
+            .withRecordType(RecordType.EVENT)
+            .withValueType(ValueType.JOB)
+            .withIntent(intent)
+            .withKey(100 + records.size())
+            .withValue(
+                ImmutableJobRecordValue.builder()
+                    .withProcessInstanceKey(processInstanceKey)
+                    .withElementId(elementId)
+                    .build())
+            .build());
+  }
+}
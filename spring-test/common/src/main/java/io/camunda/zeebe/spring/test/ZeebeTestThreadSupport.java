@@ -18,13 +18,16 @@ package io.camunda.zeebe.spring.test;
 import static io.camunda.zeebe.process.test.assertions.BpmnAssert.assertThat;
 
 import io.camunda.client.api.response.ProcessInstanceEvent;
+import io.camunda.zeebe.process.test.api.RecordListener;
+import io.camunda.zeebe.process.test.api.RecordSubscription;
 import io.camunda.zeebe.process.test.api.ZeebeTestEngine;
 import io.camunda.zeebe.process.test.assertions.BpmnAssert;
 import io.camunda.zeebe.process.test.filters.RecordStream;
 import io.camunda.zeebe.process.test.inspections.model.InspectedProcessInstance;
+import io.camunda.zeebe.protocol.record.Record;
 import java.time.Duration;
-import java.util.Objects;
-import org.awaitility.Awaitility;
+import java.util.concurrent.TimeUnit;
+import org.awaitility.core.ConditionTimeoutException;
 
 /** Helper to wait in the multithreaded environment for the worker to execute. */
 public class ZeebeTestThreadSupport {
@@ -32,7 +35,6 @@ public class ZeebeTestThreadSupport {
   private static final ThreadLocal<ZeebeTestEngine> ENGINES = new ThreadLocal<>();
   private static final Duration DEFAULT_DURATION = Duration.ofMillis(5000);
   private static final Integer DEFAULT_TIMES_PASSED = 1;
-  private static final Long DEFAULT_INTERVAL_MILLIS = 100L;
 
   public static void setEngineForCurrentThread(final ZeebeTestEngine engine) {
     ENGINES.set(engine);
@@ -77,17 +79,7 @@ public class ZeebeTestThreadSupport {
     if (duration == null) {
       duration = DEFAULT_DURATION;
     }
-    Awaitility.await()
-        .atMost(duration)
-        .untilAsserted(
-            () -> {
-              // allow the worker to work
-              Thread.sleep(DEFAULT_INTERVAL_MILLIS);
-              BpmnAssert.initRecordStream(
-                  RecordStream.of(Objects.requireNonNull(engine).getRecordStreamSource()));
-              // use inside the awaitility thread
-              assertThat(inspectedProcessInstance).isCompleted();
-            });
+    waitUntilAsserted(engine, duration, () -> assertThat(inspectedProcessInstance).isCompleted());
   }
 
   public static void waitForProcessInstanceHasPassedElement(
@@ -140,14 +132,80 @@ public class ZeebeTestThreadSupport {
     if (duration == null) {
       duration = DEFAULT_DURATION;
     }
-    Awaitility.await()
-        .atMost(duration)
-        .untilAsserted(
-            () -> {
-              Thread.sleep(DEFAULT_INTERVAL_MILLIS);
-              BpmnAssert.initRecordStream(
-                  RecordStream.of(Objects.requireNonNull(engine).getRecordStreamSource()));
-              assertThat(inspectedProcessInstance).hasPassedElement(elementId, times);
-            });
+    waitUntilAsserted(
+        engine,
+        duration,
+        () -> assertThat(inspectedProcessInstance).hasPassedElement(elementId, times));
+  }
+
+  /**
+   * Evaluates the assertion until it succeeds. It is evaluated again whenever the engine published
+   * new records, instead of periodically.
+   */
+  private static void waitUntilAsserted(
+      final ZeebeTestEngine engine, final Duration duration, final Runnable assertion) {
+    final long deadline = System.nanoTime() + duration.toNanos();
+    final RecordArrivals arrivals = new RecordArrivals();
+    try (final RecordSubscription subscription =
+        engine.getRecordStreamSource().subscribe(-1, arrivals)) {
+      long evaluatedArrivals = 0;
+      while (true) {
+        try {
+          BpmnAssert.initRecordStream(RecordStream.of(engine.getRecordStreamSource()));
+          assertion.run();
+          return;
+        } catch (final AssertionError e) {
+          final long currentArrivals = arrivals.awaitMoreThan(evaluatedArrivals, deadline);
+          if (arrivals.failure != null) {
+            final IllegalStateException failure =
+                new IllegalStateException(
+                    "Failed to read the records of the engine", arrivals.failure);
+            failure.addSuppressed(e);
+            throw failure;
+          }
+          if (currentArrivals == evaluatedArrivals) {
+            throw new ConditionTimeoutException(
+                "Assertion was not fulfilled within " + duration, e);
+          }
+          evaluatedArrivals = currentArrivals;
+        }
+      }
+    } catch (final InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Interrupted while waiting for the assertion", e);
+    }
+  }
+
+  /** Counts the records which the engine published, to wake up the waiting test thread. */
+  private static final class RecordArrivals implements RecordListener {
+
+    private long arrivals;
+    private volatile Throwable failure;
+
+    @Override
+    public synchronized void onRecord(final Record<?> record) {
+      arrivals++;
+      notifyAll();
+    }
+
+    @Override
+    public synchronized void onFailure(final Throwable failure) {
+      this.failure = failure;
+      notifyAll();
+    }
+
+    /**
+     * @return the number of arrived records, once it exceeds the given number, or the given number
+     *     if the deadline passed or the subscription failed before
+     */
+    private synchronized long awaitMoreThan(final long evaluatedArrivals, final long deadline)
+        throws InterruptedException {
+      long remainingNanos = deadline - System.nanoTime();
+      while (arrivals <= evaluatedArrivals && failure == null && remainingNanos > 0) {
+        TimeUnit.NANOSECONDS.timedWait(this, remainingNanos);
+        remainingNanos = deadline - System.nanoTime();
+      }
+      return remainingNanos > 0 ? arrivals : evaluatedArrivals;
+    }
   }
 }